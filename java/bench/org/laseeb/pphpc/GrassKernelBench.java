@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the grass kernels on the grid sizes given by simulation
+ * parameters files, measuring the average time of one iteration of grass 
+ * regrowth plus grass statistics over the whole grid. Parameters files are
+ * given relative to the directory from where benchmarks are run, and can be
+ * changed with the JMH option 
+ * <code>-p paramsFile=../configs/config3200v1.txt</code>. Benchmarks of 
+ * kernels which are not available fail in their setup.
+ * 
+ * Usage: ant bench -Dbench.args="GrassKernelBench -p paramsFile=../configs/config1600v1.txt"
+ * 
+ * @author Nuno Fachada
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class GrassKernelBench {
+
+	/* File containing simulation parameters. */
+	@Param({"../configs/config1600v1.txt"})
+	private String paramsFile;
+	
+	/* Type of grass kernel to benchmark. */
+	@Param
+	private GrassKernelType kernelType;
+	
+	/* Grass kernel. */
+	private IGrassKernel kernel;
+	
+	/* Grass counters. */
+	private int[] grass;
+	
+	/* Grass restart simulation parameter. */
+	private int grassRestart;
+	
+	/* Statistics gathered in each iteration. */
+	private IterationStats stats = new IterationStats();
+	
+	/* Number of iterations performed. */
+	private int iter = 0;
+	
+	/**
+	 * Initialize grass as in the simulation, and create the kernel.
+	 * 
+	 * @throws IOException If the parameters file cannot be read.
+	 */
+	@Setup
+	public void setup() throws IOException {
+		
+		ModelParams params = new ModelParams(this.paramsFile);
+		if (!this.kernelType.isAvailable())
+			throw new IllegalStateException(
+					"Kernel " + this.kernelType + " not available.");
+		
+		this.grassRestart = params.getGrassRestart();
+		this.kernel = this.kernelType.createKernel(this.grassRestart);
+		
+		int size = params.getGridX() * params.getGridY();
+		this.grass = new int[size];
+		ICellGrassInitStrategy grassInit = new CellGrassInitCoinRandCounter();
+		IRng rng = new RandomGeneratorRng(new Random(size));
+		for (int i = 0; i < size; i++) {
+			this.grass[i] = grassInit.getInitGrass(this.grassRestart, rng);
+		}
+	}
+	
+	/**
+	 * Perform one iteration of grass regrowth plus grass statistics.
+	 * 
+	 * @return The number of cells with grass alive or in countdown.
+	 */
+	@Benchmark
+	public long iteration() {
+		
+		/* Regrow grass and get statistics. */
+		this.kernel.regenerate(this.grass, 0, this.grass.length);
+		this.stats.reset();
+		this.kernel.getStats(this.grass, 0, this.grass.length, this.stats);
+		
+		/* Emulate sheep eating a fraction of the grass, so that grass 
+		 * doesn't simply become alive everywhere. */
+		for (int j = this.iter % 7; j < this.grass.length; j += 7) {
+			if (this.grass[j] == 0) this.grass[j] = this.grassRestart;
+		}
+		this.iter++;
+		
+		return this.stats.getGrassAlive() + this.stats.getGrassCountdown();
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the random number generator types, measuring the 
+ * average time of the draws performed in the simulation, through the 
+ * {@link IRng} interface used by workers, and of the creation of 
+ * generators. By default all generator types are benchmarked; a subset can
+ * be selected with the JMH option <code>-p rngType=MT,XOSHIRO</code>.
+ * 
+ * Usage: ant bench -Dbench.args="RNGTypeBench -p rngType=MT"
+ * 
+ * @author Nuno Fachada
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RNGTypeBench {
+	
+	/* Seed used to create generators. */
+	private static final BigInteger SEED = BigInteger.valueOf(123);
+	
+	/* Neighborhood size, i.e. the bound of agent movement draws. */
+	private static final int MOVE_BOUND = 5;
+	
+	/* Bound of agent reproduction draws. */
+	private static final int REPRODUCE_BOUND = 100;
+
+	/* Type of generator to benchmark. */
+	@Param
+	private RNGType rngType;
+	
+	/* Generator used in the draw benchmarks. */
+	private IRng rng;
+	
+	/* Factory of worker streams used in the stream creation benchmark. */
+	private IRNGStreamFactory streams;
+	
+	/* Worker ID used to seed the next generator created. */
+	private int wId = 0;
+	
+	/* Worker ID of the next stream created. */
+	private int streamId = 0;
+	
+	/**
+	 * Create the generator used in the draw benchmarks.
+	 * 
+	 * @throws Exception If the generator cannot be created.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		this.rng = this.rngType.createIRng(new ModelSeedGenerator(0, SEED));
+		this.streams = this.rngType.createStreamFactory(SEED);
+	}
+	
+	/**
+	 * Draw a value bounded by the neighborhood size, as when agents move.
+	 * 
+	 * @return The drawn value.
+	 */
+	@Benchmark
+	public int nextIntMove() {
+		return this.rng.nextInt(MOVE_BOUND);
+	}
+	
+	/**
+	 * Draw a value bounded by 100, as when agents try to reproduce.
+	 * 
+	 * @return The drawn value.
+	 */
+	@Benchmark
+	public int nextIntReproduce() {
+		return this.rng.nextInt(REPRODUCE_BOUND);
+	}
+	
+	/**
+	 * Create a generator seeded from the model seed and a worker ID, which
+	 * measures the seeding cost of each generator type.
+	 * 
+	 * @return The created generator.
+	 * @throws Exception If the generator cannot be created.
+	 */
+	@Benchmark
+	public IRng create() throws Exception {
+		return this.rngType.createIRng(new ModelSeedGenerator(this.wId++, SEED));
+	}
+	
+	/**
+	 * Create the stream of the next worker with the stream factory of a 
+	 * model, as done at the start of each simulation. Streams of the 
+	 * JAVASPLIT, L64X128M and L128X256M types are split, and streams of the 
+	 * XOSHIRO and XOROSHIRO types are jumped, from a root generator, so 
+	 * this benchmark measures the split or jump cost of these types, and 
+	 * the seeding cost of the remaining types.
+	 * 
+	 * @return The created stream.
+	 * @throws Exception If the stream cannot be created.
+	 */
+	@Benchmark
+	public IRng createStream() throws Exception {
+		return this.streams.createStream(this.streamId++);
+	}
+
+}
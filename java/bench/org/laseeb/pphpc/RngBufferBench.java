@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the buffering of agent movement and reproduction random
+ * draws, measuring the average time of a pair of draws (a movement draw, 
+ * bounded by the neighborhood size, followed by a reproduction draw, 
+ * bounded by 100) for each generator type and buffer size. A buffer size of
+ * zero measures unbuffered draws. Counter-based generators are never 
+ * buffered in simulations, so their draws are always unbuffered. By 
+ * default all generator types are benchmarked; a subset can be selected 
+ * with the JMH option <code>-p rngType=MT,XOSHIRO</code>.
+ * 
+ * Usage: ant bench -Dbench.args="RngBufferBench -p rngType=MT -p bufferSize=0,4096"
+ * 
+ * @author Nuno Fachada
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RngBufferBench {
+	
+	/* Seed used to create generators. */
+	private static final BigInteger SEED = BigInteger.valueOf(123);
+	
+	/* Bound of movement draws, i.e. the size of the Von Neumann neighborhood. */
+	private static final int MOVE_BOUND = 5;
+	
+	/* Bound of reproduction draws. */
+	private static final int REPRODUCE_BOUND = 100;
+
+	/* Type of generator to benchmark. */
+	@Param
+	private RNGType rngType;
+	
+	/* Buffer size, or zero for unbuffered draws. */
+	@Param({"0", "4096", "16384", "65536"})
+	private int bufferSize;
+	
+	/* Generator used in the benchmark. */
+	private IRng rng;
+	
+	/**
+	 * Create the generator used in the benchmark, buffered if required.
+	 * 
+	 * @throws Exception If the generator cannot be created.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		this.rng = this.rngType.createIRng(new ModelSeedGenerator(0, SEED));
+		if (this.bufferSize > 0 && !this.rngType.isCounterBased())
+			this.rng = new BufferedRng(
+					this.rng, this.bufferSize, MOVE_BOUND, REPRODUCE_BOUND);
+	}
+	
+	/**
+	 * Draw a movement value followed by a reproduction value, as when an 
+	 * agent moves and then tries to reproduce.
+	 * 
+	 * @return The sum of the drawn values.
+	 */
+	@Benchmark
+	public int drawPair() {
+		return this.rng.nextInt(MOVE_BOUND) + this.rng.nextInt(REPRODUCE_BOUND);
+	}
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * JMH benchmarks of the global statistics backends used in multi-threaded
+ * simulations, with atomic counters (<code>ATOMIC</code>) or per-worker 
+ * slots (<code>PER_WORKER</code>). The <code>update</code> benchmark 
+ * measures the average time of a statistics update when all benchmark 
+ * threads update statistics back-to-back, i.e. the worst case contention 
+ * among workers (32 threads by default, which can be changed with the JMH 
+ * option <code>-t</code>). The <code>read</code> benchmark measures the 
+ * time of reading the statistics of all iterations once, after they are
+ * updated by a given number of workers.
+ * 
+ * Usage: ant bench -Dbench.args="StatsBench.update -t 64"
+ * 
+ * @author Nuno Fachada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatsBench {
+	
+	/* Number of iterations kept by the statistics backends. */
+	private static final int STATS_ITERS = 100000;
+	
+	/**
+	 * Create a global statistics backend.
+	 * 
+	 * @param backend Backend type, <code>ATOMIC</code> or 
+	 * <code>PER_WORKER</code>.
+	 * @param numWorkers Number of workers which update statistics.
+	 * @return A new global statistics backend.
+	 */
+	private static IGlobalStats createStats(String backend, int numWorkers) {
+		if (backend.equals("ATOMIC"))
+			return new ThreadSafeGlobalStats(STATS_ITERS);
+		return new PerWorkerGlobalStats(STATS_ITERS, numWorkers);
+	}
+	
+	/**
+	 * Statistics backend shared by all benchmark threads in the update 
+	 * benchmark, with one worker per thread.
+	 */
+	@State(Scope.Benchmark)
+	public static class SharedStats {
+		
+		/* Backend type. */
+		@Param({"ATOMIC", "PER_WORKER"})
+		private String backend;
+		
+		/* Backend updated by all threads. */
+		private IGlobalStats stats;
+		
+		/**
+		 * Create the backend, with one worker per benchmark thread.
+		 * 
+		 * @param params Benchmark parameters, which give the number of 
+		 * threads.
+		 */
+		@Setup
+		public void setup(BenchmarkParams params) {
+			this.stats = createStats(this.backend, params.getThreads());
+		}
+	}
+	
+	/**
+	 * State of each benchmark thread in the update benchmark.
+	 */
+	@State(Scope.Thread)
+	public static class Worker {
+		
+		/* Worker ID, i.e. the index of the benchmark thread. */
+		private int wId;
+		
+		/* Iteration statistics added by this worker. */
+		private IterationStats iterStats;
+		
+		/* Iteration updated next. */
+		private int iter = 0;
+		
+		/**
+		 * Set the worker ID and the statistics added by this worker.
+		 * 
+		 * @param params Thread parameters, which give the thread index.
+		 */
+		@Setup
+		public void setup(ThreadParams params) {
+			this.wId = params.getThreadIndex();
+			this.iterStats = new IterationStats(this.wId, this.wId + 1, 
+					this.wId + 2, this.wId + 3, this.wId + 4, this.wId + 5);
+		}
+	}
+	
+	/**
+	 * Statistics backend of the read benchmark, with all iterations updated
+	 * by the given number of workers before each benchmark iteration.
+	 */
+	@State(Scope.Thread)
+	public static class UpdatedStats {
+		
+		/* Backend type. */
+		@Param({"ATOMIC", "PER_WORKER"})
+		private String backend;
+		
+		/* Number of workers which updated the statistics. */
+		@Param({"32", "64"})
+		private int numWorkers;
+		
+		/* Updated backend. */
+		private IGlobalStats stats;
+		
+		/**
+		 * Create the backend, and update the statistics of all iterations
+		 * by all workers.
+		 */
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.stats = createStats(this.backend, this.numWorkers);
+			for (int wId = 0; wId < this.numWorkers; wId++) {
+				IterationStats iterStats = new IterationStats(
+						wId, wId + 1, wId + 2, wId + 3, wId + 4, wId + 5);
+				for (int i = 0; i <= STATS_ITERS; i++)
+					this.stats.updateStats(wId, i, iterStats);
+			}
+		}
+	}
+	
+	/**
+	 * Add a worker's statistics to the global statistics of an iteration, 
+	 * cycling through the iterations kept by the backend.
+	 * 
+	 * @param shared Backend shared by all threads.
+	 * @param worker State of this thread's worker.
+	 */
+	@Benchmark
+	@Threads(32)
+	public void update(SharedStats shared, Worker worker) {
+		shared.stats.updateStats(worker.wId, worker.iter, worker.iterStats);
+		if (++worker.iter > STATS_ITERS) worker.iter = 0;
+	}
+	
+	/**
+	 * Read the global statistics of all iterations once, as done when 
+	 * statistics are requested after all workers have updated them.
+	 * 
+	 * @param updated Backend updated by all workers.
+	 * @param bh Blackhole which consumes the statistics.
+	 */
+	@Benchmark
+	@Threads(1)
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Measurement(iterations = 10)
+	public void read(UpdatedStats updated, Blackhole bh) {
+		for (int i = 0; i <= STATS_ITERS; i++)
+			bh.consume(updated.stats.getStats(i));
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of cell traversal orders, measuring the time of complete 
+ * single-threaded simulations with cells always traversed in increasing 
+ * order, and with the traversal direction alternating in each pass. The 
+ * latter should be faster when the grid is larger than the CPU caches, 
+ * since each pass starts on the cells processed last in the previous pass.
+ * Parameters files with grids of 1600x1600 or more and a reduced number of
+ * iterations are recommended; they are given relative to the directory 
+ * from where benchmarks are run.
+ * 
+ * Usage: ant bench -Dbench.args="TraversalBench -p paramsFile=../configs/config1600v1.txt"
+ * 
+ * @author Nuno Fachada
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class TraversalBench {
+
+	/* File containing simulation parameters. */
+	@Param({"../configs/config1600v1.txt"})
+	private String paramsFile;
+	
+	/* Agent engine. */
+	@Param({"OBJECT"})
+	private AgentEngineType agentEngine;
+	
+	/* Alternate the cell traversal direction in each pass? */
+	@Param({"false", "true"})
+	private boolean alternate;
+	
+	/* Model and controller, reused in all simulations. */
+	private IModel model;
+	private IController controller;
+	
+	/* Released when the current simulation stops. */
+	private volatile CountDownLatch stopped;
+	
+	/**
+	 * Create the model and controller of a single-threaded simulation.
+	 * 
+	 * @throws IOException If the parameters file cannot be read.
+	 */
+	@Setup
+	public void setup() throws IOException {
+		
+		ModelParams params = new ModelParams(this.paramsFile);
+		IWorkFactory workFactory = new SingleThreadWorkFactory();
+		this.model = new Model(params, workFactory, new ModelOptions()
+				.setSeed(BigInteger.valueOf(params.getGridX()))
+				.setAgentEngine(this.agentEngine)
+				.setAlternateTraversal(this.alternate));
+		this.controller = workFactory.createSimController(this.model);
+		
+		IModelEventObserver stopObserver = new IModelEventObserver() {
+			@Override
+			public void update(ModelEvent event) {
+				stopped.countDown();
+			}
+		};
+		this.model.registerObserver(ModelEvent.STOP, stopObserver);
+		this.model.registerObserver(ModelEvent.EXCEPTION, stopObserver);
+	}
+	
+	/**
+	 * Release the resources of the model.
+	 */
+	@TearDown
+	public void tearDown() {
+		this.controller.dispose();
+	}
+	
+	/**
+	 * Perform a complete simulation.
+	 * 
+	 * @throws Exception If the simulation cannot be started or fails.
+	 */
+	@Benchmark
+	public void simulation() throws Exception {
+		
+		this.stopped = new CountDownLatch(1);
+		this.controller.start();
+		this.stopped.await();
+		
+		if (this.model.getLastThrowable() != null)
+			throw new RuntimeException(this.model.getLastThrowable());
+	}
+
+}
@@ -26,7 +26,6 @@
 
 package org.laseeb.pphpc;
 
-import java.util.Random;
 
 /**
  * Abstract PPHPC agent class.
@@ -85,16 +84,16 @@ public abstract class AbstractAgent implements IAgent {
 	}
 
 	/**
-	 * @see IAgent#act(ICell, Random)
+	 * @see IAgent#act(Cell, IRng, AgentPool)
 	 */
 	@Override
-	public void act(ICell cell, Random rng) {
+	public void act(Cell cell, IRng rng, AgentPool pool) {
 		
 		/* Maybe eat something. */
 		tryEat(cell);
 		
 		/* Maybe perform reproduction. */
-		tryReproduce(cell, rng);
+		tryReproduce(cell, rng, pool);
 	}
 	
 	/**
@@ -128,41 +127,38 @@ public abstract class AbstractAgent implements IAgent {
 	 * 
 	 * @param cell Cell where agent is currently in.
 	 */
-	protected abstract void tryEat(ICell cell);
+	protected abstract void tryEat(Cell cell);
+	
+	/**
+	 * Get a new agent of the same type as this agent from the given pool.
+	 * 
+	 * @param energy Energy of the new agent.
+	 * @param pool Pool from which to obtain the new agent.
+	 * @return A new agent of the same type as this agent.
+	 */
+	protected abstract IAgent newOffspring(int energy, AgentPool pool);
 	
 	/**
 	 * Try to reproduce the agent.
 	 * 
 	 * @param cell Cell where agent is currently in.
 	 * @param rng Random number generator used to try reproduction.
+	 * @param pool Pool from which the new agent is obtained.
 	 */
-	private void tryReproduce(ICell cell, Random rng) {
+	private void tryReproduce(Cell cell, IRng rng, AgentPool pool) {
 		
-		/* Energy needs to be above threshold in order for agents to reproduce. */
-		if (energy > this.getReproduceThreshold()) {
-			
-			/* Throw dice, see if agent reproduces. */
-			if (rng.nextInt(100) < this.getReproduceProbability()) {
+		/* Throw dice, see if agent reproduces. */
+		int childEnergy = AgentRules.offspringEnergy(
+				PackedAgents.typeOf(this), this.energy, this.params, rng);
+		if (childEnergy != AgentRules.NO_OFFSPRING) {
 
-				/* Create new agent with half of the energy of the current agent. */
-				AbstractAgent agent = null;
-				
-				try {
-				
-					agent = (AbstractAgent) this.clone();
-					agent.energy = this.energy / 2;
-					this.energy = this.energy - agent.energy;
-					
-				} catch (CloneNotSupportedException e) {
-					
-					/* This should never be reached. */
-					e.printStackTrace();
-					
-				}
-				
-				/* Put new agent in current cell. */
-				cell.putNewAgent(agent);
-			}
+			/* Create new agent with half of the energy of the current 
+			 * agent, reusing a dead agent if possible. */
+			IAgent agent = this.newOffspring(childEnergy, pool);
+			this.energy = this.energy - childEnergy;
+			
+			/* Put new agent in current cell. */
+			cell.putNewAgent(agent);
 		}
 	}
 	
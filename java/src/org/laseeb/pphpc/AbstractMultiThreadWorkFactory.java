@@ -26,66 +26,86 @@
 
 package org.laseeb.pphpc;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Abstract class for multithreaded work factories. Produces work providers for
- * a given work size and maintains a map of work sizes and work provider 
- * implementations.
+ * a given work type and size and maintains a map of work types and sizes and 
+ * work provider implementations.
  * 
  * @author Nuno Fachada
  */
-public abstract class AbstractMultiThreadWorkFactory implements IWorkFactory {
+public abstract class AbstractMultiThreadWorkFactory implements IWorkProviderFactory {
 
 	/* Number of threads. */
 	protected int numThreads;
+	
+	/* Number of spin iterations before workers waiting at a barrier are 
+	 * parked. */
+	private int spinBudget;
 
-	/* Map of work sizes and work provider implementations. */
-	private Map<Integer, IWorkProvider> workProviders;
+	/* Map of work types and sizes and work provider implementations. Work 
+	 * providers of different work types are kept apart, since they may 
+	 * keep state specific to the work type (e.g. the cell load for 
+	 * rebalancing). */
+	private Map<WorkType, Map<Integer, IWorkProvider>> workProviders;
 	
 	/**
 	 * Create a new abstract work factory.
 	 * 
 	 * @param numThreads Number of threads.
+	 * @param spinBudget Number of spin iterations before workers waiting at
+	 * a barrier are parked (if zero, a cyclic barrier is used instead).
 	 */
-	public AbstractMultiThreadWorkFactory(int numThreads) {
+	public AbstractMultiThreadWorkFactory(int numThreads, int spinBudget) {
 		
 		/* Set the number of threads. */
 		this.numThreads = numThreads;
 		
-		/* Initialize map of work sizes and work provider implementations. */
-		this.workProviders = new HashMap<Integer, IWorkProvider>();
+		/* Set the spin budget for barriers. */
+		this.spinBudget = spinBudget;
+		
+		/* Initialize map of work types and sizes and work provider 
+		 * implementations. */
+		this.workProviders = 
+				new EnumMap<WorkType, Map<Integer, IWorkProvider>>(WorkType.class);
+		for (WorkType type : WorkType.values())
+			this.workProviders.put(type, new HashMap<Integer, IWorkProvider>());
 	}
 	
 	/**
-	 * @see IWorkFactory#getWorkProvider(int, WorkType, IModel, IController)
+	 * @see IWorkProviderFactory#getWorkProvider(int, WorkType, IModel, IController)
 	 */
 	@Override
 	public IWorkProvider getWorkProvider(int workSize, WorkType workType, 
 			IModel model, IController controller) {
 
+		/* Get work providers for the given work type. */
+		Map<Integer, IWorkProvider> typeProviders = this.workProviders.get(workType);
+
 		/* Instantiate work provider if required. Use double-checked locking to 
 		 * avoid thread synchronization after initialization. */
-		if (!this.workProviders.containsKey(workSize)) {
+		if (!typeProviders.containsKey(workSize)) {
 			synchronized (this) {
-				if (!this.workProviders.containsKey(workSize)) {
+				if (!typeProviders.containsKey(workSize)) {
 					
-					/* If the work provider for the given work size hasn't yet 
-					 * been created, delegate creation to the concrete work 
-					 * factory. */
+					/* If the work provider for the given work type and size 
+					 * hasn't yet been created, delegate creation to the 
+					 * concrete work factory. */
 					IWorkProvider workProvider = this.doGetWorkProvider(
 							workSize, workType, model, controller);
 					
 					/* Put new work provider in map, associated with the given 
-					 * work size. */
-					this.workProviders.put(workSize, workProvider);
+					 * work type and size. */
+					typeProviders.put(workSize, workProvider);
 					
 				}
 			}
 		}
 		
-		return this.workProviders.get(workSize);
+		return typeProviders.get(workSize);
 	}
 
 	/**
@@ -102,13 +122,34 @@ public abstract class AbstractMultiThreadWorkFactory implements IWorkFactory {
 	
 	
 	/**
-	 * Create a thread-safe global statistics object. 
+	 * Create a blocking synchronization point for all workers. If a spin 
+	 * budget was given, a spin-then-park barrier is created, otherwise 
+	 * workers are synchronized with a cyclic barrier.
+	 * 
+	 * @param event Control event to associate with the synchronization 
+	 * point.
+	 * @param controller The simulation controller.
+	 * @return A new blocking synchronization point.
+	 */
+	protected ISyncPoint createBlockingSyncPoint(ControlEvent event, 
+			IController controller) {
+		
+		if (this.spinBudget > 0)
+			return new SpinParkSyncPoint(event, controller, 
+					this.numThreads, this.spinBudget);
+		else
+			return new BlockingSyncPoint(event, controller, this.numThreads);
+	}
+	
+	/**
+	 * Create a global statistics object in which each worker updates its
+	 * own statistics slot. 
 	 * 
 	 * @see IWorkFactory#createGlobalStats(int)
 	 */
 	@Override
 	public IGlobalStats createGlobalStats(int iters) {
-		return new ThreadSafeGlobalStats(iters);
+		return new PerWorkerGlobalStats(iters, this.numThreads);
 	}
 
 	/**
@@ -119,4 +160,32 @@ public abstract class AbstractMultiThreadWorkFactory implements IWorkFactory {
 		return this.numThreads;
 	}
 
+	/**
+	 * Each worker runs in its own thread.
+	 * 
+	 * @see IWorkFactory#getNumThreads()
+	 */
+	@Override
+	public int getNumThreads() {
+		return this.numThreads;
+	}
+
+	/**
+	 * Work distribution is not adapted, so there is nothing to report.
+	 * 
+	 * @see IWorkFactory#getWorkReport()
+	 */
+	@Override
+	public String getWorkReport() {
+		return null;
+	}
+
+	/**
+	 * @see IWorkFactory#createSimWorker(int, IModel, IController)
+	 */
+	@Override
+	public Runnable createSimWorker(int wId, IModel model, IController controller) {
+		return new SimWorker(wId, this, model, controller);
+	}
+
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+/**
+ * Enum representing the agent engine, i.e. how agents are represented and
+ * kept in the simulation grid cells.
+ * 
+ * @author Nuno Fachada
+ */
+public enum AgentEngineType {
+	
+	/** Agents are objects kept in lists of each cell. */
+	OBJECT {
+		
+		/* Put agent strategies are stateless, so they are shared by all 
+		 * cells. */
+		private final ICellPutAgentStrategy async = new CellPutAgentAsync();
+		private final ICellPutAgentStrategy sync = new CellPutAgentSync();
+		private final ICellPutAgentStrategy syncOrdered = 
+				new CellPutAgentSyncOrdered();
+		private final ICellPutAgentStrategy syncSorted = 
+				new CellPutAgentSyncSorted();
+		
+		/** @see AgentEngineType#createCell(ModelParams, int[], IAgentStore, int, ICell[], ISpace, CellPutAgentMode, CellPutAgentMode, boolean) */
+		@Override
+		public ICell createCell(ModelParams params, int[] grass,
+				IAgentStore store, int idx, ICell[] cells, ISpace space,
+				CellPutAgentMode putInitAgentMode,
+				CellPutAgentMode putExistingAgentMode,
+				boolean relocate) {
+			return new Cell(params.getGrassRestart(), grass, idx, cells, space,
+					this.putAgentStrategy(putInitAgentMode), 
+					this.putAgentStrategy(putExistingAgentMode), relocate);
+		}
+		
+		/** @see AgentEngineType#supportsRelocation() */
+		@Override
+		public boolean supportsRelocation() {
+			return true;
+		}
+		
+		/** @see AgentEngineType#supportsPutMode(CellPutAgentMode) */
+		@Override
+		public boolean supportsPutMode(CellPutAgentMode mode) {
+			return true;
+		}
+		
+		/**
+		 * Get the strategy which puts agent objects in the given mode.
+		 * 
+		 * @param mode How agents are put in cells.
+		 * @return The strategy which puts agent objects in the given mode.
+		 */
+		private ICellPutAgentStrategy putAgentStrategy(CellPutAgentMode mode) {
+			switch (mode) {
+				case ASYNC:
+					return this.async;
+				case SYNC:
+					return this.sync;
+				case SYNC_ORDERED:
+					return this.syncOrdered;
+				default:
+					return this.syncSorted;
+			}
+		}
+	},
+	
+	/** Agents are packed as types and energies in primitive arrays. */
+	PACKED {
+		/** @see AgentEngineType#createCell(ModelParams, int[], IAgentStore, int, ICell[], ISpace, CellPutAgentMode, CellPutAgentMode, boolean) */
+		@Override
+		public ICell createCell(ModelParams params, int[] grass,
+				IAgentStore store, int idx, ICell[] cells, ISpace space,
+				CellPutAgentMode putInitAgentMode,
+				CellPutAgentMode putExistingAgentMode,
+				boolean relocate) {
+			return new PackedCell(params, grass, idx, cells, space,
+					PackedCellPutAgentStrategy.forMode(putInitAgentMode), 
+					PackedCellPutAgentStrategy.forMode(putExistingAgentMode));
+		}
+	},
+	
+	/** Grass counters and packed agents are kept in off-heap memory. */
+	OFFHEAP {
+		/** @see AgentEngineType#createCell(ModelParams, int[], IAgentStore, int, ICell[], ISpace, CellPutAgentMode, CellPutAgentMode, boolean) */
+		@Override
+		public ICell createCell(ModelParams params, int[] grass,
+				IAgentStore store, int idx, ICell[] cells, ISpace space,
+				CellPutAgentMode putInitAgentMode,
+				CellPutAgentMode putExistingAgentMode,
+				boolean relocate) {
+			return ((OffHeapStore) store).getCell(idx);
+		}
+		
+		/** @see AgentEngineType#createStore(ModelParams, ICell[], ISpace, CellPutAgentMode, CellPutAgentMode, OffHeapMemory) */
+		@Override
+		public IAgentStore createStore(ModelParams params, ICell[] cells, 
+				ISpace space, CellPutAgentMode putInitAgentMode,
+				CellPutAgentMode putExistingAgentMode,
+				OffHeapMemory offHeapMemory) {
+			return new OffHeapStore(
+					offHeapMemory != null ? offHeapMemory : new OffHeapMemory(),
+					params, space, 
+					OffHeapCellPutAgentStrategy.forMode(putInitAgentMode), 
+					OffHeapCellPutAgentStrategy.forMode(putExistingAgentMode));
+		}
+		
+		/** @see AgentEngineType#isOffHeap() */
+		@Override
+		public boolean isOffHeap() {
+			return true;
+		}
+	},
+	
+	/** Agents are kept in model-wide arrays, and linked by index in lists of 
+	 * each cell. */
+	LINKED {
+		/** @see AgentEngineType#createCell(ModelParams, int[], IAgentStore, int, ICell[], ISpace, CellPutAgentMode, CellPutAgentMode, boolean) */
+		@Override
+		public ICell createCell(ModelParams params, int[] grass,
+				IAgentStore store, int idx, ICell[] cells, ISpace space,
+				CellPutAgentMode putInitAgentMode,
+				CellPutAgentMode putExistingAgentMode,
+				boolean relocate) {
+			return new LinkedCell((LinkedAgents) store, grass, idx);
+		}
+		
+		/** @see AgentEngineType#createStore(ModelParams, ICell[], ISpace, CellPutAgentMode, CellPutAgentMode, OffHeapMemory) */
+		@Override
+		public IAgentStore createStore(ModelParams params, ICell[] cells, 
+				ISpace space, CellPutAgentMode putInitAgentMode,
+				CellPutAgentMode putExistingAgentMode,
+				OffHeapMemory offHeapMemory) {
+			return new LinkedAgents(params, cells, space, 
+					LinkedCellPutAgentStrategy.forMode(putInitAgentMode), 
+					LinkedCellPutAgentStrategy.forMode(putExistingAgentMode));
+		}
+	};
+	
+	/**
+	 * Create a simulation grid cell which keeps agents as specified by this
+	 * agent engine. Engines which keep state {@link #isOffHeap() off-heap} 
+	 * have no cell objects, and return the calling thread's reusable view of
+	 * the cell instead, valid until the thread gets the view of another 
+	 * cell.
+	 * 
+	 * @param params Simulation parameters.
+	 * @param grass Grass counters of all cells, owned by the model, or null if
+	 * this engine keeps state {@link #isOffHeap() off-heap}.
+	 * @param store Agent store owned by the model, created with 
+	 * {@link #createStore(ModelParams, ICell[], ISpace, CellPutAgentMode, CellPutAgentMode, OffHeapMemory)}.
+	 * @param idx Index of the cell, and of its grass counter.
+	 * @param cells Cells of the simulation grid, owned by the model, or null
+	 * if this engine keeps state {@link #isOffHeap() off-heap}.
+	 * @param space Simulation space, which determines the cell neighbors.
+	 * @param putInitAgentMode How initial agents are put in the cell. Must be
+	 * {@link #supportsPutMode(CellPutAgentMode) supported} by this engine.
+	 * @param putExistingAgentMode How existing agents are put in the cell. 
+	 * Must be {@link #supportsPutMode(CellPutAgentMode) supported} by this 
+	 * engine.
+	 * @param relocate Relocate moving agents with a counting sort by 
+	 * destination? Ignored if this engine does not 
+	 * {@link #supportsRelocation() support relocation}.
+	 * @return A new simulation grid cell.
+	 */
+	public abstract ICell createCell(ModelParams params, int[] grass,
+			IAgentStore store, int idx, ICell[] cells, ISpace space,
+			CellPutAgentMode putInitAgentMode,
+			CellPutAgentMode putExistingAgentMode,
+			boolean relocate);
+	
+	/**
+	 * Create the model-wide agent store used by the cells of this engine, if
+	 * any.
+	 * 
+	 * @param params Simulation parameters.
+	 * @param cells Cells of the simulation grid, owned by the model, or null
+	 * if this engine keeps state {@link #isOffHeap() off-heap}.
+	 * @param space Simulation space, which determines the cell neighbors.
+	 * @param putInitAgentMode How initial agents are put in cells. Must be
+	 * {@link #supportsPutMode(CellPutAgentMode) supported} by this engine.
+	 * @param putExistingAgentMode How existing agents are put in cells. Must
+	 * be {@link #supportsPutMode(CellPutAgentMode) supported} by this 
+	 * engine.
+	 * @param offHeapMemory Source of off-heap memory for engines which keep 
+	 * state off-heap. If null, direct buffers are used.
+	 * @return A new agent store, or null if the cells of this engine keep 
+	 * their own agents.
+	 */
+	public IAgentStore createStore(ModelParams params, ICell[] cells, 
+			ISpace space, CellPutAgentMode putInitAgentMode,
+			CellPutAgentMode putExistingAgentMode,
+			OffHeapMemory offHeapMemory) {
+		return null;
+	}
+	
+	/**
+	 * Does this engine keep grass counters and agents off-heap, in an 
+	 * {@link OffHeapStore}? Such engines keep no cell objects on the Java 
+	 * heap, and the model accesses cells through the store's views.
+	 * 
+	 * @return True if this engine keeps state off-heap, false if it keeps 
+	 * state on the Java heap.
+	 */
+	public boolean isOffHeap() {
+		return false;
+	}
+	
+	/**
+	 * Can the cells of this engine relocate moving agents with a counting 
+	 * sort by destination, instead of putting them directly in the 
+	 * destination cells?
+	 * 
+	 * @return True if this engine supports agent relocation, false 
+	 * otherwise.
+	 */
+	public boolean supportsRelocation() {
+		return false;
+	}
+	
+	/**
+	 * Can agents be put in the cells of this engine in the given mode? Only 
+	 * the OBJECT engine can sort the agents of a cell once, before they are
+	 * processed; other engines keep agents in order as they are put 
+	 * instead.
+	 * 
+	 * @param mode How agents are put in cells.
+	 * @return True if this engine supports the given mode, false otherwise.
+	 */
+	public boolean supportsPutMode(CellPutAgentMode mode) {
+		return mode != CellPutAgentMode.SYNC_SORTED;
+	}
+
+}
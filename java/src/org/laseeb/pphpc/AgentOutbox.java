@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.util.Arrays;
+
+/**
+ * Per-worker outbox for agents of the object agent engine which move into
+ * cells processed by other workers. When cells are statically assigned to
+ * workers, agents moving into cells of the same worker are put directly in
+ * the destination cell without synchronization, since no other worker 
+ * accesses those cells. Agents moving into cells of another worker are kept
+ * in a buffer for that worker, and are delivered by that worker after the
+ * half-iteration barrier. If cells are assigned to workers dynamically, 
+ * agents are put directly in the destination cell with the regular 
+ * thread-safe strategy.
+ * 
+ * @author Nuno Fachada
+ */
+public class AgentOutbox {
+	
+	/* Initial capacity of the buffers for each worker. */
+	private static final int INIT_CAPACITY = 64;
+
+	/* The MVC model. */
+	private IModelManipulator model;
+	
+	/* ID of the worker which owns this outbox. */
+	private int wId;
+	
+	/* Work provider which assigns cells to workers. */
+	private IWorkProvider cellsWorkProvider;
+	
+	/* Agents moving into cells of each worker. */
+	private IAgent[][] agents;
+	
+	/* Destination cells of the agents moving into cells of each worker. */
+	private int[][] cells;
+	
+	/* Number of agents moving into cells of each worker. */
+	private int[] sizes;
+
+	/**
+	 * Create a new empty outbox.
+	 * 
+	 * @param model The MVC model.
+	 * @param wId ID of the worker which owns this outbox.
+	 * @param numWorkers Total number of workers.
+	 */
+	public AgentOutbox(IModelManipulator model, int wId, int numWorkers) {
+		this.model = model;
+		this.wId = wId;
+		this.agents = new IAgent[numWorkers][INIT_CAPACITY];
+		this.cells = new int[numWorkers][INIT_CAPACITY];
+		this.sizes = new int[numWorkers];
+	}
+	
+	/**
+	 * Set the work provider which assigns cells to workers. Must be called by
+	 * the owner worker before the first simulation step.
+	 * 
+	 * @param cellsWorkProvider Work provider which assigns cells to workers.
+	 */
+	public void setWorkProvider(IWorkProvider cellsWorkProvider) {
+		this.cellsWorkProvider = cellsWorkProvider;
+	}
+	
+	/**
+	 * Move an existing agent into the given cell.
+	 * 
+	 * @param idx Index of destination cell.
+	 * @param agent Agent to move.
+	 */
+	public void put(int idx, IAgent agent) {
+		
+		int owner = this.cellsWorkProvider.getOwner(idx);
+		
+		if (owner == this.wId) {
+			
+			/* Destination cell is processed by the owner of this outbox, put
+			 * agent there directly. */
+			((Cell) this.model.getCell(idx)).putOwnedExistingAgent(agent);
+			
+		} else if (owner < 0) {
+			
+			/* Cells are assigned dynamically, use the regular strategy. */
+			this.model.getCell(idx).putExistingAgent(agent);
+			
+		} else {
+			
+			/* Destination cell is processed by another worker, keep agent in
+			 * the buffer for that worker. */
+			int size = this.sizes[owner];
+			if (size == this.agents[owner].length) {
+				this.agents[owner] = Arrays.copyOf(this.agents[owner], 2 * size);
+				this.cells[owner] = Arrays.copyOf(this.cells[owner], 2 * size);
+			}
+			this.agents[owner][size] = agent;
+			this.cells[owner][size] = idx;
+			this.sizes[owner] = size + 1;
+		}
+	}
+	
+	/**
+	 * Deliver the agents which other workers moved into cells of the owner of
+	 * this outbox. Must be called by the owner worker after the 
+	 * half-iteration barrier, and before performing agent actions.
+	 */
+	public void deliver() {
+		
+		for (int w = 0; w < this.sizes.length; w++) {
+			
+			/* Outbox of another worker. */
+			AgentOutbox outbox = this.model.getAgentOutbox(w);
+			if (outbox == this) continue;
+			
+			/* Put agents destined to the owner of this outbox in their 
+			 * cells. */
+			IAgent[] agents = outbox.agents[this.wId];
+			int[] cells = outbox.cells[this.wId];
+			int size = outbox.sizes[this.wId];
+			for (int i = 0; i < size; i++) {
+				((Cell) this.model.getCell(cells[i])).putOwnedExistingAgent(agents[i]);
+			}
+			
+			/* The buffer is empty again. */
+			outbox.sizes[this.wId] = 0;
+		}
+	}
+	
+	/**
+	 * Discard all buffered agents, such that a new simulation can be 
+	 * performed.
+	 */
+	public void clear() {
+		Arrays.fill(this.sizes, 0);
+	}
+
+}
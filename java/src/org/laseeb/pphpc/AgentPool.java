@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.util.Arrays;
+
+/**
+ * A pool of agent objects, which recycles dead agents such that newly-born 
+ * agents can reuse them instead of allocating new objects. The pool also 
+ * recycles agent indexes of a {@link LinkedAgents} store. Each simulation 
+ * worker has its own pool, so pools are not thread-safe.
+ * 
+ * @author Nuno Fachada
+ */
+public class AgentPool {
+	
+	/* Initial capacity of the stacks of recycled agents. */
+	private static final int INIT_CAPACITY = 64;
+	
+	/* Number of agent indexes reserved at a time from a linked agents 
+	 * store. */
+	private static final int INDEX_BATCH = 1024;
+
+	/* Simulation parameters. */
+	private ModelParams params;
+	
+	/* Stack of recycled sheep. */
+	private Sheep[] sheep;
+	private int numSheep;
+	
+	/* Stack of recycled wolves. */
+	private Wolf[] wolves;
+	private int numWolves;
+	
+	/* Stack of recycled agent indexes. */
+	private int[] indexes;
+	private int numIndexes;
+	
+	/* Range of agent indexes reserved from a linked agents store which were
+	 * never used. */
+	private int nextIndex;
+	private int endIndex;
+	
+	/* Scratch buffer for agent indexes. */
+	private int[] indexBuffer;
+	
+	/* Number of agent objects allocated by this pool. */
+	private long allocations;
+	
+	/**
+	 * Create a new empty agent pool.
+	 * 
+	 * @param params Simulation parameters.
+	 */
+	public AgentPool(ModelParams params) {
+		this.params = params;
+		this.sheep = new Sheep[INIT_CAPACITY];
+		this.numSheep = 0;
+		this.wolves = new Wolf[INIT_CAPACITY];
+		this.numWolves = 0;
+		this.indexes = new int[INIT_CAPACITY];
+		this.numIndexes = 0;
+		this.nextIndex = 0;
+		this.endIndex = 0;
+		this.indexBuffer = new int[INIT_CAPACITY];
+		this.allocations = 0;
+	}
+	
+	/**
+	 * Get a sheep with the given energy, reusing a recycled sheep if 
+	 * available.
+	 * 
+	 * @param energy Sheep energy.
+	 * @return A sheep with the given energy.
+	 */
+	public Sheep newSheep(int energy) {
+		
+		Sheep agent;
+		
+		if (this.numSheep > 0) {
+			agent = this.sheep[--this.numSheep];
+			this.sheep[this.numSheep] = null;
+			agent.setEnergy(energy);
+		} else {
+			agent = new Sheep(energy, this.params);
+			this.allocations++;
+		}
+		return agent;
+	}
+
+	/**
+	 * Get a wolf with the given energy, reusing a recycled wolf if available.
+	 * 
+	 * @param energy Wolf energy.
+	 * @return A wolf with the given energy.
+	 */
+	public Wolf newWolf(int energy) {
+		
+		Wolf agent;
+		
+		if (this.numWolves > 0) {
+			agent = this.wolves[--this.numWolves];
+			this.wolves[this.numWolves] = null;
+			agent.setEnergy(energy);
+		} else {
+			agent = new Wolf(energy, this.params);
+			this.allocations++;
+		}
+		return agent;
+	}
+	
+	/**
+	 * Recycle a dead agent. The agent must not be referenced anywhere else in
+	 * the simulation.
+	 * 
+	 * @param agent Dead agent to recycle.
+	 */
+	public void recycle(IAgent agent) {
+		
+		if (agent instanceof Sheep) {
+			if (this.numSheep == this.sheep.length)
+				this.sheep = Arrays.copyOf(this.sheep, 2 * this.numSheep);
+			this.sheep[this.numSheep++] = (Sheep) agent;
+		} else if (agent instanceof Wolf) {
+			if (this.numWolves == this.wolves.length)
+				this.wolves = Arrays.copyOf(this.wolves, 2 * this.numWolves);
+			this.wolves[this.numWolves++] = (Wolf) agent;
+		}
+	}
+	
+	/**
+	 * Get a free agent index of the given linked agents store, reusing a 
+	 * recycled index if available. Otherwise, indexes are reserved from the
+	 * store in batches.
+	 * 
+	 * @param store Linked agents store.
+	 * @return A free agent index.
+	 */
+	public int newIndex(LinkedAgents store) {
+		
+		if (this.numIndexes > 0)
+			return this.indexes[--this.numIndexes];
+		
+		if (this.nextIndex == this.endIndex) {
+			this.nextIndex = store.reserve(INDEX_BATCH);
+			this.endIndex = this.nextIndex + INDEX_BATCH;
+		}
+		this.allocations++;
+		return this.nextIndex++;
+	}
+	
+	/**
+	 * Recycle the index of a dead agent of a linked agents store. The index 
+	 * must not be linked in any agent list.
+	 * 
+	 * @param index Agent index to recycle.
+	 */
+	public void recycleIndex(int index) {
+		if (this.numIndexes == this.indexes.length)
+			this.indexes = Arrays.copyOf(this.indexes, 2 * this.numIndexes);
+		this.indexes[this.numIndexes++] = index;
+	}
+	
+	/**
+	 * Get a scratch buffer for agent indexes, with at least the given length.
+	 * The buffer is reused by subsequent calls.
+	 * 
+	 * @param length Minimum buffer length.
+	 * @return A scratch buffer for agent indexes.
+	 */
+	public int[] getIndexBuffer(int length) {
+		if (this.indexBuffer.length < length)
+			this.indexBuffer = new int[Math.max(length, 2 * this.indexBuffer.length)];
+		return this.indexBuffer;
+	}
+	
+	/**
+	 * Get the number of agent objects allocated by this pool, i.e. the number
+	 * of agents requested when no recycled agent was available. Agent indexes
+	 * not obtained from recycling are counted as well.
+	 * 
+	 * @return Number of agent objects allocated by this pool.
+	 */
+	public long getAllocations() {
+		return this.allocations;
+	}
+
+}
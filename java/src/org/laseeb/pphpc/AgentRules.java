@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+/**
+ * The PPHPC agent rules, i.e. how agents gain energy from food and 
+ * reproduce, for agents represented by their type (either 
+ * {@link PackedAgents#SHEEP} or {@link PackedAgents#WOLF}) and energy. Used 
+ * by agent objects and by all agent engines which keep agents in primitive
+ * form, such that the rules are defined in a single place.
+ * 
+ * @author Nuno Fachada
+ */
+public final class AgentRules {
+	
+	/** Returned by {@link #offspringEnergy(byte, int, ModelParams, IRng)} 
+	 * when the agent does not reproduce. */
+	public static final int NO_OFFSPRING = -1;
+	
+	/**
+	 * This class only has static methods, so it is not instantiated.
+	 */
+	private AgentRules() {}
+	
+	/**
+	 * Get the energy an agent of the given type gains from food, i.e. from 
+	 * grass in the case of sheep, or from sheep in the case of wolves.
+	 * 
+	 * @param type Agent type.
+	 * @param params Simulation parameters.
+	 * @return The energy gained from food.
+	 */
+	public static int gainFromFood(byte type, ModelParams params) {
+		return type == PackedAgents.SHEEP 
+				? params.getSheepGainFromFood() 
+				: params.getWolvesGainFromFood();
+	}
+	
+	/**
+	 * Get the energy an agent of the given type requires in order to 
+	 * reproduce.
+	 * 
+	 * @param type Agent type.
+	 * @param params Simulation parameters.
+	 * @return The reproduction threshold.
+	 */
+	public static int reproduceThreshold(byte type, ModelParams params) {
+		return type == PackedAgents.SHEEP 
+				? params.getSheepReproduceThreshold() 
+				: params.getWolvesReproduceThreshold();
+	}
+	
+	/**
+	 * Get the probability (between 0 and 100) of an agent of the given type
+	 * reproducing, when its energy is above the reproduction threshold.
+	 * 
+	 * @param type Agent type.
+	 * @param params Simulation parameters.
+	 * @return The reproduction probability.
+	 */
+	public static int reproduceProbability(byte type, ModelParams params) {
+		return type == PackedAgents.SHEEP 
+				? params.getSheepReproduceProb() 
+				: params.getWolvesReproduceProb();
+	}
+	
+	/**
+	 * An agent of the given type and energy tries to reproduce. If it does,
+	 * the offspring gets half of the agent's energy, which the agent loses.
+	 * The random number generator is only used if the agent's energy is 
+	 * above the reproduction threshold.
+	 * 
+	 * @param type Agent type.
+	 * @param energy Agent energy.
+	 * @param params Simulation parameters.
+	 * @param rng Random number generator used to try reproduction.
+	 * @return The energy of the offspring, to be subtracted from the agent's
+	 * energy, or {@link #NO_OFFSPRING} if the agent does not reproduce.
+	 */
+	public static int offspringEnergy(byte type, int energy, 
+			ModelParams params, IRng rng) {
+		
+		/* Energy needs to be above threshold in order for agents to reproduce. */
+		if (energy > reproduceThreshold(type, params)) {
+			
+			/* Throw dice, see if agent reproduces. */
+			if (rng.nextInt(100) < reproduceProbability(type, params)) {
+				
+				/* Offspring gets half of the energy of the agent. */
+				return energy / 2;
+			}
+		}
+		return NO_OFFSPRING;
+	}
+	
+	/**
+	 * Update statistics with an agent of the given type and energy.
+	 * 
+	 * @param stats Statistics object to update.
+	 * @param type Agent type.
+	 * @param energy Agent energy.
+	 */
+	public static void countAgent(IterationStats stats, byte type, int energy) {
+		if (type == PackedAgents.SHEEP) {
+			stats.incSheepCount();
+			stats.updateSheepEnergy(energy);
+		} else {
+			stats.incWolvesCount();
+			stats.updateWolvesEnergy(energy);
+		}
+	}
+
+}
@@ -82,6 +82,15 @@ public class ApacheCommonsRNGWrapper extends Random {
         return rng.nextLong();
     }
     
+    /**
+     * Get the wrapped generator.
+     * 
+     * @return The wrapped generator.
+     */
+    public UniformRandomProvider getProvider() {
+    	return rng;
+    }
+    
     public ApacheCommonsRNGWrapper split() {	
     	return new ApacheCommonsRNGWrapper(((SplittableUniformRandomProvider)rng).split());
     }
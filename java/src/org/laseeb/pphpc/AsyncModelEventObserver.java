@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.util.ArrayDeque;
+
+/**
+ * Model event observer which forwards events to another observer in a 
+ * separate thread, through a bounded queue, such that threads notifying 
+ * events (e.g. simulation workers at a barrier) are not delayed by the 
+ * observer. Events are delivered in the order in which they were notified.
+ * A new iteration event is coalesced with a pending new iteration event at
+ * the end of the queue, so it is never queued more than once in a row and
+ * never blocks the notifying thread. Other events block the notifying 
+ * thread while the queue is full.
+ * 
+ * The time each event waits in the queue until it is delivered (lag) is 
+ * measured, and can be obtained with {@link #getReport()}.
+ * 
+ * @author Nuno Fachada
+ */
+public class AsyncModelEventObserver implements IModelEventObserver {
+	
+	/* Observer to which events are forwarded. */
+	private IModelEventObserver observer;
+	
+	/* Queue of pending events. */
+	private ArrayDeque<PendingEvent> events;
+	
+	/* Maximum number of events in queue, other than a new iteration event 
+	 * at its end. */
+	private int capacity;
+	
+	/* Number of events notified, including coalesced events. */
+	private long notified;
+	
+	/* Number of events delivered to the observer. */
+	private long delivered;
+	
+	/* Number of new iteration events coalesced with a pending one. */
+	private long coalesced;
+	
+	/* Total and maximum lag of delivered events, in nanoseconds. */
+	private long totalLag;
+	private long maxLag;
+	
+	/**
+	 * Create a new asynchronous model event observer, and start the thread 
+	 * which delivers events to the given observer.
+	 * 
+	 * @param observer Observer to which events are forwarded.
+	 * @param capacity Maximum number of pending events, other than a new
+	 * iteration event.
+	 */
+	public AsyncModelEventObserver(IModelEventObserver observer, int capacity) {
+		
+		this.observer = observer;
+		this.capacity = capacity;
+		this.events = new ArrayDeque<PendingEvent>(capacity + 1);
+		
+		/* The delivery thread is a daemon thread, so that it does not keep
+		 * the JVM alive while waiting for events. */
+		Thread dispatcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				dispatch();
+			}
+		}, "pphpc-events-" + observer.getClass().getSimpleName());
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	/**
+	 * Queue the event for delivery to the observer.
+	 * 
+	 * @see IModelEventObserver#update(ModelEvent)
+	 */
+	@Override
+	public synchronized void update(ModelEvent event) {
+		
+		this.notified++;
+		
+		if (event == ModelEvent.NEW_ITERATION) {
+			
+			/* Coalesce with pending new iteration event, if any. The lag is
+			 * measured from the older event. */
+			PendingEvent last = this.events.peekLast();
+			if (last != null && last.event == ModelEvent.NEW_ITERATION) {
+				this.coalesced++;
+				return;
+			}
+			
+		} else {
+			
+			/* Wait for room in queue. If interrupted, queue the event anyway,
+			 * since other events should not be lost. */
+			boolean interrupted = false;
+			while (this.events.size() >= this.capacity && !interrupted) {
+				try {
+					this.wait();
+				} catch (InterruptedException ie) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) Thread.currentThread().interrupt();
+			
+		}
+		
+		this.events.addLast(new PendingEvent(event, System.nanoTime()));
+		this.notifyAll();
+	}
+	
+	/**
+	 * Deliver queued events to the observer, forever.
+	 */
+	private void dispatch() {
+		
+		while (true) {
+			
+			/* Get next event, and update lag metrics. */
+			PendingEvent next;
+			synchronized (this) {
+				while (this.events.isEmpty()) {
+					try {
+						this.wait();
+					} catch (InterruptedException ie) {
+						return;
+					}
+				}
+				next = this.events.pollFirst();
+				long lag = System.nanoTime() - next.notifyTime;
+				this.delivered++;
+				this.totalLag += lag;
+				this.maxLag = Math.max(this.maxLag, lag);
+				this.notifyAll();
+			}
+			
+			/* Deliver it. An exception thrown by the observer is handled as 
+			 * an uncaught exception, but does not stop the delivery of 
+			 * further events. */
+			try {
+				this.observer.update(next.event);
+			} catch (RuntimeException re) {
+				Thread current = Thread.currentThread();
+				current.getUncaughtExceptionHandler().uncaughtException(current, re);
+			}
+		}
+	}
+	
+	/**
+	 * Get a description of the event delivery lag to the observer.
+	 * 
+	 * @return A description of the event delivery lag to the observer.
+	 */
+	public synchronized String getReport() {
+		return String.format(
+				"Events to %s: %d notified, %d coalesced, %d delivered, lag avg %.3f ms, max %.3f ms", 
+				this.observer.getClass().getSimpleName(), this.notified, 
+				this.coalesced, this.delivered, 
+				this.delivered > 0 ? this.totalLag / 1e6 / this.delivered : 0.0, 
+				this.maxLag / 1e6);
+	}
+	
+	/**
+	 * An event waiting to be delivered.
+	 */
+	private static class PendingEvent {
+		
+		/* The event. */
+		private final ModelEvent event;
+		
+		/* Time at which the event was notified, in nanoseconds. */
+		private final long notifyTime;
+		
+		/**
+		 * Create a new pending event.
+		 * 
+		 * @param event The event.
+		 * @param notifyTime Time at which the event was notified, in 
+		 * nanoseconds.
+		 */
+		PendingEvent(ModelEvent event, long notifyTime) {
+			this.event = event;
+			this.notifyTime = notifyTime;
+		}
+	}
+
+}
@@ -27,18 +27,33 @@
 package org.laseeb.pphpc;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Concrete implementation of a PPHPC model cell, part of a larger simulation grid.
  * 
+ * If agent relocation is enabled, moving agents are not put directly in the 
+ * destination cells. Instead, each cell sorts its moving agents by 
+ * destination with a two-pass counting sort, keeping them in contiguous 
+ * ranges of an outgoing array. In the second half of the iteration, each 
+ * cell gathers the ranges destined to it from its neighbors, such that no
+ * synchronization is required other than the half-iteration barrier.
+ * 
  * @author Nuno Fachada
  *
  */
 public class Cell implements ICell {
 	
+	/* Shared immutable empty list, used in place of agent lists until agents
+	 * are put in them. */
+	private static final List<IAgent> NO_AGENTS = Collections.emptyList();
+	
+	/* Shared empty outgoing array, used in place of a cell's outgoing array
+	 * until agents move out of it. */
+	private static final IAgent[] NO_OUTGOING = new IAgent[0];
+	
 	/* Put agent strategies. */
 	private ICellPutAgentStrategy putInitAgentStrategy;
 	private ICellPutAgentStrategy putExistingAgentStrategy;
@@ -50,45 +65,89 @@ public class Cell implements ICell {
 	private List<IAgent> agents;
 	
 	/* List where to put agents which already exist in simulation
-	 * (e.g. moving from another cell). */
-	private List<IAgent> existingAgents;	
+	 * (e.g. moving from another cell). Volatile, since it may be created 
+	 * lazily by any worker moving an agent into this cell. */
+	private volatile List<IAgent> existingAgents;	
+	
+	/* List where to put new agents. Volatile, since it may be created lazily
+	 * by any worker putting an initial agent in this cell. */
+	private volatile List<IAgent> newAgents;
 	
-	/* List where to put new agents. */
-	private List<IAgent> newAgents;
+	/* Were initial agents put in the new agents list since statistics were
+	 * last gathered? */
+	private boolean initAgentsPut;
 	
 	/* Auxiliary list for gathering agent statistics and incorporating new 
 	 * agents in simulation. */
 	private List<IAgent> auxAgents;
 	
-	/* This cell's neighborhood. */
-	private List<ICell> neighborhood = null;
+	/* Cells of the simulation grid, owned by the model. */
+	private ICell[] cells;
+	
+	/* Simulation space, which determines this cell's neighbors. */
+	private ISpace space;
+	
+	/* Grass counters of all cells, owned by the model. */
+	private int[] grass;
+	
+	/* Index of this cell, and of its grass counter. */
+	private int idx;
 	
-	/* Grass counter. */
-	private int grass;
+	/* Relocate moving agents with a counting sort by destination? */
+	private boolean relocate;
+	
+	/* Moving agents sorted by destination, only used if agent relocation is
+	 * enabled. */
+	private IAgent[] outgoing;
+	
+	/* Start of the range of moving agents for each direction in the 
+	 * outgoing array, followed by the end of the last range. Only used if 
+	 * agent relocation is enabled, and null until agents are relocated, in 
+	 * which case all ranges are empty. */
+	private int[] outgoingStart;
 	
 	/**
 	 * Create a new grid cell.
 	 * 
 	 * @param grassRestart Grass restart simulation parameter.
-	 * @param initialGrass Initial grass value.
+	 * @param grass Grass counters of all cells, owned by the model.
+	 * @param idx Index of this cell, and of its grass counter.
+	 * @param cells Cells of the simulation grid, owned by the model.
+	 * @param space Simulation space, which determines this cell's neighbors.
 	 * @param putExistingAgentStrategy Strategy for putting existing agents in
 	 * this cell.
+	 * @param relocate Relocate moving agents with a counting sort by 
+	 * destination, instead of putting them directly in the destination cells?
 	 */
 	public Cell(int grassRestart,
-			int initialGrass,
+			int[] grass,
+			int idx,
+			ICell[] cells,
+			ISpace space,
 			ICellPutAgentStrategy putInitAgentsStrategy,
-			ICellPutAgentStrategy putExistingAgentStrategy) {
+			ICellPutAgentStrategy putExistingAgentStrategy,
+			boolean relocate) {
 		
 		this.grassRestart = grassRestart;
-		this.grass = initialGrass;
+		this.grass = grass;
+		this.idx = idx;
+		this.cells = cells;
+		this.space = space;
 		this.putInitAgentStrategy = putInitAgentsStrategy;
 		this.putExistingAgentStrategy = putExistingAgentStrategy;
 		
-		/* Initialize agent keeping structures. */
-		this.agents = new ArrayList<IAgent>();
-		this.newAgents = new ArrayList<IAgent>();
-		this.existingAgents = new ArrayList<IAgent>();
-		this.auxAgents = new ArrayList<IAgent>();
+		/* Agent keeping structures are only created when agents are put in
+		 * them, since most cells hold few or no agents. */
+		this.agents = NO_AGENTS;
+		this.newAgents = NO_AGENTS;
+		this.existingAgents = NO_AGENTS;
+		this.auxAgents = NO_AGENTS;
+		
+		/* Relocation structures are only created when agents move out of 
+		 * this cell, for the same reason. */
+		this.relocate = relocate;
+		this.outgoing = NO_OUTGOING;
+		this.outgoingStart = null;
 	}
 
 
@@ -97,7 +156,7 @@ public class Cell implements ICell {
 	 */
 	@Override
 	public boolean isGrassAlive() {
-		return this.grass == 0;
+		return this.grass[this.idx] == 0;
 	}
 
 	/**
@@ -105,17 +164,7 @@ public class Cell implements ICell {
 	 */
 	@Override
 	public void eatGrass() {
-		this.grass = this.getGrassRestart();
-	}
-	
-	/**
-	 * @see ICell#regenerateGrass()
-	 */
-	@Override
-	public void regenerateGrass() {
-		if (this.grass > 0) {
-			this.grass--;
-		}
+		this.grass[this.idx] = this.getGrassRestart();
 	}
 	
 	/**
@@ -127,9 +176,12 @@ public class Cell implements ICell {
 	}
 
 	/**
-	 * @see ICell#getAgents()
+	 * This method allows the cell to be used in a "foreach" statement,
+	 * returning an agent in each iteration. Only cells of the object agent
+	 * engine keep agent objects, which act on the cell they are in.
+	 * 
+	 * @return An iterable collection for agents in this cell.
 	 */
-	@Override
 	public Iterable<IAgent> getAgents() {
 		
 		return this.agents;
@@ -143,7 +195,8 @@ public class Cell implements ICell {
 	public void putInitAgent(IAgent agent) {
 		
 		/* Put initial agent according to the specified strategy. */
-		this.putInitAgentStrategy.putAgent(this.newAgents, agent);
+		this.putInitAgentStrategy.putAgent(this.getNewAgents(), agent);
+		this.initAgentsPut = true;
 
 	}
 	
@@ -154,7 +207,7 @@ public class Cell implements ICell {
 	public void putNewAgent(IAgent agent) {
 		
 		/* Put new agent in new agent list. */
-		this.newAgents.add(agent);
+		this.getNewAgents().add(agent);
 
 	}
 	
@@ -165,23 +218,34 @@ public class Cell implements ICell {
 	public void putExistingAgent(IAgent agent) {
 
 		/* Put existing agent according to the specified strategy. */
-		this.putExistingAgentStrategy.putAgent(this.existingAgents, agent);
+		this.putExistingAgentStrategy.putAgent(this.getExistingAgents(), agent);
 
 	}
 	
 	/**
-	 * @see ICell#getStats(IterationStats)
+	 * Put an existing agent in this cell on behalf of the worker which 
+	 * processes it, such that no synchronization is required. Used by 
+	 * {@link AgentOutbox}.
+	 * 
+	 * @param agent Existing agent to put in this cell.
+	 */
+	void putOwnedExistingAgent(IAgent agent) {
+		this.putExistingAgentStrategy.putOwnedAgent(this.getExistingAgents(), agent);
+	}
+	
+	/**
+	 * @see ICell#getStats(IterationStats, AgentPool)
 	 */
 	@Override
-	public void getStats(IterationStats stats) {
+	public void getStats(IterationStats stats, AgentPool pool) {
 		
-		/* Grass alive or not? */
-		if (this.isGrassAlive())
-			stats.incGrassAlive();
-		else
-			stats.updateGrassCountdown(this.grass);
+		/* Nothing to do if there are no agents in this cell. */
+		if (this.agents.isEmpty() && this.newAgents.isEmpty())
+			return;
 		
 		this.auxAgents.clear();
+		if (this.auxAgents == NO_AGENTS)
+			this.auxAgents = new ArrayList<IAgent>();
 		
 		/* Count previously existing agents, add them to the auxAgents list. */
 		for (int i = 0; i < this.agents.size(); i++) {
@@ -199,9 +263,20 @@ public class Cell implements ICell {
 					stats.updateWolvesEnergy(agent.getEnergy());
 				}
 				this.auxAgents.add(agent);
+			} else {
+				
+				/* He's dead, recycle him. Other lists which may still
+				 * reference him are only cleared, never read. */
+				pool.recycle(agent);
 			}
 		}
 		
+		/* Prepare initial agents according to the strategy which put them. */
+		if (this.initAgentsPut) {
+			this.putInitAgentStrategy.prepareAgents(this.newAgents);
+			this.initAgentsPut = false;
+		}
+		
 		/* Count newly born agents, add them to the auxAgents list. */
 		for (int i = 0; i < this.newAgents.size(); i++) {
 
@@ -231,10 +306,10 @@ public class Cell implements ICell {
 	}
 	
 	/**
-	 * @see ICell#agentActions(Random, boolean shuffle)
+	 * @see ICell#agentActions(IRng, boolean, AgentPool)
 	 */
 	@Override
-	public void agentActions(Random rng, boolean shuffle) {
+	public void agentActions(IRng rng, boolean shuffle, AgentPool pool) {
 		
 		/* Swap current agents list and existingAgents list. */
 		List<IAgent> aux;
@@ -243,7 +318,19 @@ public class Cell implements ICell {
 		this.existingAgents = aux;
 		this.existingAgents.clear();
 		
-		if (shuffle) Collections.shuffle(this.agents, rng);
+		/* Gather agents which moved into this cell, if agent relocation is
+		 * enabled. */
+		if (this.relocate) this.gatherAgents(pool);
+		
+		/* Prepare agents according to the strategy which put them. */
+		this.putExistingAgentStrategy.prepareAgents(this.agents);
+		
+		/* Shuffle agents, drawing the same random numbers as 
+		 * Collections.shuffle(). */
+		if (shuffle) {
+			for (int i = this.agents.size(); i > 1; i--)
+				Collections.swap(this.agents, i - 1, rng.nextInt(i));
+		}
 		
 		/* Cycle through agents in the current agents list. */
 		for (int i = 0; i < this.agents.size(); i++) {
@@ -253,39 +340,117 @@ public class Cell implements ICell {
 			
 			/* If agent is alive, perform its actions. */
 			if (agent.isAlive())
-				agent.act(this, rng);
+				agent.act(this, rng, pool);
 		}
 		
 	}
 	
 	/**
-	 * @see ICell#setNeighborhood(List)
+	 * @see ICell#agentsMove(IRng, AgentPool, AgentOutbox)
 	 */
 	@Override
-	public void setNeighborhood(List<ICell> neighborhood) {
+	public void agentsMove(IRng rng, AgentPool pool, AgentOutbox outbox) {
 		
-		if (this.neighborhood == null) {
-
-			/* Only set neighborhood if neighborhood is not already set. */
-			this.neighborhood = neighborhood;
-
-		} else {
+		/* Relocate agents with a counting sort by destination, if enabled. */
+		if (this.relocate) {
+			this.relocateAgents(rng, pool);
+			return;
+		}
 			
-			/* If this exception is thrown, there is a bug somewhere. */
-			throw new IllegalStateException("Cell neighborhood already set!");
+		/*  Cycle through agents in the current agents list. */
+		for (int i = 0; i < this.agents.size(); i++) {
 			
+			/* Get current agent. */
+			IAgent agent = this.agents.get(i);
+
+			/* Decrement agent energy. */
+			agent.decEnergy();
+
+			/* Move agent if he's still alive. */
+			if (agent.isAlive()) {
+				
+				/* Choose a random direction. */
+				int direction = rng.nextInt(this.space.getNeighborhoodSize());
+				
+				/* Move agent, through the outbox if given. */
+				int dest = this.space.getNeighbor(this.idx, direction);
+				if (outbox != null)
+					outbox.put(dest, agent);
+				else
+					this.cells[dest].putExistingAgent(agent);
+				
+			} else {
+				
+				/* He starved, and is only referenced by the current agents
+				 * list, which is not read again before being cleared. 
+				 * Recycle him. */
+				pool.recycle(agent);
+			}
 		}
 		
 	}
-
+	
 	/**
-	 * @see ICell#agentsMove(Random)
+	 * @see ICell#clear()
 	 */
 	@Override
-	public void agentsMove(Random rng) {
-			
-		/*  Cycle through agents in the current agents list. */
-		for (int i = 0; i < this.agents.size(); i++) {
+	public void clear() {
+		
+		this.agents.clear();
+		this.existingAgents.clear();
+		this.newAgents.clear();
+		this.auxAgents.clear();
+		this.initAgentsPut = false;
+		if (this.outgoingStart != null) {
+			Arrays.fill(this.outgoing, null);
+			Arrays.fill(this.outgoingStart, 0);
+		}
+		
+	}
+	
+	/**
+	 * Decrement the energy of the agents in this cell and choose a direction
+	 * for each surviving agent, in the same way as 
+	 * {@link #agentsMove(IRng, AgentPool, AgentOutbox)}. Surviving agents are then 
+	 * sorted by destination into contiguous ranges of the outgoing array, 
+	 * with a stable two-pass counting sort.
+	 * 
+	 * @param rng Random number generator used to choose directions.
+	 * @param pool Pool where starved agents are recycled, and which provides
+	 * scratch buffers.
+	 */
+	private void relocateAgents(IRng rng, AgentPool pool) {
+		
+		int numDirs = this.space.getNeighborhoodSize();
+		int numAgents = this.agents.size();
+		
+		/* If no agents were ever relocated, all ranges are already empty. */
+		if (this.outgoingStart == null) {
+			if (numAgents == 0) return;
+			this.outgoingStart = new int[numDirs + 1];
+		}
+		int[] start = this.outgoingStart;
+		
+		/* Scratch buffer, with the destination of each surviving agent, the
+		 * first direction leading to the same neighbor for each direction
+		 * (several directions lead to the same neighbor in small spaces), 
+		 * and the insertion position for each destination. */
+		int[] buffer = pool.getIndexBuffer(numAgents + 2 * numDirs);
+		int canon = numAgents, cursor = numAgents + numDirs;
+		
+		for (int d = 0; d < numDirs; d++) {
+			int neighbor = this.space.getNeighbor(this.idx, d);
+			int c = 0;
+			while (this.space.getNeighbor(this.idx, c) != neighbor) c++;
+			buffer[canon + d] = c;
+		}
+		
+		/* First pass: decrement agent energy, choose a destination for each 
+		 * surviving agent and count agents per destination. Surviving agents
+		 * are kept at the start of the current agents list. */
+		Arrays.fill(start, 0);
+		int numMoving = 0;
+		for (int i = 0; i < numAgents; i++) {
 			
 			/* Get current agent. */
 			IAgent agent = this.agents.get(i);
@@ -293,18 +458,134 @@ public class Cell implements ICell {
 			/* Decrement agent energy. */
 			agent.decEnergy();
 
-			/* Move agent if he's still alive. */
+			/* Choose a destination if he's still alive. */
 			if (agent.isAlive()) {
 				
-				/* Choose a random direction. */
-				int direction = rng.nextInt(this.neighborhood.size());
+				int dest = buffer[canon + rng.nextInt(numDirs)];
+				start[dest + 1]++;
+				buffer[numMoving] = dest;
+				this.agents.set(numMoving, agent);
+				numMoving++;
 				
-				/* Move agent. */
-				this.neighborhood.get(direction).putExistingAgent(agent);
+			} else {
 				
+				/* He starved, recycle him. */
+				pool.recycle(agent);
 			}
 		}
 		
+		/* Determine the range of each destination. */
+		for (int d = 0; d < numDirs; d++) {
+			start[d + 1] += start[d];
+			buffer[cursor + d] = start[d];
+		}
+		
+		/* Second pass: put surviving agents in the outgoing array, sorted by
+		 * destination. */
+		if (this.outgoing.length < numMoving)
+			this.outgoing = new IAgent[Math.max(numMoving, 2 * this.outgoing.length)];
+		for (int i = 0; i < numMoving; i++) {
+			this.outgoing[buffer[cursor + buffer[i]]++] = this.agents.get(i);
+		}
+		
+		/* The current agents list is not used again until agent actions. */
+		this.agents.clear();
+
+	}
+	
+	/**
+	 * Gather the agents which moved into this cell from the outgoing arrays
+	 * of its neighbors. Since the neighborhood is symmetric, the agents which
+	 * moved into this cell come from its distinct neighbors, which are 
+	 * visited in increasing index order. Agents are thus gathered in the 
+	 * same order in which the single-threaded simulation would put them in 
+	 * this cell. Gathered ranges are cleared, so that outgoing arrays don't 
+	 * keep references to agents after they leave.
+	 * 
+	 * @param pool Pool which provides scratch buffers.
+	 */
+	private void gatherAgents(AgentPool pool) {
+		
+		int numDirs = this.space.getNeighborhoodSize();
+		int[] sources = pool.getIndexBuffer(numDirs);
+		int numSources = 0;
+		
+		/* Determine the distinct neighbors, sorted by index. */
+		for (int d = 0; d < numDirs; d++) {
+			int neighbor = this.space.getNeighbor(this.idx, d);
+			int i = numSources;
+			while (i > 0 && sources[i - 1] > neighbor) i--;
+			if (i > 0 && sources[i - 1] == neighbor) continue;
+			System.arraycopy(sources, i, sources, i + 1, numSources - i);
+			sources[i] = neighbor;
+			numSources++;
+		}
+		
+		/* Put agents from each neighbor's range destined to this cell. */
+		for (int s = 0; s < numSources; s++) {
+			
+			Cell source = (Cell) this.cells[sources[s]];
+			
+			/* Skip neighbors from which no agents were ever relocated. */
+			if (source.outgoingStart == null) continue;
+			
+			/* Find the first direction leading from the neighbor to this
+			 * cell, which is the one its agents were sorted by. */
+			int d = 0;
+			while (this.space.getNeighbor(source.idx, d) != this.idx) d++;
+			
+			int from = source.outgoingStart[d];
+			int to = source.outgoingStart[d + 1];
+			if (from < to) {
+				if (this.agents == NO_AGENTS)
+					this.agents = new ArrayList<IAgent>();
+				this.putExistingAgentStrategy.putAgents(this.agents, 
+						source.outgoing, from, to);
+				Arrays.fill(source.outgoing, from, to, null);
+			}
+		}
+	}
+	
+	/**
+	 * Get the new agents list, creating it if required. The list may be 
+	 * created by any worker putting an initial agent in this cell, so it is
+	 * created while holding this cell's lock.
+	 * 
+	 * @return The new agents list.
+	 */
+	private List<IAgent> getNewAgents() {
+		List<IAgent> list = this.newAgents;
+		if (list == NO_AGENTS) {
+			synchronized (this) {
+				list = this.newAgents;
+				if (list == NO_AGENTS) {
+					list = new ArrayList<IAgent>();
+					this.newAgents = list;
+				}
+			}
+		}
+		return list;
+	}
+	
+	/**
+	 * Get the existing agents list, creating it if required. The list may be 
+	 * created by any worker moving an agent into this cell, so it is created 
+	 * while holding this cell's lock.
+	 * 
+	 * @return The existing agents list.
+	 */
+	private List<IAgent> getExistingAgents() {
+		List<IAgent> list = this.existingAgents;
+		if (list == NO_AGENTS) {
+			synchronized (this) {
+				list = this.existingAgents;
+				if (list == NO_AGENTS) {
+					list = new ArrayList<IAgent>();
+					this.existingAgents = list;
+				}
+			}
+		}
+		return list;
 	}
 
-}
\ No newline at end of file
+}
@@ -26,7 +26,6 @@
 
 package org.laseeb.pphpc;
 
-import java.util.Random;
 
 /**
  * Grass initialization strategy where there is a 50% possibility of the grass
@@ -43,10 +42,10 @@ public class CellGrassInitCoinRandCounter implements ICellGrassInitStrategy {
 	public CellGrassInitCoinRandCounter() {}
 
 	/**
-	 * @see ICellGrassInitStrategy#getInitGrass(int, Random)
+	 * @see ICellGrassInitStrategy#getInitGrass(int, IRng)
 	 */
 	@Override
-	public int getInitGrass(int grassRestart, Random rng) {
+	public int getInitGrass(int grassRestart, IRng rng) {
 
 		int grassState;
 		
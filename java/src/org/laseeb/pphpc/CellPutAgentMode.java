@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+/**
+ * Enum representing how agents are put in cells, independently of how agent 
+ * engines keep them. Work factories select the mode required by their 
+ * parallelization strategy, and each {@link AgentEngineType agent engine} 
+ * provides its own put agent strategy for the selected mode.
+ * 
+ * @see AgentEngineType#supportsPutMode(CellPutAgentMode)
+ * 
+ * @author Nuno Fachada
+ */
+public enum CellPutAgentMode {
+	
+	/** Agents are put without synchronization, in the order in which they 
+	 * arrive. Only valid when a single thread puts agents in each cell. */
+	ASYNC,
+	
+	/** Agents are put synchronously in a thread-safe fashion, in the order 
+	 * in which they arrive. */
+	SYNC,
+	
+	/** Agents are put synchronously in a thread-safe fashion, and kept in 
+	 * order. */
+	SYNC_ORDERED,
+	
+	/** Agents are put synchronously in a thread-safe fashion, in the order
+	 * in which they arrive, and sorted once before the cell processes 
+	 * them. */
+	SYNC_SORTED;
+
+}
@@ -53,4 +53,38 @@ public class CellPutAgentSync implements ICellPutAgentStrategy {
 		}
 	}
 
+	/**
+	 * Put an agent in a cell's internal agent list. No synchronization is 
+	 * required, since the list is only accessed by the worker which 
+	 * processes the cell.
+	 * 
+	 * @see ICellPutAgentStrategy#putOwnedAgent(List, IAgent)
+	 */
+	@Override
+	public void putOwnedAgent(List<IAgent> agents, IAgent agent) {
+		agents.add(agent);
+	}
+
+	/**
+	 * Put a range of agents in a cell's internal agent list. No 
+	 * synchronization is required, since the list is only accessed by the
+	 * worker which processes the cell.
+	 * 
+	 * @see ICellPutAgentStrategy#putAgents(List, IAgent[], int, int)
+	 */
+	@Override
+	public void putAgents(List<IAgent> agents, IAgent[] src, int from, int to) {
+		for (int i = from; i < to; i++)
+			agents.add(src[i]);
+	}
+
+	/**
+	 * Agents are processed in the order in which they were put, so nothing
+	 * is done.
+	 * 
+	 * @see ICellPutAgentStrategy#prepareAgents(List)
+	 */
+	@Override
+	public void prepareAgents(List<IAgent> agents) {}
+
 }
@@ -74,4 +74,41 @@ public class CellPutAgentSyncOrdered implements ICellPutAgentStrategy {
 		}
 	}
 
+	/**
+	 * Put an agent in a cell's internal agent list in order. No 
+	 * synchronization is required, since the list is only accessed by the
+	 * worker which processes the cell.
+	 * 
+	 * @see ICellPutAgentStrategy#putOwnedAgent(List, IAgent)
+	 */
+	@Override
+	public void putOwnedAgent(List<IAgent> agents, IAgent agent) {
+		
+		/* Find index where to place agent, such that the agent list remains
+		 * sorted. */
+		int idx = Collections.binarySearch(agents, agent);
+		agents.add(idx < 0 ? -idx - 1 : idx, agent);
+	}
+
+	/**
+	 * Put a range of agents in a cell's internal agent list in order. No 
+	 * synchronization is required, since the list is only accessed by the
+	 * worker which processes the cell.
+	 * 
+	 * @see ICellPutAgentStrategy#putAgents(List, IAgent[], int, int)
+	 */
+	@Override
+	public void putAgents(List<IAgent> agents, IAgent[] src, int from, int to) {
+		for (int i = from; i < to; i++)
+			this.putOwnedAgent(agents, src[i]);
+	}
+
+	/**
+	 * Agents are already sorted when put, so nothing is done.
+	 * 
+	 * @see ICellPutAgentStrategy#prepareAgents(List)
+	 */
+	@Override
+	public void prepareAgents(List<IAgent> agents) {}
+
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Put an agent in a cell's internal agent list synchronously in a 
+ * thread-safe fashion, in no particular order. Agents are sorted once, 
+ * before the cell processes them, such that simulations are reproducible 
+ * for a given number of threads without the cost of ordered insertions.
+ *  
+ * @author Nuno Fachada
+ */
+public class CellPutAgentSyncSorted extends CellPutAgentSync {
+
+	/**
+	 * Create a new instance of this class.
+	 */
+	public CellPutAgentSyncSorted() {}
+
+	/**
+	 * Sort the agents in a cell's internal agent list, in the same order 
+	 * which would be obtained by inserting them in order. Agents considered 
+	 * equal by this ordering have the same state, so their relative order 
+	 * does not affect the simulation.
+	 * 
+	 * @see ICellPutAgentStrategy#prepareAgents(List)
+	 */
+	@Override
+	public void prepareAgents(List<IAgent> agents) {
+		if (agents.size() > 1)
+			Collections.sort(agents);
+	}
+
+}
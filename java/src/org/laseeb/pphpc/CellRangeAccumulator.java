@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+/**
+ * Accumulates the cells processed by a worker in ranges of contiguous cells,
+ * such that work which can be performed in bulk (e.g. grass regrowth or 
+ * grass statistics) is performed once per range instead of once per cell.
+ * Cells may extend the current range in either direction, so that cells 
+ * traversed in decreasing order are also accumulated. Concrete 
+ * implementations define the work performed on each range.
+ * 
+ * @author Nuno Fachada
+ */
+public abstract class CellRangeAccumulator {
+	
+	/* First cell of the current range, inclusive, or -1 if there is no 
+	 * current range. */
+	private int from = -1;
+	
+	/* Last cell of the current range, exclusive. */
+	private int to = -1;
+	
+	/**
+	 * Add a cell to the current range. If the cell doesn't extend the current
+	 * range, the current range is processed and a new one is started.
+	 * 
+	 * @param cell Cell to add.
+	 */
+	public void add(int cell) {
+		if (cell == this.to) {
+			this.to++;
+		} else if (cell == this.from - 1) {
+			this.from--;
+		} else {
+			this.flush();
+			this.from = cell;
+			this.to = cell + 1;
+		}
+	}
+	
+	/**
+	 * Process the current range, if any, and start with no range. Must be
+	 * invoked after the last cell of a pass is added.
+	 */
+	public void flush() {
+		if (this.from >= 0)
+			this.process(this.from, this.to);
+		this.from = this.to = -1;
+	}
+	
+	/**
+	 * Perform work on a range of contiguous cells.
+	 * 
+	 * @param from First cell in range, inclusive.
+	 * @param to Last cell in range, exclusive.
+	 */
+	protected abstract void process(int from, int to);
+
+}
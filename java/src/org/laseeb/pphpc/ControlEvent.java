@@ -39,9 +39,6 @@ public enum ControlEvent {
 	/** After cell initialization. */
 	AFTER_INIT_CELLS,
 	
-	/** After setting cell neighbors. */
-	AFTER_SET_CELL_NEIGHBORS,
-	
 	/** After agent initialization. */
 	AFTER_INIT_AGENTS,
 	
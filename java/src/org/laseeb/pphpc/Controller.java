@@ -29,6 +29,13 @@ package org.laseeb.pphpc;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementation of a simulation controller, in the MVC sense.
@@ -37,6 +44,10 @@ import java.util.concurrent.CountDownLatch;
  */
 public class Controller implements IController {
 	
+	/* Seconds during which idle worker threads are kept for a subsequent 
+	 * simulation. */
+	private static final long WORKER_KEEP_ALIVE = 30;
+	
 	/* The simulation model, in the MVC sense. */
 	private IModel model;
 	
@@ -46,7 +57,6 @@ public class Controller implements IController {
 	/* Synchronization points, one for each control event. */
 	private ISyncPoint beforeInitCellsSync;
 	private ISyncPoint afterInitCellsSync;
-	private ISyncPoint afterAddCellsNeighsSync;
 	private ISyncPoint afterAddAgentsSync;
 	private ISyncPoint afterFirstStatsSync;
 	private ISyncPoint afterHalfIterSync;
@@ -56,12 +66,19 @@ public class Controller implements IController {
 	/* Simulation status. */
 	private SimStatus simStatus;
 	
-	/* List of model workers. */
-	private List<Thread> modelWorkers;
+	/* Pool of threads running the model workers, created on the first start
+	 * and reused in subsequent ones. */
+	private ThreadPoolExecutor workerPool;
+	
+	/* List of model workers running in the current simulation. */
+	private List<Future<?>> modelWorkers;
 	
 	/* Latch used for pausing the simulation. */
 	private CountDownLatch pauseLatch;
 	
+	/* Was the simulation ordered to stop as soon as possible? */
+	private volatile boolean stoppingNow;
+	
 	/**
 	 * Create a new controller instance.
 	 * 
@@ -79,13 +96,12 @@ public class Controller implements IController {
 	}
 
 	/**
-	 * @see IController#setWorkerSynchronizers(ISyncPoint, ISyncPoint, ISyncPoint, ISyncPoint, ISyncPoint, ISyncPoint, ISyncPoint, ISyncPoint)
+	 * @see IController#setWorkerSynchronizers(ISyncPoint, ISyncPoint, ISyncPoint, ISyncPoint, ISyncPoint, ISyncPoint, ISyncPoint)
 	 */
 	@Override
 	public void setWorkerSynchronizers(
 			ISyncPoint beforeInitCellsSync, 
 			ISyncPoint afterInitCellsSync, 
-			ISyncPoint afterAddCellsNeighsSync,
 			ISyncPoint afterAddAgentsSync, 
 			ISyncPoint afterFirstStatsSync, 
 			ISyncPoint afterHalfIterSync,
@@ -95,7 +111,6 @@ public class Controller implements IController {
 		/* Setup sync. points. */
 		this.beforeInitCellsSync = beforeInitCellsSync; 
 		this.afterInitCellsSync = afterInitCellsSync; 
-		this.afterAddCellsNeighsSync = afterAddCellsNeighsSync;
 		this.afterAddAgentsSync = afterAddAgentsSync;
 		this.afterFirstStatsSync = afterFirstStatsSync;
 		this.afterHalfIterSync = afterHalfIterSync;
@@ -156,9 +171,6 @@ public class Controller implements IController {
 			case AFTER_INIT_CELLS:
 				this.afterInitCellsSync.registerObserver(observer);
 				break;
-			case AFTER_SET_CELL_NEIGHBORS:
-				this.afterAddCellsNeighsSync.registerObserver(observer);
-				break;
 			case AFTER_INIT_AGENTS:
 				this.afterAddAgentsSync.registerObserver(observer);
 				break;
@@ -198,16 +210,6 @@ public class Controller implements IController {
 		
 	}
 
-	/**
-	 * @see IController#workerNotifySetCellNeighbors()
-	 */
-	@Override
-	public void workerNotifySetCellNeighbors() throws InterruptedWorkException {
-		
-		this.afterAddCellsNeighsSync.syncNotify(this);
-		
-	}
-
 	/**
 	 * @see IController#workerNotifyInitAgents()
 	 */
@@ -279,10 +281,13 @@ public class Controller implements IController {
 	@Override
 	public synchronized void stopNow() {
 		
+		/* Let workers waiting outside of the sync. points know they should
+		 * stop. */
+		this.stoppingNow = true;
+		
 		/* Send stop now control signal to all synchronizers. */
 		this.beforeInitCellsSync.stopNow(); 
 		this.afterInitCellsSync.stopNow(); 
-		this.afterAddCellsNeighsSync.stopNow();
 		this.afterAddAgentsSync.stopNow();
 		this.afterFirstStatsSync.stopNow();
 		this.afterHalfIterSync.stopNow();
@@ -297,6 +302,16 @@ public class Controller implements IController {
 		
 	}
 
+	/**
+	 * @see IController#isStoppingNow()
+	 */
+	@Override
+	public boolean isStoppingNow() {
+		
+		return this.stoppingNow;
+		
+	}
+
 	/**
 	 * @see IController#start()
 	 */
@@ -309,26 +324,36 @@ public class Controller implements IController {
 			/* Reset control synchronizers. */
 			this.beforeInitCellsSync.reset(); 
 			this.afterInitCellsSync.reset(); 
-			this.afterAddCellsNeighsSync.reset();
 			this.afterAddAgentsSync.reset();
 			this.afterFirstStatsSync.reset();
 			this.afterHalfIterSync.reset();
 			this.afterEndIterSync.reset();
 			this.afterEndSimSync.reset();
+			this.stoppingNow = false;
 
 			/* Reset and start model. */
 			this.model.reset();
 			this.model.start();
 			
+			/* Threads are created the first time the simulation is started,
+			 * and are kept for subsequent simulations. Idle threads terminate
+			 * after a while, so that they do not keep the JVM alive. */
+			if (this.workerPool == null) {
+				int numWorkers = this.workFactory.getNumWorkers();
+				this.workerPool = new ThreadPoolExecutor(numWorkers, numWorkers,
+						WORKER_KEEP_ALIVE, TimeUnit.SECONDS, 
+						new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory());
+				this.workerPool.allowCoreThreadTimeOut(true);
+			}
+			
 			/* Setup a list of model workers... */
-			this.modelWorkers = new ArrayList<Thread>();
+			this.modelWorkers = new ArrayList<Future<?>>();
 			
-			/* ...create them, add them to the list and start them. */
+			/* ...create them, and submit them to the worker pool. */
 			for (int i = 0; i < this.workFactory.getNumWorkers(); i++) {
 				
-				Thread modelWorker = new Thread(new SimWorker(i, this.workFactory, this.model, this));
-				this.modelWorkers.add(modelWorker);
-				modelWorker.start();
+				this.modelWorkers.add(this.workerPool.submit(
+						this.workFactory.createSimWorker(i, this.model, this)));
 			}
 			
 			/* Set simulation status to "running". */
@@ -390,10 +415,15 @@ public class Controller implements IController {
 			this.afterEndIterSync.stopNow();
 			
 			/* Wait for all workers to finish... */
-			for (Thread modelWorker : this.modelWorkers) {
+			for (Future<?> modelWorker : this.modelWorkers) {
 				try {
-					modelWorker.join();
-				} catch (InterruptedException e) {}
+					modelWorker.get();
+				} catch (InterruptedException e) {
+				} catch (ExecutionException e) {
+					/* Workers register their exceptions in the model, so only
+					 * errors can get here. */
+					this.model.registerException(e.getCause(), "Worker termination");
+				}
 			}
 			
 			/* ...and stop the model, setting the simulation status to "stopped". */
@@ -419,6 +449,15 @@ public class Controller implements IController {
 		this.model.export(filename);
 	}
 
+	/**
+	 * @see IController#dispose()
+	 */
+	@Override
+	public synchronized void dispose() {
+		
+		this.model.dispose();
+	}
+
 	/**
 	 * @see IController#getNumWorkers()
 	 */
@@ -429,6 +468,26 @@ public class Controller implements IController {
 		
 	}
 
+	/**
+	 * @see IController#getNumThreads()
+	 */
+	@Override
+	public int getNumThreads() {
+		
+		return this.workFactory.getNumThreads();
+		
+	}
+
+	/**
+	 * @see IController#getWorkReport()
+	 */
+	@Override
+	public String getWorkReport() {
+		
+		return this.workFactory.getWorkReport();
+		
+	}
+
 	/**
 	 * @see IController#isRunning()
 	 */
@@ -459,4 +518,24 @@ public class Controller implements IController {
 		
 	}
 
+	/**
+	 * Creates the threads of the worker pool, named after the order in which
+	 * they are created.
+	 */
+	private static class WorkerThreadFactory implements ThreadFactory {
+		
+		/* Number of the next thread to be created. */
+		private final AtomicInteger threadCount = new AtomicInteger(0);
+
+		/**
+		 * @see ThreadFactory#newThread(Runnable)
+		 */
+		@Override
+		public Thread newThread(Runnable r) {
+			
+			return new Thread(r, "pphpc-worker-" + this.threadCount.getAndIncrement());
+			
+		}
+	}
+
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Factory of random number generator streams in which the generator of each
+ * worker is derived, by splitting or jumping, from a root generator seeded 
+ * with the model seed. The root generator is only used to derive streams, 
+ * and streams are derived in order of worker ID, so that the stream of each
+ * worker does not depend on the order in which workers create their 
+ * streams.
+ * 
+ * @author Nuno Fachada
+ */
+public class DerivedRNGStreamFactory implements IRNGStreamFactory {
+	
+	/* Type of the generators. */
+	private final RNGType rngType;
+	
+	/* How streams are derived from the root generator. */
+	private final RNGStreamDerivation derivation;
+	
+	/* Model seed. */
+	private final BigInteger seed;
+	
+	/* Root generator, created when the first stream is created. */
+	private Random root = null;
+	
+	/* Number of streams derived from the root generator. */
+	private int derived = 0;
+	
+	/* Streams derived but not yet created, by worker ID. */
+	private final Map<Integer, Random> pending = new HashMap<Integer, Random>();
+
+	/**
+	 * Create a new factory of streams derived from a root generator.
+	 * 
+	 * @param rngType Type of the generators.
+	 * @param derivation How streams are derived from the root generator, 
+	 * which must match the generators' type.
+	 * @param seed Model seed.
+	 */
+	public DerivedRNGStreamFactory(RNGType rngType, 
+			RNGStreamDerivation derivation, BigInteger seed) {
+		this.rngType = rngType;
+		this.derivation = derivation;
+		this.seed = seed;
+	}
+
+	/**
+	 * @see IRNGStreamFactory#createStream(int)
+	 */
+	@Override
+	public synchronized IRng createStream(int wId) throws Exception {
+		
+		/* Seed the root generator with the model seed. */
+		if (this.root == null)
+			this.root = this.rngType.createRNG(new ModelSeedGenerator(0, this.seed));
+		
+		/* Derive streams up to the one of the given worker. */
+		while (this.derived <= wId) {
+			this.pending.put(this.derived, this.derivation.deriveStream(this.root));
+			this.derived++;
+		}
+		
+		/* Hand out the stream of the given worker. */
+		Random stream = this.pending.remove(wId);
+		if (stream == null)
+			throw new IllegalStateException(
+					"Stream of worker " + wId + " was already created.");
+		return RNGType.adapt(stream);
+	}
+
+}
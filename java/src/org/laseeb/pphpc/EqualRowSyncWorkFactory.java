@@ -30,19 +30,30 @@ package org.laseeb.pphpc;
  * Work factory which creates the required objects to divide work equally among the 
  * available workers in a thread-safe fashion. When used for cell processing, thread-safety 
  * is achieved using row-level synchronization. When used for agent processing, it delegates
- * responsibility to a {@link EqualWorkProvider}.
+ * responsibility to a {@link EqualWorkProvider}. Row-level synchronization is 
+ * performed either among all workers, or only among workers processing 
+ * adjacent row stripes.
  * 
  * @author Nuno Fachada
  */
 public class EqualRowSyncWorkFactory extends AbstractMultiThreadWorkFactory {
 
+	/* Synchronize rows only with workers processing adjacent row stripes? */
+	private boolean neighborSync;
+	
 	/**
 	 * Create a new equal row-synchronization work factory.
 	 * 
 	 * @param numThreads Number of threads.
+	 * @param spinBudget Number of spin iterations before workers waiting at
+	 * a barrier are parked (if zero, a cyclic barrier is used instead).
+	 * @param neighborSync Synchronize rows only with workers processing 
+	 * adjacent row stripes, instead of with all workers?
 	 */
-	public EqualRowSyncWorkFactory(int numThreads) {
-		super(numThreads);
+	public EqualRowSyncWorkFactory(int numThreads, int spinBudget, 
+			boolean neighborSync) {
+		super(numThreads, spinBudget);
+		this.neighborSync = neighborSync;
 	}
 	
 	/**
@@ -57,12 +68,11 @@ public class EqualRowSyncWorkFactory extends AbstractMultiThreadWorkFactory {
 		/* ...and set appropriate sync. points for equal work division. */
 		controller.setWorkerSynchronizers(
 				new NonBlockingSyncPoint(ControlEvent.BEFORE_INIT_CELLS, this.numThreads),
-				new BlockingSyncPoint(ControlEvent.AFTER_INIT_CELLS, controller, this.numThreads), 
-				new NonBlockingSyncPoint(ControlEvent.AFTER_SET_CELL_NEIGHBORS, this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_INIT_AGENTS, controller, this.numThreads), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_INIT_CELLS, controller), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_INIT_AGENTS, controller), 
 				new NonBlockingSyncPoint(ControlEvent.AFTER_FIRST_STATS, this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_HALF_ITERATION, controller, this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_END_ITERATION, controller, this.numThreads), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_HALF_ITERATION, controller), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_END_ITERATION, controller), 
 				new NonBlockingSyncPoint(ControlEvent.AFTER_END_SIMULATION, this.numThreads));
 		
 		/* Return the controller, configured for equal work division. */
@@ -70,19 +80,19 @@ public class EqualRowSyncWorkFactory extends AbstractMultiThreadWorkFactory {
 	}
 
 	/**
-	 * @see IWorkFactory#createPutInitAgentStrategy()
+	 * @see IWorkFactory#getPutInitAgentMode()
 	 */
 	@Override
-	public ICellPutAgentStrategy createPutInitAgentStrategy() {
-		return new CellPutAgentSyncOrdered();
+	public CellPutAgentMode getPutInitAgentMode() {
+		return CellPutAgentMode.SYNC_ORDERED;
 	}
 
 	/**
-	 * @see IWorkFactory#createPutExistingAgentStrategy()
+	 * @see IWorkFactory#getPutExistingAgentMode()
 	 */
 	@Override
-	public ICellPutAgentStrategy createPutExistingAgentStrategy() {
-		return new CellPutAgentAsync();
+	public CellPutAgentMode getPutExistingAgentMode() {
+		return CellPutAgentMode.ASYNC;
 	}
 
 	/**
@@ -94,7 +104,8 @@ public class EqualRowSyncWorkFactory extends AbstractMultiThreadWorkFactory {
 		if (workType == WorkType.CELL) {
 			
 			/* Use the equal row sync. work provider when dealing with cells. */
-			return new EqualRowSyncWorkProvider(this.numThreads, model);
+			return new EqualRowSyncWorkProvider(
+					this.numThreads, model, controller, this.neighborSync);
 	
 		} else {
 			
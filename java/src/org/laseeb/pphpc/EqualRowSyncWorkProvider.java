@@ -27,11 +27,16 @@
 package org.laseeb.pphpc;
 
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Work provider which divides work equally among the available workers, with
  * synchronization performed at the row level. It can only be used for cell
- * processing.
+ * processing. Workers either synchronize with all other workers at the end
+ * of each row, or only with the two workers processing the adjacent row 
+ * stripes, in which case workers advance as a wavefront.
  * 
  * @author Nuno Fachada
  */
@@ -58,9 +63,39 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 	/* The MVC model. */
 	private IModel model;
 	
+	/* The MVC controller. */
+	private IController controller;
+	
 	/* Row-level thread synchronizer. */
 	private CyclicBarrier barrier;
 	
+	/* Synchronize only with the workers processing adjacent row stripes? */
+	private boolean neighborSync;
+	
+	/* Number of rows completed by each worker, published for the workers 
+	 * processing adjacent row stripes. The high 32 bits contain the 
+	 * simulation run of the worker, such that values published in previous
+	 * runs are never mistaken for progress in the current run. */
+	private AtomicLongArray progress;
+	
+	/* Number of work states created, used to determine the current 
+	 * simulation run. */
+	private AtomicInteger newWorkCount;
+	
+	/* Distance, in array positions, between the progress of different 
+	 * workers, such that each worker publishes its progress in its own 
+	 * cache line. */
+	private static final int PROGRESS_PAD = 16;
+	
+	/* Number of spin iterations before a worker waiting for its neighbors
+	 * starts parking. */
+	private static final int NEIGHBOR_SPINS = 100;
+	
+	/* Time, in nanoseconds, during which a worker waiting for its neighbors 
+	 * is parked before checking their progress again. Neighbors never unpark
+	 * waiting workers, so parking must be bounded. */
+	private static final long NEIGHBOR_PARK_NANOS = 50000;
+	
 	/**
 	 * A class which represents the state of equal work with row-level
 	 * synchronization performed by each worker.
@@ -82,6 +117,10 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 		/* Current synchronization point. */
 		private int currSyncPoint;
 		
+		/* Progress published by this worker at the last synchronization 
+		 * point (neighbor synchronization only). */
+		private long progress;
+		
 		/**
 		 * Create a new equal work state with row-level synchronization.
 		 * 
@@ -122,6 +161,12 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 			/* Current sync. point is zero, naturally. */
 			this.currSyncPoint = 0;
 			
+			/* With neighbor synchronization, progress starts at the beginning
+			 * of the current simulation run. */
+			if (neighborSync)
+				this.progress = (long) 
+					(newWorkCount.getAndIncrement() / numWorkers) << 32;
+			
 		}
 		
 	}
@@ -132,11 +177,19 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 	 * 
 	 * @param numThreads Number of available workers.
 	 * @param model The MVC model.
+	 * @param controller The MVC controller.
+	 * @param neighborSync Synchronize only with the workers processing 
+	 * adjacent row stripes, instead of with all workers?
 	 */
-	public EqualRowSyncWorkProvider(int numThreads, IModel model) {
+	public EqualRowSyncWorkProvider(int numThreads, IModel model, 
+			IController controller, boolean neighborSync) {
 		
-		/* Keep the MVC model. */
+		/* Keep the MVC model and controller. */
 		this.model = model;
+		this.controller = controller;
+		
+		/* Keep the synchronization type. */
+		this.neighborSync = neighborSync;
 
 		/* Keep the simulation space. */
 		ISpace space = model.getSpace();
@@ -165,6 +218,11 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 		 * in 1D, slices in 3D, etc). */
 		this.minThreadDist = space.getNeighborhoodRadius() * 2 + 1;
 		
+		/* With neighbor synchronization, adjacent workers can be one row 
+		 * apart in their stripes, so stripes require an additional row. */
+		if (neighborSync)
+			this.minThreadDist++;
+		
 		/* Determine number of rows. */
 		int rows = model.getSize() / this.rowSize;
 
@@ -185,7 +243,12 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 		this.numWorkers = numThreads;
 		
 		/* Initialize row-level synchronizer for the given number of threads. */
-		this.barrier = new CyclicBarrier(numThreads);
+		if (neighborSync) {
+			this.progress = new AtomicLongArray(numThreads * PROGRESS_PAD);
+			this.newWorkCount = new AtomicInteger(0);
+		} else {
+			this.barrier = new CyclicBarrier(numThreads);
+		}
 
 		/* How many rows will be processed by worker? */
 		this.rowsPerWorker  = rows / this.numWorkers;
@@ -230,7 +293,7 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 	 * @see IWorkProvider#getNextToken(IWork)
 	 */
 	@Override
-	public int getNextToken(IWork work) {
+	public int getNextToken(IWork work) throws InterruptedWorkException {
 		
 		/* Set the nextToken to -1, which means no more work
 		 * is available. */
@@ -257,11 +320,7 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 				iWork.currSyncPoint++;
 				
 				/* ...and synchronize with remaining workers. */
-				try {
-					this.barrier.await();
-				} catch (Exception e) {
-					throw new RuntimeException(e);
-				}
+				this.syncRow(iWork);
 			}
 			
 			/* This is for the last worker only. Did the last worker reached the
@@ -277,11 +336,7 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 					iWork.currSyncPoint++;
 					
 					/* ...and synchronize with remaining workers. */
-					try {
-						this.barrier.await();
-					} catch (Exception e) {
-						throw new RuntimeException(e);
-					}
+					this.syncRow(iWork);
 				}
 				
 			}
@@ -294,11 +349,89 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 		return nextToken;
 	}
 
+	/**
+	 * Synchronize the given worker at the end of a row, either with all 
+	 * workers or only with the workers processing adjacent row stripes.
+	 * 
+	 * @param iWork Work state of the worker.
+	 * @throws InterruptedWorkException If the simulation is stopped while
+	 * waiting for the neighboring workers.
+	 */
+	private void syncRow(EqualRowSyncWork iWork) throws InterruptedWorkException {
+		
+		if (!this.neighborSync) {
+			
+			/* Wait for all workers at the row-level barrier. */
+			try {
+				this.barrier.await();
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+			
+		} else {
+			
+			/* Publish that this worker has completed another row. */
+			int wId = iWork.getWorkId();
+			long mine = ++iWork.progress;
+			this.progress.set(wId * PROGRESS_PAD, mine);
+			
+			/* A single worker has no one to wait for. */
+			if (this.numWorkers == 1) return;
+			
+			/* Wait until the workers processing the previous and next row 
+			 * stripes (in a torus) have completed the same number of rows. 
+			 * Workers which finish their stripes early still publish their 
+			 * remaining sync. points, so they are never waited for in 
+			 * vain. */
+			int prev = ((wId + this.numWorkers - 1) % this.numWorkers) * PROGRESS_PAD;
+			int next = ((wId + 1) % this.numWorkers) * PROGRESS_PAD;
+			int spins = 0;
+			while (this.progress.get(prev) < mine 
+					|| this.progress.get(next) < mine) {
+				
+				/* Stop waiting if simulation was stopped, e.g. because a 
+				 * neighbor failed and will never make progress. */
+				if (this.controller.isStoppingNow())
+					throw new InterruptedWorkException("Interrupted by another thread.");
+				
+				if (spins < NEIGHBOR_SPINS) {
+					spins++;
+					Thread.onSpinWait();
+				} else {
+					LockSupport.parkNanos(this, NEIGHBOR_PARK_NANOS);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see IWorkProvider#getOwner(int)
+	 */
+	@Override
+	public int getOwner(int token) {
+		
+		/* The last worker processes all the remaining cells. */
+		return Math.min(token / this.cellsPerWorker, this.numWorkers - 1);
+	}
+
 	/**
 	 * @see IWorkProvider#resetWork(IWork)
 	 */
 	@Override
 	public void resetWork(IWork work) {
+		this.resetWork(work, false);
+	}
+
+	/**
+	 * Row-level synchronization points assume that all workers advance 
+	 * through their rows in the same direction and at the same pace, so
+	 * tokens are always provided in increasing order, and the given 
+	 * direction is ignored.
+	 * 
+	 * @see IWorkProvider#resetWork(IWork, boolean)
+	 */
+	@Override
+	public void resetWork(IWork work, boolean reverse) {
 
 		/* Cast generic work state to equal cell-level sync. work state. */
 		EqualRowSyncWork iWork = (EqualRowSyncWork) work;
@@ -311,4 +444,12 @@ public class EqualRowSyncWorkProvider implements IWorkProvider {
 		
 	}
 
+	/**
+	 * Work is not balanced according to statistics, so nothing is done.
+	 * 
+	 * @see IWorkProvider#updateLoad(IWork, IterationStats)
+	 */
+	@Override
+	public void updateLoad(IWork work, IterationStats stats) {}
+
 }
@@ -38,53 +38,78 @@ public class EqualWorkFactory extends AbstractMultiThreadWorkFactory {
 	/* Is the simulation repeatable? */
 	private boolean repeatable = false;
 	
+	/* If the simulation is repeatable, are agents sorted once before being 
+	 * processed, instead of being inserted in order? */
+	private boolean sortOnce = false;
+	
+	/* Rebalance cell partitions at the end of each iteration? */
+	private boolean rebalance = false;
+	
+	/* Work provider for processing cells, kept for rebalancing. */
+	private volatile EqualWorkProvider cellsWorkProvider;
+	
 	/**
 	 * Create a new equal work factory.
 	 * 
 	 * @param numThreads Number of threads.
 	 * @param repeatable Are the simulations to be reproducible (slower)?
+	 * @param sortOnce If simulations are to be reproducible, sort agents once 
+	 * before they are processed, instead of inserting them in order?
+	 * @param rebalance Rebalance cell partitions at the end of each 
+	 * iteration, according to the number of agents in each partition?
+	 * @param spinBudget Number of spin iterations before workers waiting at
+	 * a barrier are parked (if zero, a cyclic barrier is used instead).
 	 */
-	public EqualWorkFactory(int numThreads, boolean repeatable) {
-		super(numThreads);
+	public EqualWorkFactory(int numThreads, boolean repeatable, 
+			boolean sortOnce, boolean rebalance, int spinBudget) {
+		super(numThreads, spinBudget);
 		this.repeatable = repeatable;
+		this.sortOnce = sortOnce;
+		this.rebalance = rebalance;
 	}
 	
 	/**
-	 * @see IWorkFactory#createPutInitAgentStrategy()
+	 * @see IWorkFactory#getPutInitAgentMode()
 	 */
 	@Override
-	public ICellPutAgentStrategy createPutInitAgentStrategy() {
+	public CellPutAgentMode getPutInitAgentMode() {
 
 		/* If simulation is to be repeatable... */
 		if (this.repeatable) {
 
-			/* ...agents must be sorted after inserted in cell. */
-			return new CellPutAgentSyncOrdered();
+			/* ...agents must be sorted, either once before being processed,
+			 * or as they are inserted in cell. */
+			return this.sortOnce 
+					? CellPutAgentMode.SYNC_SORTED 
+					: CellPutAgentMode.SYNC_ORDERED;
 			
 		} else {
 			
 			/* Otherwise, synchronous agent insertion suffices. */
-			return new CellPutAgentSync();
+			return CellPutAgentMode.SYNC;
 		
 		}
 	}
 	
 	/**
-	 * @see IWorkFactory#createPutExistingAgentStrategy()
+	 * @see IWorkFactory#getPutExistingAgentMode()
 	 */
 	@Override
-	public ICellPutAgentStrategy createPutExistingAgentStrategy() {
+	public CellPutAgentMode getPutExistingAgentMode() {
 
 		/* If simulation is to be repeatable... */
 		if (this.repeatable) {
 
-			/* ...agents must be sorted after inserted in cell. */
-			return new CellPutAgentSyncOrdered();
+			/* ...agents must be sorted, either once before being processed,
+			 * or as they are inserted in cell. */
+			return this.sortOnce 
+					? CellPutAgentMode.SYNC_SORTED 
+					: CellPutAgentMode.SYNC_ORDERED;
 			
 		} else {
 			
 			/* Otherwise, synchronous agent insertion suffices. */
-			return new CellPutAgentSync();
+			return CellPutAgentMode.SYNC;
 		
 		}
 	}
@@ -102,21 +127,29 @@ public class EqualWorkFactory extends AbstractMultiThreadWorkFactory {
 		controller.setWorkerSynchronizers(
 				new NonBlockingSyncPoint(ControlEvent.BEFORE_INIT_CELLS, 
 						this.numThreads),
-				new BlockingSyncPoint(ControlEvent.AFTER_INIT_CELLS, 
-						controller, this.numThreads), 
-				new NonBlockingSyncPoint(ControlEvent.AFTER_SET_CELL_NEIGHBORS, 
-						this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_INIT_AGENTS, 
-						controller, this.numThreads), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_INIT_CELLS, controller), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_INIT_AGENTS, controller), 
 				new NonBlockingSyncPoint(ControlEvent.AFTER_FIRST_STATS, 
 						this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_HALF_ITERATION, 
-						controller, this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_END_ITERATION, 
-						controller, this.numThreads), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_HALF_ITERATION, controller), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_END_ITERATION, controller), 
 				new NonBlockingSyncPoint(ControlEvent.AFTER_END_SIMULATION, 
 						this.numThreads));
 		
+		/* Rebalance cell partitions while workers wait at the end of each
+		 * iteration, if required. */
+		if (this.rebalance) {
+			controller.registerControlEventObserver(
+					ControlEvent.AFTER_END_ITERATION, 
+					new IControlEventObserver() {
+						@Override
+						public void update(ControlEvent event, IController controller) {
+							if (cellsWorkProvider != null) 
+								cellsWorkProvider.rebalance();
+						}
+					});
+		}
+		
 		/* Return the controller, configured for equal work division. */
 		return controller;
 	}
@@ -128,9 +161,28 @@ public class EqualWorkFactory extends AbstractMultiThreadWorkFactory {
 	protected IWorkProvider doGetWorkProvider(int workSize, WorkType workType, 
 			IModel model, IController controller) {
 		
+		/* Cell partitions may be rebalanced. */
+		if (workType == WorkType.CELL) {
+			this.cellsWorkProvider = new EqualWorkProvider(
+					this.numThreads, workSize, this.rebalance);
+			return this.cellsWorkProvider;
+		}
+		
 		/* The equal work provider will assure equal work division among 
 		 * workers. */
 		return new EqualWorkProvider(this.numThreads, workSize);
 		
 	}
+
+	/**
+	 * Reports the current cell partition sizes, if cell partitions are 
+	 * rebalanced.
+	 * 
+	 * @see IWorkFactory#getWorkReport()
+	 */
+	@Override
+	public String getWorkReport() {
+		if (this.cellsWorkProvider == null) return null;
+		return this.cellsWorkProvider.getPartitionReport();
+	}
 }
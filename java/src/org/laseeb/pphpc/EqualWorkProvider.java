@@ -26,10 +26,18 @@
 
 package org.laseeb.pphpc;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Work provider which divides work equally among the available workers. 
  * If used for processing cells, synchronization is performed at cell-level.
  * 
+ * Work is divided in contiguous partitions, one per worker. If rebalancing
+ * is enabled, partition boundaries can be moved between passes, such that
+ * partitions with more agents become smaller. Each simulation run starts 
+ * with equal partitions.
+ * 
  * @author Nuno Fachada
  */
 public class EqualWorkProvider implements IWorkProvider {
@@ -49,6 +57,13 @@ public class EqualWorkProvider implements IWorkProvider {
 		/* Current work token. */
 		private int counter;
 		
+		/* Provide work tokens in decreasing order? */
+		private boolean reverse;
+		
+		/* Partition from which the start and end tokens were taken (only if 
+		 * rebalancing is enabled). */
+		private Partition partition;
+		
 		/**
 		 * Create a new equal work state. If this work state is to be used
 		 * for processing cells, synchronization is performed at cell-level.
@@ -62,16 +77,68 @@ public class EqualWorkProvider implements IWorkProvider {
 			this.startToken = startToken;
 			this.endToken = endToken;
 			this.counter = startToken;
+			this.reverse = false;
 		}
 		
 	}
 	
+	/**
+	 * Immutable division of work in contiguous partitions, one per worker.
+	 */
+	private static class Partition {
+		
+		/* Simulation run in which this partition is used. */
+		private final int run;
+		
+		/* Start token of each partition, followed by the total work 
+		 * size. */
+		private final int[] bounds;
+		
+		/**
+		 * Create a new division of work.
+		 * 
+		 * @param run Simulation run in which this partition is used.
+		 * @param bounds Start token of each partition, followed by the total
+		 * work size.
+		 */
+		private Partition(int run, int[] bounds) {
+			this.run = run;
+			this.bounds = bounds;
+		}
+	}
+	
+	/* Estimated load of processing a cell, relative to the load of 
+	 * processing an agent. */
+	private static final double CELL_LOAD = 0.25;
+	
+	/* Partitions are only rebalanced if the load of the most loaded 
+	 * partition exceeds the average load by this fraction. */
+	private static final double IMBALANCE_THRESHOLD = 0.05;
+	
 	/* Number of workers. */
 	private int numWorkers;
 	
 	/* Total work size to be performed by the available workers. */
 	private int workSize;
 	
+	/* Rebalance partitions according to the number of agents in them? */
+	private boolean rebalance;
+	
+	/* Current division of work (only if rebalancing is enabled). */
+	private volatile Partition partition;
+	
+	/* Number of work states created, used to determine the current 
+	 * simulation run (only if rebalancing is enabled). */
+	private AtomicInteger newWorkCount;
+	
+	/* Number of agents in each partition, as reported by workers (only if
+	 * rebalancing is enabled). */
+	private int[] agents;
+	
+	/* Number of times partitions were rebalanced in the current simulation
+	 * run (only if rebalancing is enabled). */
+	private int rebalances;
+	
 	/**
 	 * Create a new equal work provider. If used for processing cells, 
 	 * synchronization is performed at cell-level.
@@ -80,8 +147,30 @@ public class EqualWorkProvider implements IWorkProvider {
 	 * @param workSize Total work size to be performed by the available workers.
 	 */
 	public EqualWorkProvider(int numWorkers, int workSize) {
+		this(numWorkers, workSize, false);
+	}
+	
+	/**
+	 * Create a new equal work provider, optionally rebalancing partitions
+	 * according to the number of agents in them. If used for processing 
+	 * cells, synchronization is performed at cell-level.
+	 * 
+	 * @param numWorkers Number of available workers.
+	 * @param workSize Total work size to be performed by the available workers.
+	 * @param rebalance Rebalance partitions according to the number of 
+	 * agents in them, as reported with 
+	 * {@link #updateLoad(IWork, IterationStats)}, when 
+	 * {@link #rebalance()} is invoked?
+	 */
+	public EqualWorkProvider(int numWorkers, int workSize, boolean rebalance) {
 		this.numWorkers = numWorkers;
 		this.workSize = workSize;
+		this.rebalance = rebalance;
+		if (rebalance) {
+			this.newWorkCount = new AtomicInteger(0);
+			this.agents = new int[numWorkers];
+			this.partition = this.equalPartition(0);
+		}
 	}
 	
 	/**
@@ -90,6 +179,24 @@ public class EqualWorkProvider implements IWorkProvider {
 	@Override
 	public IWork newWork(int wId) {
 		
+		/* If rebalancing is enabled, take tokens from the current partition,
+		 * which starts as an equal division of work in each simulation 
+		 * run. */
+		if (this.rebalance) {
+			int run = this.newWorkCount.getAndIncrement() / this.numWorkers;
+			EqualWork eWork;
+			synchronized (this) {
+				if (this.partition.run != run) {
+					this.partition = this.equalPartition(run);
+					this.rebalances = 0;
+				}
+				eWork = new EqualWork(wId, this.partition.bounds[wId], 
+						this.partition.bounds[wId + 1]);
+				eWork.partition = this.partition;
+			}
+			return eWork;
+		}
+		
 		/* Determine tokens per worker. The bellow operation is equivalent to ceil(workSize/numWorkers) */
 		int tokensPerWorker = (this.workSize + this.numWorkers - 1) / this.numWorkers;
 		
@@ -116,12 +223,25 @@ public class EqualWorkProvider implements IWorkProvider {
 
 		/* Cast generic work state to equal work state. */
 		EqualWork eWork = (EqualWork) work;
+		
+		/* At the start of a pass, take the start and end tokens from the 
+		 * current partition, if it was rebalanced. */
+		if (this.rebalance && eWork.counter == eWork.startToken 
+				&& eWork.partition != this.partition) {
+			eWork.partition = this.partition;
+			eWork.startToken = eWork.partition.bounds[eWork.getWorkId()];
+			eWork.endToken = eWork.partition.bounds[eWork.getWorkId() + 1];
+			eWork.counter = eWork.startToken;
+		}
 
 		/* Check if there is any work left to do. */
 		if (eWork.counter < eWork.endToken) {
 			
-			/* If so, get next work token... */
-			nextToken = eWork.counter;
+			/* If so, get next work token, counting from the end if 
+			 * tokens are provided in decreasing order... */
+			nextToken = eWork.reverse 
+					? eWork.endToken - 1 - (eWork.counter - eWork.startToken)
+					: eWork.counter;
 			
 			/* ...and increment work token counter. */
 			eWork.counter++;
@@ -131,18 +251,164 @@ public class EqualWorkProvider implements IWorkProvider {
 		return nextToken;
 	}
 
+	/**
+	 * @see IWorkProvider#getOwner(int)
+	 */
+	@Override
+	public int getOwner(int token) {
+		
+		/* If rebalancing is enabled, search the current partition. */
+		if (this.rebalance) {
+			int[] bounds = this.partition.bounds;
+			int w = Arrays.binarySearch(bounds, 0, this.numWorkers, token);
+			
+			/* Skip empty partitions which start at the same token. */
+			if (w >= 0) {
+				while (w + 1 < this.numWorkers && bounds[w + 1] == token) w++;
+				return w;
+			}
+			return -w - 2;
+		}
+		
+		return token / ((this.workSize + this.numWorkers - 1) / this.numWorkers);
+	}
+
 	/**
 	 * @see IWorkProvider#resetWork(IWork)
 	 */
 	@Override
 	public void resetWork(IWork work) {
+		this.resetWork(work, false);
+	}
+
+	/**
+	 * @see IWorkProvider#resetWork(IWork, boolean)
+	 */
+	@Override
+	public void resetWork(IWork work, boolean reverse) {
 
 		/* Cast generic work state to equal work state. */
 		EqualWork eWork = (EqualWork) work;
 		
-		/* Reset work tokens for current worker.*/
+		/* Reset work tokens for current worker, and set the direction. */
 		eWork.counter = eWork.startToken;
+		eWork.reverse = reverse;
+		
+	}
+
+	/**
+	 * Keep the number of agents in the partition of the given worker, if 
+	 * rebalancing is enabled.
+	 * 
+	 * @see IWorkProvider#updateLoad(IWork, IterationStats)
+	 */
+	@Override
+	public void updateLoad(IWork work, IterationStats stats) {
+		if (this.rebalance) {
+			this.agents[work.getWorkId()] = 
+					stats.getSheepCount() + stats.getWolvesCount();
+		}
+	}
+	
+	/**
+	 * Move partition boundaries such that the estimated load of each 
+	 * partition is closer to the average load. The load of each partition 
+	 * is estimated from its size and number of agents, assuming agents are 
+	 * evenly spread within the partition, so boundaries are only moved half
+	 * way to the estimated balanced positions. Must be invoked while no 
+	 * worker is processing work, after all workers have reported their 
+	 * load. New boundaries take effect when workers start their next pass.
+	 */
+	public void rebalance() {
+		
+		/* Partitions can only be rebalanced if each can keep at least one 
+		 * token. */
+		if (!this.rebalance || this.workSize < this.numWorkers) return;
+		
+		Partition current = this.partition;
+		int[] bounds = current.bounds;
+		
+		/* Estimate the load of each partition. */
+		double[] loads = new double[this.numWorkers];
+		double total = 0, max = 0;
+		for (int w = 0; w < this.numWorkers; w++) {
+			loads[w] = this.agents[w] + CELL_LOAD * (bounds[w + 1] - bounds[w]);
+			total += loads[w];
+			max = Math.max(max, loads[w]);
+		}
+		
+		/* Keep the current partition if it is balanced enough. */
+		double mean = total / this.numWorkers;
+		if (max <= (1 + IMBALANCE_THRESHOLD) * mean)
+			return;
 		
+		/* Determine new boundaries. */
+		int[] newBounds = new int[this.numWorkers + 1];
+		newBounds[this.numWorkers] = this.workSize;
+		int w = 0;
+		double loadBefore = 0;
+		for (int k = 1; k < this.numWorkers; k++) {
+			
+			/* Find the partition which contains the balanced position of 
+			 * this boundary. */
+			double target = k * mean;
+			while (w < this.numWorkers - 1 && loadBefore + loads[w] < target) {
+				loadBefore += loads[w];
+				w++;
+			}
+			
+			/* Interpolate the balanced position within that partition. */
+			double balanced = bounds[w];
+			if (loads[w] > 0)
+				balanced += (target - loadBefore) / loads[w] 
+						* (bounds[w + 1] - bounds[w]);
+			
+			/* Move half way to the balanced position, keeping at least one
+			 * token in each partition. */
+			int b = (int) Math.round((bounds[k] + balanced) / 2);
+			b = Math.max(b, newBounds[k - 1] + 1);
+			b = Math.min(b, this.workSize - (this.numWorkers - k));
+			newBounds[k] = b;
+		}
+		
+		/* Publish the new partition. */
+		this.partition = new Partition(current.run, newBounds);
+		this.rebalances++;
+	}
+	
+	/**
+	 * Get a report of the current partition sizes, if rebalancing is 
+	 * enabled.
+	 * 
+	 * @return A report of the current partition sizes, or null if 
+	 * rebalancing is not enabled.
+	 */
+	public String getPartitionReport() {
+		
+		if (!this.rebalance) return null;
+		
+		int[] bounds = this.partition.bounds;
+		StringBuilder report = new StringBuilder("Partition sizes after ")
+			.append(this.rebalances).append(" rebalances:");
+		for (int w = 0; w < this.numWorkers; w++)
+			report.append(" ").append(bounds[w + 1] - bounds[w]);
+		return report.toString();
+	}
+	
+	/**
+	 * Create an equal division of work, as performed when rebalancing is not
+	 * enabled.
+	 * 
+	 * @param run Simulation run in which the partition will be used.
+	 * @return An equal division of work.
+	 */
+	private Partition equalPartition(int run) {
+		
+		int tokensPerWorker = (this.workSize + this.numWorkers - 1) / this.numWorkers;
+		int[] bounds = new int[this.numWorkers + 1];
+		for (int w = 0; w <= this.numWorkers; w++)
+			bounds[w] = Math.min(w * tokensPerWorker, this.workSize);
+		return new Partition(run, bounds);
 	}
 
 }
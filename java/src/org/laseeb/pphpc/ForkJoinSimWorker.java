@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A simulation worker which drives the simulation using a fork/join pool. 
+ * Each pass over the grid is performed by a {@link RecursiveAction} which
+ * splits the cell range in halves until the block size is reached. Each 
+ * thread of the pool performs the work of each token with its own 
+ * {@link WorkerPasses}, i.e. its own random number generator, agent pool and
+ * partial statistics, which are merged by this worker at the end of each
+ * pass.
+ * 
+ * @author Nuno Fachada
+ */
+public class ForkJoinSimWorker implements Runnable {
+	
+	/**
+	 * Passes over the simulation grid, or over the initial agents.
+	 */
+	private enum Pass { 
+		
+		/** Initialize cells. */
+		INIT_CELLS,
+		
+		/** Create initial sheep. */
+		INIT_SHEEP,
+		
+		/** Create initial wolves. */
+		INIT_WOLVES,
+		
+		/** Get initial statistics. */
+		FIRST_STATS,
+		
+		/** Agent movement and grass growth. */
+		MOVE,
+		
+		/** Agent actions and statistics gathering. */
+		ACT
+	}
+	
+	/**
+	 * Recursive action which performs a pass over a range of cells (or 
+	 * initial agents).
+	 */
+	private class PassAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/* Pass to perform. */
+		private Pass pass;
+		
+		/* First cell (or initial agent) in range, inclusive. */
+		private int from;
+		
+		/* Last cell (or initial agent) in range, exclusive. */
+		private int to;
+
+		/**
+		 * Create a new pass action for the given range.
+		 * 
+		 * @param pass Pass to perform.
+		 * @param from First cell (or initial agent) in range, inclusive.
+		 * @param to Last cell (or initial agent) in range, exclusive.
+		 */
+		private PassAction(Pass pass, int from, int to) {
+			this.pass = pass;
+			this.from = from;
+			this.to = to;
+		}
+		
+		/**
+		 * @see RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			
+			if (this.to - this.from > blockSize) {
+				
+				/* Range is too large, split it in halves. */
+				int mid = (this.from + this.to) >>> 1;
+				invokeAll(new PassAction(this.pass, this.from, mid),
+						new PassAction(this.pass, mid, this.to));
+				
+			} else {
+				
+				/* Process range with the state of the current thread. */
+				performPass(this.pass, this.from, this.to, threadPasses.get());
+			}
+		}
+		
+	}
+	
+	/* Work factory. */
+	private ForkJoinWorkFactory workFactory;
+	
+	/* Model parameters. */
+	private ModelParams params;
+	
+	/* MVC model. */
+	private IModel model;
+	
+	/* MVC controller. */
+	private IController controller;
+	
+	/* Maximum number of cells processed by each task. */
+	private int blockSize;
+	
+	/* Iteration of the pass being performed, set before the pass is 
+	 * invoked in the fork/join pool. */
+	private int passIter;
+	
+	/* Pass states of the threads of the fork/join pool. */
+	private List<WorkerPasses> threadStates;
+	
+	/* Pass state of the current thread of the fork/join pool. */
+	private ThreadLocal<WorkerPasses> threadPasses;
+	
+	/**
+	 * Create a new fork/join simulation worker.
+	 * 
+	 * @param workFactory Fork/join work factory.
+	 * @param model The MVC model.
+	 * @param controller The MVC controller.
+	 */
+	ForkJoinSimWorker(ForkJoinWorkFactory workFactory, IModel model, 
+			IController controller) {
+		this.workFactory = workFactory;
+		this.params = model.getParams();
+		this.model = model;
+		this.controller = controller;
+		this.blockSize = workFactory.getBlockSize();
+	}
+
+	/**
+	 * Perform simulation.
+	 * 
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		
+		/* Current iteration. */
+		int iter = 0;
+		
+		/* Statistics merged from all threads. */
+		IterationStats iterStats = new IterationStats();
+		
+		/* Agent object allocations already reported to the model. */
+		long reportedAllocations = 0;
+		
+		/* Each thread of the fork/join pool creates its state when it first
+		 * processes cells, with a random number generator for the next 
+		 * thread ID. */
+		final AtomicInteger nextThreadId = new AtomicInteger(0);
+		this.threadStates = new ArrayList<WorkerPasses>();
+		this.threadPasses = new ThreadLocal<WorkerPasses>() {
+			@Override
+			protected WorkerPasses initialValue() {
+				WorkerPasses state;
+				try {
+					state = new WorkerPasses(model,
+							model.createRNG(nextThreadId.getAndIncrement()));
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+				synchronized (threadStates) {
+					threadStates.add(state);
+				}
+				return state;
+			}
+		};
+		
+		/* Get fork/join pool, reused between simulations. */
+		ForkJoinPool fjPool = this.workFactory.getPool();
+		
+		try {
+			
+			/* Notify controller that I'm about to begin working. */
+			this.controller.workerNotifyBeforeInitCells();
+			
+			/* Initialize simulation grid cells. */
+			fjPool.invoke(new PassAction(Pass.INIT_CELLS, 0, this.model.getSize()));
+			
+			/* Notify controller cells are initialized. */
+			this.controller.workerNotifyInitCells();
+			
+			/* Populate simulation grid with agents. */
+			fjPool.invoke(new PassAction(Pass.INIT_SHEEP, 0, this.params.getInitSheep()));
+			fjPool.invoke(new PassAction(Pass.INIT_WOLVES, 0, this.params.getInitWolves()));
+			
+			/* Notify controller agents are initialized. */
+			this.controller.workerNotifyInitAgents();
+			
+			/* Get initial statistics. */
+			fjPool.invoke(new PassAction(Pass.FIRST_STATS, 0, this.model.getSize()));
+			this.mergeStats(iterStats);
+			this.model.updateStats(0, 0, iterStats);
+			
+			/* Report agent object allocations. */
+			reportedAllocations = this.reportAllocations(reportedAllocations);
+			
+			/* Notify controller statistics for the zero iteration are 
+			 * updated. */
+			this.controller.workerNotifyFirstStats();
+			
+			/* Perform simulation steps. */
+			for (iter = 1; iter <= this.params.getIters(); iter++) {
+				
+				/* Passes of this iteration select random number streams of 
+				 * this iteration, if the generator is counter-based. */
+				this.passIter = iter;
+				
+				/* Steps 1 and 2 of simulation, agent movement and grass 
+				 * growth. */
+				fjPool.invoke(new PassAction(Pass.MOVE, 0, this.model.getSize()));
+				
+				/* Notify controller half-way through an iteration. */
+				this.controller.workerNotifyHalfIteration();
+				
+				/* Steps 3 and 4 of simulation, agent actions and statistics
+				 * gathering. */
+				fjPool.invoke(new PassAction(Pass.ACT, 0, this.model.getSize()));
+				
+				/* Update global statistics. */
+				this.mergeStats(iterStats);
+				this.model.updateStats(0, iter, iterStats);
+				
+				/* Report agent object allocations in this iteration. */
+				reportedAllocations = this.reportAllocations(reportedAllocations);
+				
+				/* Notify controller an iteration ended. */
+				this.controller.workerNotifyEndIteration();
+			}
+			
+			/* Notify controller I'm finished with this simulation. */
+			this.controller.workerNotifySimFinish();
+			
+		} catch (InterruptedWorkException iwe) {
+
+			/* Thread interrupted by request of another thread. Do nothing, just
+			 * let thread finish by its own. */
+			
+		} catch (Exception e) {
+			
+			/* Notify model of exception. */
+			this.model.registerException(e, "Iteration #" + iter);
+			
+			/* Some other unexpected exception. Notify controller to stop all other
+			 * threads immediately. */
+			this.controller.stopNow();
+			
+		}
+	}
+	
+	/**
+	 * Perform a pass over a range of cells (or initial agents).
+	 * 
+	 * @param pass Pass to perform.
+	 * @param from First cell (or initial agent) in range, inclusive.
+	 * @param to Last cell (or initial agent) in range, exclusive.
+	 * @param passes Pass state of the current thread.
+	 */
+	private void performPass(Pass pass, int from, int to, WorkerPasses passes) {
+		
+		switch (pass) {
+		
+			case INIT_CELLS:
+				for (int i = from; i < to; i++)
+					passes.initCell(i);
+				break;
+				
+			case INIT_SHEEP:
+				for (int i = from; i < to; i++)
+					passes.initSheep(i);
+				break;
+				
+			case INIT_WOLVES:
+				for (int i = from; i < to; i++)
+					passes.initWolf(i);
+				break;
+				
+			case FIRST_STATS:
+				for (int i = from; i < to; i++)
+					passes.firstStats(i);
+				passes.finishPass();
+				break;
+				
+			case MOVE:
+				for (int i = from; i < to; i++)
+					passes.move(this.passIter, i, null);
+				passes.finishPass();
+				break;
+				
+			case ACT:
+				for (int i = from; i < to; i++)
+					passes.act(this.passIter, i);
+				passes.finishPass();
+				break;
+		}
+	}
+	
+	/**
+	 * Merge the partial statistics of all threads, and reset them for the 
+	 * next pass.
+	 * 
+	 * @param iterStats Statistics object where to merge partial statistics.
+	 */
+	private void mergeStats(IterationStats iterStats) {
+		iterStats.reset();
+		synchronized (this.threadStates) {
+			for (WorkerPasses state : this.threadStates) {
+				iterStats.add(state.getStats());
+				state.getStats().reset();
+			}
+		}
+	}
+	
+	/**
+	 * Report the agent object allocations of all threads performed since 
+	 * the last report.
+	 * 
+	 * @param reportedAllocations Allocations already reported.
+	 * @return Total allocations reported.
+	 */
+	private long reportAllocations(long reportedAllocations) {
+		long allocations = 0;
+		synchronized (this.threadStates) {
+			for (WorkerPasses state : this.threadStates)
+				allocations += state.getAllocations();
+		}
+		this.model.updateAgentAllocations(allocations - reportedAllocations);
+		return allocations;
+	}
+
+}
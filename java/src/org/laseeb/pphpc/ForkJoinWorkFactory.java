@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Work factory which creates the required objects to process the simulation
+ * grid with a fork/join pool. A single worker drives the simulation, and
+ * each pass over the grid is recursively split in blocks of cells, which are
+ * processed by the threads of the pool. Load imbalance is absorbed by work
+ * stealing.
+ * 
+ * @author Nuno Fachada
+ */
+public class ForkJoinWorkFactory implements IWorkFactory {
+
+	/* Number of threads in the fork/join pool. */
+	private int numThreads;
+	
+	/* Maximum number of cells (or initial agents) processed by each task 
+	 * without further splitting. */
+	private int blockSize;
+	
+	/* Fork/join pool, created in the first simulation and reused in 
+	 * subsequent ones. */
+	private ForkJoinPool pool;
+	
+	/**
+	 * Create a new fork/join work factory.
+	 * 
+	 * @param numThreads Number of threads in the fork/join pool.
+	 * @param blockSize Maximum number of cells (or initial agents) processed
+	 * by each task without further splitting.
+	 */
+	public ForkJoinWorkFactory(int numThreads, int blockSize) {
+		this.numThreads = numThreads;
+		this.blockSize = blockSize;
+	}
+	
+	/**
+	 * Returns the number of threads in the fork/join pool, which process the
+	 * cells on behalf of the single driving worker.
+	 * 
+	 * @see IWorkFactory#getNumThreads()
+	 */
+	@Override
+	public int getNumThreads() {
+		return this.numThreads;
+	}
+	
+	/**
+	 * Get the fork/join pool, creating it if this is the first simulation.
+	 * Threads of the pool are daemon threads, so the pool is never shut down.
+	 * 
+	 * @return The fork/join pool.
+	 */
+	public synchronized ForkJoinPool getPool() {
+		if (this.pool == null)
+			this.pool = new ForkJoinPool(this.numThreads);
+		return this.pool;
+	}
+
+	/**
+	 * Get the maximum number of cells (or initial agents) processed by each 
+	 * task without further splitting.
+	 * 
+	 * @return Block size.
+	 */
+	public int getBlockSize() {
+		return this.blockSize;
+	}
+
+	/**
+	 * @see IWorkFactory#createSimController(IModel)
+	 */
+	@Override
+	public IController createSimController(IModel model) {
+		
+		/* Instantiate the controller... */
+		IController controller = new Controller(model, this);
+		
+		/* ...and set appropriate sync. points for the single driving 
+		 * worker. */
+		controller.setWorkerSynchronizers(
+				new SingleThreadSyncPoint(ControlEvent.BEFORE_INIT_CELLS), 
+				new SingleThreadSyncPoint(ControlEvent.AFTER_INIT_CELLS), 
+				new SingleThreadSyncPoint(ControlEvent.AFTER_INIT_AGENTS), 
+				new SingleThreadSyncPoint(ControlEvent.AFTER_FIRST_STATS), 
+				new SingleThreadSyncPoint(ControlEvent.AFTER_HALF_ITERATION), 
+				new SingleThreadSyncPoint(ControlEvent.AFTER_END_ITERATION), 
+				new SingleThreadSyncPoint(ControlEvent.AFTER_END_SIMULATION));
+		
+		/* Return the controller, configured for the fork/join pool. */
+		return controller;
+	}
+
+	/**
+	 * @see IWorkFactory#getPutInitAgentMode()
+	 */
+	@Override
+	public CellPutAgentMode getPutInitAgentMode() {
+		return CellPutAgentMode.SYNC;
+	}
+
+	/**
+	 * @see IWorkFactory#getPutExistingAgentMode()
+	 */
+	@Override
+	public CellPutAgentMode getPutExistingAgentMode() {
+		return CellPutAgentMode.SYNC;
+	}
+
+	/**
+	 * Statistics are merged by the single driving worker, so a 
+	 * single-threaded global statistics object is created.
+	 * 
+	 * @see IWorkFactory#createGlobalStats(int)
+	 */
+	@Override
+	public IGlobalStats createGlobalStats(int iters) {
+		return new SingleThreadGlobalStats(iters);
+	}
+
+	/**
+	 * @see IWorkFactory#createSimWorker(int, IModel, IController)
+	 */
+	@Override
+	public Runnable createSimWorker(int wId, IModel model, IController controller) {
+		return new ForkJoinSimWorker(this, model, controller);
+	}
+
+	/**
+	 * Always returns 1, since a single worker drives the simulation. Cells 
+	 * are processed by the threads of the fork/join pool.
+	 * 
+	 * @see IWorkFactory#getNumWorkers()
+	 */
+	@Override
+	public int getNumWorkers() {
+		return 1;
+	}
+
+	/**
+	 * Work distribution is not adapted, so there is nothing to report.
+	 * 
+	 * @see IWorkFactory#getWorkReport()
+	 */
+	@Override
+	public String getWorkReport() {
+		return null;
+	}
+
+}
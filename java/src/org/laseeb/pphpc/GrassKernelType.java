@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+/**
+ * Enum representing the grass kernels available for grass regrowth and grass
+ * statistics.
+ * 
+ * @author Nuno Fachada
+ */
+public enum GrassKernelType {
+	
+	/** @see ScalarGrassKernel */
+	SCALAR {
+		/** @see GrassKernelType#createKernel(int) */
+		@Override
+		public IGrassKernel createKernel(int grassRestart) {
+			return new ScalarGrassKernel();
+		}
+
+		/** @see GrassKernelType#isAvailable() */
+		@Override
+		public boolean isAvailable() {
+			return true;
+		}
+	},
+	
+	/** @see VectorGrassKernel */
+	VECTOR {
+		/** @see GrassKernelType#createKernel(int) */
+		@Override
+		public IGrassKernel createKernel(int grassRestart) {
+			return new VectorGrassKernel(grassRestart);
+		}
+
+		/** @see GrassKernelType#isAvailable() */
+		@Override
+		public boolean isAvailable() {
+			return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+		}
+	};
+	
+	/**
+	 * Create the grass kernel associated with this kernel type.
+	 * 
+	 * @param grassRestart Grass restart simulation parameter.
+	 * @return A new grass kernel.
+	 */
+	public abstract IGrassKernel createKernel(int grassRestart);
+	
+	/**
+	 * Is this kernel type available in the running JVM?
+	 * 
+	 * @return True if this kernel type is available, false otherwise.
+	 */
+	public abstract boolean isAvailable();
+
+}
@@ -26,14 +26,13 @@
 
 package org.laseeb.pphpc;
 
-import java.util.Random;
 
 /**
  * Interface for PPHPC agent implementations.
  * 
  * @author Nuno Fachada
  */
-public interface IAgent extends Cloneable, Comparable<IAgent> {
+public interface IAgent extends Comparable<IAgent> {
 
 	/**
 	 * Returns the agent energy.
@@ -69,8 +68,9 @@ public interface IAgent extends Cloneable, Comparable<IAgent> {
 	 * 
 	 * @param cell Cell where agent is currently in.
 	 * @param rng A random number generator for the agent to use.
+	 * @param pool Pool from which newly-born agents are obtained.
 	 */
-	public void act(ICell cell, Random rng);
+	public void act(Cell cell, IRng rng, AgentPool pool);
 
 	/**
 	 * Returns the agent-specific reproduction threshold.
@@ -26,8 +26,6 @@
 
 package org.laseeb.pphpc;
 
-import java.util.List;
-import java.util.Random;
 
 /**
  * A PPHPC model cell, part of a larger simulation grid.
@@ -48,11 +46,6 @@ public interface ICell {
 	 */
 	public void eatGrass();
 
-	/**
-	 * Decrement grass counter.
-	 */
-	public void regenerateGrass();
-
 	/**
 	 * Return the grass restart simulation parameter.
 	 * 
@@ -60,14 +53,6 @@ public interface ICell {
 	 */
 	public int getGrassRestart();
 
-	/**
-	 * This method allows the cell to be used in a "foreach" statement,
-	 * returning an agent in each iteration.
-	 * 
-	 * @return An iterable collection for agents in this cell.
-	 */
-	public Iterable<IAgent> getAgents();
-
 	/**
 	 * Put an initial agent in this cell.
 	 * 
@@ -91,11 +76,13 @@ public interface ICell {
 	public void putExistingAgent(IAgent agent);	
 	
 	/**
-	 * Get agent and grass statistics for this cell.
+	 * Get agent statistics for this cell. Grass statistics are obtained in
+	 * bulk with {@link IModelManipulator#getGrassStats(int, int, IterationStats)}.
 	 * 
 	 * @param stats Statistics object to be populated.
+	 * @param pool Pool where dead agents are recycled.
 	 */
-	public void getStats(IterationStats stats);
+	public void getStats(IterationStats stats, AgentPool pool);
 
 	/**
 	 * Perform actions for the agents in this cell.
@@ -103,23 +90,27 @@ public interface ICell {
 	 * @param rng A random number generator for the agent to perform its actions
 	 * stochastically.
 	 * @param shuffle If true, agents in this cell will be shuffled before they act.
+	 * @param pool Pool from which newly-born agents are obtained, and where 
+	 * dead agents are recycled.
 	 */
-	public void agentActions(Random rng, boolean shuffle);
-
-	/**
-	 * Set the neighborhood for this cell.
-	 * 
-	 * @param neighborhood A list of cells which correspond to the neighborhood
-	 * of the current cell.
-	 */
-	public void setNeighborhood(List<ICell> neighborhood);
+	public void agentActions(IRng rng, boolean shuffle, AgentPool pool);
 
 	/**
 	 * Perform agent movement for the agents in this cell.
 	 * 
 	 * @param rng A random number generator so that the agents move randomly.
+	 * @param pool Pool where agents which die are recycled.
+	 * @param outbox Outbox of the worker processing this cell, through which
+	 * agents are moved into other cells, or null if agents are put directly
+	 * in other cells. Only used by the object agent engine.
+	 */
+	public void agentsMove(IRng rng, AgentPool pool, AgentOutbox outbox);
+	
+	/**
+	 * Remove all agents from this cell, such that it can be reused in a new
+	 * simulation. Agent keeping structures are kept for reuse.
 	 */
-	public void agentsMove(Random rng);
+	public void clear();
 
 
 }
\ No newline at end of file
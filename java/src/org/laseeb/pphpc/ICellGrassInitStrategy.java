@@ -26,7 +26,6 @@
 
 package org.laseeb.pphpc;
 
-import java.util.Random;
 
 /**
  * Grass initialization strategy.
@@ -43,6 +42,6 @@ public interface ICellGrassInitStrategy {
 	 * initialization strategies.
 	 * @return The initial grass state.
 	 */
-	public int getInitGrass(int grassRestart, Random rng);
+	public int getInitGrass(int grassRestart, IRng rng);
 
 }
@@ -29,8 +29,8 @@ package org.laseeb.pphpc;
 import java.util.List;
 
 /**
- * This class defines how an agent is added to an cell's internal agent list.
- * Strategy design pattern.
+ * This class defines how an agent is added to an cell's internal agent list,
+ * for the OBJECT agent engine. Strategy design pattern.
  *  
  * @see ICell#putNewAgent(IAgent) 
  * @see ICell#putExistingAgent(IAgent)
@@ -46,4 +46,36 @@ public interface ICellPutAgentStrategy {
 	 * @param agent Agent to put in list.
 	 */
 	public void putAgent(List<IAgent> agents, IAgent agent);
+	
+	/**
+	 * Put an agent in a cell's internal agent list using some specific 
+	 * behavior, on behalf of the worker which processes the cell, so no 
+	 * synchronization is required.
+	 * 
+	 * @param agents Agent list, internal to the cell.
+	 * @param agent Agent to put in list.
+	 */
+	public void putOwnedAgent(List<IAgent> agents, IAgent agent);
+	
+	/**
+	 * Put a range of agents in a cell's internal agent list using some 
+	 * specific behavior. Used when agents are gathered by the worker which 
+	 * processes the cell, so no synchronization is required.
+	 * 
+	 * @param agents Agent list, internal to the cell.
+	 * @param src Array containing the agents to put in list.
+	 * @param from Index of first agent to put in list (inclusive).
+	 * @param to Index of last agent to put in list (exclusive).
+	 */
+	public void putAgents(List<IAgent> agents, IAgent[] src, int from, int to);
+	
+	/**
+	 * Prepare a cell's internal agent list, filled using this strategy, 
+	 * before its agents are processed. Strategies which put agents in no 
+	 * particular order, but must provide reproducible simulations, sort the
+	 * agents once here.
+	 * 
+	 * @param agents Agent list, internal to the cell.
+	 */
+	public void prepareAgents(List<IAgent> agents);
 }
@@ -38,7 +38,6 @@ public interface IController {
 	 * 
 	 * @param beforeInitCellsSync Synchronizes before cell initialization.
 	 * @param afterInitCellsSync Synchronizes after cell initialization.
-	 * @param afterSetCellNeighsSync Synchronizes after setting cell neighbors.
 	 * @param afterInitAgentsSync Synchronizes after initializing agents.
 	 * @param afterFirstStatsSync Synchronizes after getting first stats.
 	 * @param afterHalfIterSync Synchronizes after half iteration.
@@ -47,7 +46,7 @@ public interface IController {
 	 */
 	public void setWorkerSynchronizers(ISyncPoint beforeInitCellsSync,
 			ISyncPoint afterInitCellsSync,
-			ISyncPoint afterSetCellNeighsSync, ISyncPoint afterInitAgentsSync,
+			ISyncPoint afterInitAgentsSync,
 			ISyncPoint afterFirstStatsSync, ISyncPoint afterHalfIterSync,
 			ISyncPoint afterEndIterSync, ISyncPoint afterEndSimSync);
 
@@ -73,13 +72,6 @@ public interface IController {
 	 */
 	public void workerNotifyInitCells() throws InterruptedWorkException;
 
-	/**
-	 * Used by workers to synchronize after setting cell neighbors.
-	 * 
-	 * @throws InterruptedWorkException If work is interrupted.
-	 */
-	public void workerNotifySetCellNeighbors() throws InterruptedWorkException;
-
 	/**
 	 * Used by workers to synchronize after initializing agents.
 	 * 
@@ -121,6 +113,16 @@ public interface IController {
 	 */
 	public void stopNow();
 	
+	/**
+	 * Was the simulation ordered to stop as soon as possible? Used by 
+	 * workers which wait for each other outside of the synchronization 
+	 * points, so that they stop waiting when other workers are interrupted.
+	 * 
+	 * @return True if {@link #stopNow()} was invoked since the simulation 
+	 * was last started, false otherwise.
+	 */
+	public boolean isStoppingNow();
+	
 	/**
 	 * Stop simulation after the current iteration.
 	 * 
@@ -152,6 +154,16 @@ public interface IController {
 	 * @param filename File where to export simulation statistics to.
 	 */
 	public void export(String filename);
+	
+	/**
+	 * Release the resources the model holds outside the Java heap. Must only
+	 * be called once all simulation workers have finished, i.e. when the 
+	 * stop event is observed or when the simulation is stopped, and the 
+	 * simulation can't be started again afterwards.
+	 * 
+	 * @see IModelManipulator#dispose()
+	 */
+	public void dispose();
 
 	/**
 	 * Return the number of available simulation workers.
@@ -160,6 +172,22 @@ public interface IController {
 	 */
 	public int getNumWorkers();
 
+	/**
+	 * Return the number of threads which perform the simulation work.
+	 * 
+	 * @return The number of threads which perform the simulation work.
+	 */
+	public int getNumThreads();
+
+	/**
+	 * Return a report of how work was distributed among simulation workers
+	 * in the last simulation, if available.
+	 * 
+	 * @return A report of how work was distributed, or null if there is 
+	 * nothing to report.
+	 */
+	public String getWorkReport();
+
 	/**
 	 * Is the simulation running?
 	 * 
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+/**
+ * Interface for counter-based random number generators, in which each 
+ * random number is a function of a key (derived from the seed) and of a 
+ * counter. The counter is split in a stream, selected by the simulation 
+ * pass, iteration and index of the cell (or initial agent) being processed,
+ * and in the position of the random number within the stream. As such, 
+ * the random numbers used to process a cell do not depend on which worker 
+ * processes it, or on which cells the worker processed before.
+ * 
+ * @author Nuno Fachada
+ */
+public interface ICounterBasedRNG {
+	
+	/** Stream of random numbers for cell initialization. */
+	public static final int INIT_CELLS = 0;
+
+	/** Stream of random numbers for initial sheep creation. */
+	public static final int INIT_SHEEP = 1;
+
+	/** Stream of random numbers for initial wolves creation. */
+	public static final int INIT_WOLVES = 2;
+
+	/** Stream of random numbers for agent movement. */
+	public static final int MOVE = 3;
+
+	/** Stream of random numbers for agent actions. */
+	public static final int ACT = 4;
+
+	/**
+	 * Select the stream from which the next random numbers are taken, 
+	 * starting at its first random number.
+	 * 
+	 * @param pass Simulation pass, one of the stream constants defined in 
+	 * this interface.
+	 * @param iter Iteration (zero for initialization passes).
+	 * @param idx Index of the cell (or initial agent) being processed.
+	 */
+	public void setStream(int pass, int iter, int idx);
+
+}
@@ -55,10 +55,11 @@ public interface IGlobalStats {
 	 * iteration statistics are added to the global statistics for the 
 	 * specified iteration.
 	 * 
+	 * @param wId Identifier of the worker which gathered the statistics.
 	 * @param iter Iteration.
 	 * @param stats Statistics to add.
 	 */
-	public void updateStats(int iter, IterationStats stats);
+	public void updateStats(int wId, int iter, IterationStats stats);
 
 	/**
 	 * Reset statistics (see all statistics in all iteration to zero).
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Grass kernels perform the per-cell grass arithmetic (regrowth and 
+ * statistics) over ranges of contiguous cells. Strategy design pattern.
+ * 
+ * @author Nuno Fachada
+ */
+public interface IGrassKernel {
+
+	/**
+	 * Regenerate grass, i.e. decrement positive grass counters, in the given 
+	 * range of cells.
+	 * 
+	 * @param grass Grass counters of all cells.
+	 * @param from Index of first cell (inclusive).
+	 * @param to Index of last cell (exclusive).
+	 */
+	public void regenerate(int[] grass, int from, int to);
+	
+	/**
+	 * Add the grass statistics of the given range of cells, namely number of
+	 * cells with alive grass and total grass countdown, to the given 
+	 * statistics object.
+	 * 
+	 * @param grass Grass counters of all cells.
+	 * @param from Index of first cell (inclusive).
+	 * @param to Index of last cell (exclusive).
+	 * @param stats Statistics object to update.
+	 */
+	public void getStats(int[] grass, int from, int to, IterationStats stats);
+	
+	/**
+	 * Regenerate grass in the given range of cells, with grass counters kept
+	 * in a buffer (e.g. off-heap) of integers in native byte order.
+	 * 
+	 * @param grass Buffer of grass counters.
+	 * @param from Index of first counter in buffer (inclusive).
+	 * @param to Index of last counter in buffer (exclusive).
+	 * @see #regenerate(int[], int, int)
+	 */
+	public void regenerate(ByteBuffer grass, int from, int to);
+	
+	/**
+	 * Add the grass statistics of the given range of cells to the given 
+	 * statistics object, with grass counters kept in a buffer (e.g. off-heap)
+	 * of integers in native byte order.
+	 * 
+	 * @param grass Buffer of grass counters.
+	 * @param from Index of first counter in buffer (inclusive).
+	 * @param to Index of last counter in buffer (exclusive).
+	 * @param stats Statistics object to update.
+	 * @see #getStats(int[], int, int, IterationStats)
+	 */
+	public void getStats(ByteBuffer grass, int from, int to, IterationStats stats);
+
+}
@@ -26,7 +26,6 @@
 
 package org.laseeb.pphpc;
 
-import java.util.Random;
 
 /**
  * Interface which defines methods for model manipulation.
@@ -36,10 +35,19 @@ import java.util.Random;
 public interface IModelManipulator {
 	
 	/**
-	 * Reset model.
+	 * Reset model. Existing cells are cleared, and reused when they are
+	 * initialized again with {@link #initCellAt(int, IRng)}.
 	 */
 	public void reset();
 	
+	/**
+	 * Release the resources held by the model outside the Java heap, such as
+	 * the off-heap memory of the OFFHEAP agent engine, without waiting for 
+	 * the JVM to terminate. Must only be called when no simulation is 
+	 * running, and the model can't be used afterwards.
+	 */
+	public void dispose();
+	
 	/**
 	 * Increment iteration.
 	 */
@@ -80,32 +88,62 @@ public interface IModelManipulator {
 	 */
 	public ICell getCell(int idx);
 	
-	/**
-	 * Set the neighbors of the model cell located at the specified space-independent 
-	 * index. This method can only be called once after all cells have been initialized
-	 * with {@link #initCellAt(int, Random)}.
-	 * 
-	 * @param idx Space-independent index of the cell in which the neighbors will be set.
-	 */
-	public void setCellNeighbors(int idx);
-
 	/**
 	 * Initialize a model cell at the specified space-independent index.
 	 * 
 	 * @param idx Space-independent index where to place the cell.
 	 * @param rng Random number generator with which to initialize the cell.
 	 */
-	public void initCellAt(int idx, Random rng);
+	public void initCellAt(int idx, IRng rng);
+	
+	/**
+	 * Regenerate grass, i.e. decrement grass counters, in the cells within 
+	 * the given range of space-independent indexes.
+	 * 
+	 * @param from Index of first cell in which to regenerate grass (inclusive).
+	 * @param to Index of last cell in which to regenerate grass (exclusive).
+	 */
+	public void regenerateGrass(int from, int to);
+	
+	/**
+	 * Add the grass statistics of the cells within the given range of 
+	 * space-independent indexes to the given statistics object.
+	 * 
+	 * @param from Index of first cell (inclusive).
+	 * @param to Index of last cell (exclusive).
+	 * @param stats Statistics object to update.
+	 */
+	public void getGrassStats(int from, int to, IterationStats stats);
 
 	/**
 	 * Update global statistics for a specified iteration. The given 
 	 * iteration statistics are added to the global statistics for the 
 	 * specified iteration.
 	 * 
+	 * @param wId Identifier of the worker which gathered the statistics.
 	 * @param iter Iteration.
 	 * @param iterStats Statistics to add.
 	 */
-	public void updateStats(int iter, IterationStats iterStats);
+	public void updateStats(int wId, int iter, IterationStats iterStats);
+	
+	/**
+	 * Add the given number of agent objects allocated by a worker to the 
+	 * total number of agent objects allocated in the simulation.
+	 * 
+	 * @param allocations Number of agent objects allocated.
+	 * @see AgentPool#getAllocations()
+	 */
+	public void updateAgentAllocations(long allocations);
+	
+	/**
+	 * Get the outbox through which the given worker moves agents into cells
+	 * processed by other workers.
+	 * 
+	 * @param wId Worker ID.
+	 * @return The outbox of the given worker, or null if agents are put 
+	 * directly in other cells.
+	 */
+	public AgentOutbox getAgentOutbox(int wId);
 	
 	/**
 	 * Return the simulation space.
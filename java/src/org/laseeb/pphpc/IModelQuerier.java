@@ -26,7 +26,6 @@
 
 package org.laseeb.pphpc;
 
-import java.util.Random;
 
 /**
  * Interface which defines methods for model querying.
@@ -92,14 +91,16 @@ public interface IModelQuerier extends IModelEventObservable {
 
 	/**
 	 * Create a random number generator. The type of RNG and the base seed are specified 
-	 * at model instantiation time.
+	 * at model instantiation time. Generators are created by a stream factory owned by 
+	 * the model and replaced when the model is reset, such that each worker gets the 
+	 * same generator in each simulation, and models do not share generator state.
 	 * 
 	 * @param wId Worker ID, required so that each thread gets an independent random number 
 	 * generator (not really independent, but good enough for the purpose).
 	 * @return A new random number generator.
 	 * @throws Exception If for some reason, with wasn't possible to create the RNG.
 	 */
-	public Random createRNG(int wId) throws Exception;
+	public IRng createRNG(int wId) throws Exception;
 
 	/**
 	 * Shuffle agents before they act?
@@ -108,6 +109,33 @@ public interface IModelQuerier extends IModelEventObservable {
 	 * false otherwise.
 	 */
 	public boolean isShuffle();
+	
+	/**
+	 * Alternate the direction in which workers traverse their cells in each
+	 * pass over the grid?
+	 * 
+	 * @return Returns true if the traversal direction alternates in each 
+	 * pass, false if cells are always traversed in increasing order.
+	 */
+	public boolean isAlternateTraversal();
+	
+	/**
+	 * Get the total number of agent objects allocated in the simulation so 
+	 * far. Dead agents are recycled for newly-born agents, so this number
+	 * should stop increasing once the agent population stabilizes.
+	 * 
+	 * @return Total number of agent objects allocated.
+	 */
+	public long getAgentAllocations();
+	
+	/**
+	 * Get a description of the delivery lag of events to each observer, if
+	 * events are delivered asynchronously.
+	 * 
+	 * @return A description of the delivery lag of events to each observer,
+	 * or null if events are delivered synchronously.
+	 */
+	public String getEventReport();
 
 	
 }
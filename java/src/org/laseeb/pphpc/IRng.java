@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+/**
+ * Primitive interface for the random number generators used in the 
+ * simulation. Generators are used through final adapters implementing this 
+ * interface, which call the generators directly instead of through 
+ * {@link java.util.Random} wrappers, such that the JIT compiler can inline
+ * the random number draws in the simulation loops.
+ * 
+ * @author Nuno Fachada
+ */
+public interface IRng {
+
+	/**
+	 * Get the next uniformly distributed integer.
+	 * 
+	 * @return The next uniformly distributed integer.
+	 */
+	public int nextInt();
+
+	/**
+	 * Get the next uniformly distributed integer between zero (inclusive) 
+	 * and the given bound (exclusive).
+	 * 
+	 * @param bound Upper bound (exclusive), must be positive.
+	 * @return The next uniformly distributed integer between zero 
+	 * (inclusive) and the given bound (exclusive).
+	 */
+	public int nextInt(int bound);
+
+	/**
+	 * Get the next uniformly distributed long integer.
+	 * 
+	 * @return The next uniformly distributed long integer.
+	 */
+	public long nextLong();
+
+	/**
+	 * Get the next uniformly distributed boolean.
+	 * 
+	 * @return The next uniformly distributed boolean.
+	 */
+	public boolean nextBoolean();
+	
+	/**
+	 * Fill a range of the given array with uniformly distributed integers 
+	 * between zero (inclusive) and the given bound (exclusive). The array is
+	 * filled with the same values which would be obtained by calling 
+	 * {@link #nextInt(int)} for each of its positions, in order.
+	 * 
+	 * @param dest Array to fill.
+	 * @param from First position to fill (inclusive).
+	 * @param to Last position to fill (exclusive).
+	 * @param bound Upper bound (exclusive), must be positive.
+	 */
+	public void nextInts(int[] dest, int from, int to, int bound);
+
+}
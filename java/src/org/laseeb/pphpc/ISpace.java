@@ -34,12 +34,25 @@ package org.laseeb.pphpc;
 public interface ISpace {
 
 	/**
-	 * Set neighbors for cell located at the specified space-independent index. 
+	 * Return the number of cells in a neighborhood, including the central 
+	 * cell.
 	 * 
-	 * @param cells Array of all model cells.
-	 * @param idx Space-independent index of cell to set the neighbors of.
+	 * @return The number of cells in a neighborhood.
 	 */
-	public void setNeighbors(ICell[] cells, int idx);
+	public int getNeighborhoodSize();
+	
+	/**
+	 * Get the space-independent index of a neighbor of the cell located at
+	 * the specified space-independent index. Neighbors are determined
+	 * arithmetically, so no per-cell neighborhood is kept.
+	 * 
+	 * @param idx Space-independent index of cell.
+	 * @param direction Neighbor direction, between 0 (inclusive) and 
+	 * {@link #getNeighborhoodSize()} (exclusive). Direction 0 corresponds to
+	 * the cell itself.
+	 * @return Space-independent index of the neighbor in the given direction.
+	 */
+	public int getNeighbor(int idx, int direction);
 	
 	/**
 	 * Return the number of dimensions of this space.
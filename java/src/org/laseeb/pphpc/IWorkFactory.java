@@ -45,29 +45,20 @@ public interface IWorkFactory {
 	public IController createSimController(IModel model);
 
 	/**
-	 * Creates or returns a previously created work provider for a given work size.
+	 * Return an appropriate mode for putting initial agents in a cell. The
+	 * agent engine provides the strategy which puts agents in this mode.
 	 * 
-	 * @param workSize Size of work to be distributed by the work provider.
-	 * @param workType Type of work to perform (agent or cell work).
-	 * @param model The MVC model.
-	 * @param controller The MVC controller.
-	 * @return A new or previously created work provider for the given work size.
-	 */
-	public IWorkProvider getWorkProvider(int workSize, WorkType workType, IModel model, IController controller);
-
-	/**
-	 * Create and return an appropriate strategy for putting initial agents in a cell.
-	 * 
-	 * @return An appropriate strategy for putting initial agents in a cell.
+	 * @return An appropriate mode for putting initial agents in a cell.
 	 */
-	public ICellPutAgentStrategy createPutInitAgentStrategy();
+	public CellPutAgentMode getPutInitAgentMode();
 	
 	/**
-	 * Create and return an appropriate strategy for putting existing agents in a cell.
+	 * Return an appropriate mode for putting existing agents in a cell. The
+	 * agent engine provides the strategy which puts agents in this mode.
 	 * 
-	 * @return An appropriate strategy for putting existing agents in a cell.
+	 * @return An appropriate mode for putting existing agents in a cell.
 	 */
-	public ICellPutAgentStrategy createPutExistingAgentStrategy();
+	public CellPutAgentMode getPutExistingAgentMode();
 
 	/**
 	 * Create and return an appropriate global statistics object.
@@ -77,6 +68,16 @@ public interface IWorkFactory {
 	 */
 	public IGlobalStats createGlobalStats(int iters);
 	
+	/**
+	 * Create a simulation worker, to be run in its own thread.
+	 * 
+	 * @param wId Worker ID.
+	 * @param model The MVC model.
+	 * @param controller The MVC controller.
+	 * @return A new simulation worker.
+	 */
+	public Runnable createSimWorker(int wId, IModel model, IController controller);
+	
 	/**
 	 * Return number of workers for which this work factory will create work-related
 	 * objects.
@@ -86,4 +87,23 @@ public interface IWorkFactory {
 	 */
 	public int getNumWorkers();
 	
+	/**
+	 * Return number of threads which perform the simulation work. This is 
+	 * usually the number of workers, but may differ if workers delegate work
+	 * to a pool of threads.
+	 * 
+	 * @return Number of threads which perform the simulation work.
+	 */
+	public int getNumThreads();
+	
+	/**
+	 * Return a report of how work was distributed among workers in the last
+	 * simulation, for work factories which adapt work distribution during 
+	 * the simulation.
+	 * 
+	 * @return A report of how work was distributed, or null if there is 
+	 * nothing to report.
+	 */
+	public String getWorkReport();
+	
 }
@@ -47,14 +47,48 @@ public interface IWorkProvider {
 	 * @param work Work state, contains the worker ID and how much has the worker
 	 * advanced in its work.
 	 * @return Next work token for a given worker.
+	 * @throws InterruptedWorkException If the simulation is stopped while
+	 * the worker waits for other workers before getting the next token.
 	 */
-	public int getNextToken(IWork work);
+	public int getNextToken(IWork work) throws InterruptedWorkException;
 	
 	/**
-	 * Reset the given work state.
+	 * Get the worker which is provided the given work token in every pass,
+	 * if work tokens are statically assigned to workers.
+	 * 
+	 * @param token Work token.
+	 * @return ID of the worker which is always provided the given work token,
+	 * or -1 if work tokens are assigned to workers dynamically.
+	 */
+	public int getOwner(int token);
+
+	/**
+	 * Reset the given work state, such that work tokens are provided in
+	 * increasing order.
 	 * 
 	 * @param work Work state to reset.
 	 */
 	public void resetWork(IWork work);
 
+	/**
+	 * Reset the given work state, such that work tokens are provided in 
+	 * increasing or decreasing order. Work providers which cannot provide 
+	 * tokens in decreasing order ignore the given direction. All workers must
+	 * request the same direction when resetting their work for the same pass.
+	 * 
+	 * @param work Work state to reset.
+	 * @param reverse Provide work tokens in decreasing order?
+	 */
+	public void resetWork(IWork work, boolean reverse);
+	
+	/**
+	 * Inform the work provider of the statistics gathered by a worker in its
+	 * last pass over the work tokens provided to it. Work providers may use 
+	 * these statistics to balance work among workers in future passes.
+	 * 
+	 * @param work Work state of the worker.
+	 * @param stats Statistics gathered by the worker in its last pass.
+	 */
+	public void updateLoad(IWork work, IterationStats stats);
+
 }
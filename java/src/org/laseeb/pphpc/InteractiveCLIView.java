@@ -154,6 +154,10 @@ public class InteractiveCLIView extends AbstractModelEventObserver implements IV
 						/* Quit command. */
 						case 'q':
 							s.close();
+							/* Off-heap resources can only be released if no
+							 * simulation is running. */
+							if (controller.isStopped())
+								controller.dispose();
 							System.out.println("Bye!");
 							System.exit(0);
 							break;
@@ -188,7 +192,7 @@ public class InteractiveCLIView extends AbstractModelEventObserver implements IV
 	@Override
 	protected void updateOnStart() {
 		
-		System.out.println("Started simulation with " + this.controller.getNumWorkers() + " threads...");
+		System.out.println("Started simulation with " + this.controller.getNumThreads() + " threads...");
 		this.totalTime = 0;
 		this.lastStart = System.currentTimeMillis();
 		
@@ -263,6 +267,12 @@ public class InteractiveCLIView extends AbstractModelEventObserver implements IV
 				"\nNumber of sheep: " + stats.getSheepCount() +
 				"\nNumber of wolves: " + stats.getWolvesCount() +
 				"\nQuantity of grass: " + stats.getGrassAlive();
+		if (this.pp.isShowAllocations())
+			info += "\nAgent objects allocated: " + this.model.getAgentAllocations();
+		String workReport = this.controller.getWorkReport();
+		if (workReport != null) info += "\n" + workReport;
+		String eventReport = this.model.getEventReport();
+		if (eventReport != null) info += "\n" + eventReport;
 		System.out.println(info);
 		
 	}
@@ -94,6 +94,20 @@ public class IterationStats {
 		this.grassCountdown = 0;
 	}
 	
+	/**
+	 * Add the given statistics to these statistics.
+	 * 
+	 * @param stats Statistics to add.
+	 */
+	public void add(IterationStats stats) {
+		this.sheepCount += stats.sheepCount;
+		this.wolvesCount += stats.wolvesCount;
+		this.grassAlive += stats.grassAlive;
+		this.sheepEnergy += stats.sheepEnergy;
+		this.wolvesEnergy += stats.wolvesEnergy;
+		this.grassCountdown += stats.grassCountdown;
+	}
+	
 	/**
 	 * Get number of sheep.
 	 * 
@@ -142,6 +156,15 @@ public class IterationStats {
 		this.grassAlive++;
 	}
 	
+	/**
+	 * Update quantity of alive grass.
+	 * 
+	 * @param grassAlive Partial quantity of alive grass.
+	 */
+	public void updateGrassAlive(int grassAlive) {
+		this.grassAlive += grassAlive;
+	}
+	
 	/**
 	 * Get total sheep energy.
 	 * 
@@ -192,7 +215,7 @@ public class IterationStats {
 	 * 
 	 * @param countdown Partial grass countdown.
 	 */
-	public void updateGrassCountdown(int countdown) {
+	public void updateGrassCountdown(long countdown) {
 		this.grassCountdown += countdown;
 	}
 
@@ -80,6 +80,15 @@ public class JavaRandomWrapper extends Random {
         return rng.nextLong();
     }
     
+    /**
+     * Get the wrapped generator.
+     * 
+     * @return The wrapped generator.
+     */
+    public RandomGenerator getGenerator() {
+    	return rng;
+    }
+    
     public JavaRandomWrapper split() {	
     	return new JavaRandomWrapper(((SplittableRandom) rng).split());
     }
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.util.Arrays;
+
+/**
+ * Agents of all cells kept in model-wide arrays of agent energies, types and
+ * next agent indexes, such that the agents of a cell form linked lists of 
+ * indexes, terminated by {@link #END_OF_AG_LIST}. This is the same design 
+ * used by the OpenCL CPU implementation. Each cell has three lists (the 
+ * agents currently being simulated, the existing agents which moved into the
+ * cell, and the new agents), given by the head and tail indexes kept in this
+ * store. 
+ * 
+ * Agent arrays are split in chunks, such that they can grow while being 
+ * accessed by several threads. Free agent indexes are reserved from this 
+ * store in batches, and recycled, by the per-worker {@link AgentPool}s.
+ * 
+ * @author Nuno Fachada
+ */
+public class LinkedAgents implements IAgentStore {
+	
+	/** Index which terminates an agent list. */
+	public static final int END_OF_AG_LIST = -1;
+
+	/** List of agents currently being simulated. */
+	public static final int AGENTS = 0;
+	
+	/** List of existing agents, e.g. agents which moved in from another 
+	 * cell. */
+	public static final int EXISTING = 1;
+	
+	/** List of new agents, i.e. newly-born agents. */
+	public static final int NEW = 2;
+	
+	/* Number of lists per cell. */
+	private static final int NUM_LISTS = 3;
+	
+	/* Log2 of the number of agents in a chunk. */
+	private static final int CHUNK_SHIFT = 16;
+	
+	/* Mask which yields the index of an agent within its chunk. */
+	private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+	
+	/* Simulation parameters. */
+	private ModelParams params;
+	
+	/* Cells of the simulation grid, owned by the model. */
+	private ICell[] cells;
+	
+	/* Simulation space, which determines cell neighbors. */
+	private ISpace space;
+	
+	/* Put agent strategies. */
+	private LinkedCellPutAgentStrategy putInitAgentStrategy;
+	private LinkedCellPutAgentStrategy putExistingAgentStrategy;
+	
+	/* Agent energies. */
+	private int[][] energy;
+	
+	/* Agent types. */
+	private byte[][] type;
+	
+	/* Index of next agent in the same list. */
+	private int[][] next;
+	
+	/* Head and tail indexes of each list of each cell. */
+	private int[] heads;
+	private int[] tails;
+	
+	/* Number of agent indexes reserved so far. */
+	private int reserved;
+
+	/**
+	 * Create a new store of index-linked agents.
+	 * 
+	 * @param params Simulation parameters.
+	 * @param cells Cells of the simulation grid, owned by the model.
+	 * @param space Simulation space, which determines cell neighbors.
+	 * @param putInitAgentStrategy Strategy for putting initial agents in cells.
+	 * @param putExistingAgentStrategy Strategy for putting existing agents in 
+	 * cells.
+	 */
+	public LinkedAgents(ModelParams params, ICell[] cells, ISpace space,
+			LinkedCellPutAgentStrategy putInitAgentStrategy,
+			LinkedCellPutAgentStrategy putExistingAgentStrategy) {
+
+		this.params = params;
+		this.cells = cells;
+		this.space = space;
+		this.putInitAgentStrategy = putInitAgentStrategy;
+		this.putExistingAgentStrategy = putExistingAgentStrategy;
+		
+		int maxChunks = (Integer.MAX_VALUE >>> CHUNK_SHIFT) + 1;
+		this.energy = new int[maxChunks][];
+		this.type = new byte[maxChunks][];
+		this.next = new int[maxChunks][];
+		this.heads = new int[cells.length * NUM_LISTS];
+		this.tails = new int[cells.length * NUM_LISTS];
+		this.reset();
+	}
+
+	/**
+	 * Remove all agents. Allocated chunks are kept for reuse.
+	 * 
+	 * @see IAgentStore#reset()
+	 */
+	@Override
+	public synchronized void reset() {
+		Arrays.fill(this.heads, END_OF_AG_LIST);
+		Arrays.fill(this.tails, END_OF_AG_LIST);
+		this.reserved = 0;
+	}
+	
+	/**
+	 * Get simulation parameters.
+	 * 
+	 * @return Simulation parameters.
+	 */
+	public ModelParams getParams() {
+		return this.params;
+	}
+
+	/**
+	 * Get the cells of the simulation grid.
+	 * 
+	 * @return Cells of the simulation grid.
+	 */
+	public ICell[] getCells() {
+		return this.cells;
+	}
+	
+	/**
+	 * Get the simulation space, which determines cell neighbors.
+	 * 
+	 * @return Simulation space.
+	 */
+	public ISpace getSpace() {
+		return this.space;
+	}
+	
+	/**
+	 * Get the strategy for putting initial agents in cells.
+	 * 
+	 * @return Strategy for putting initial agents in cells.
+	 */
+	public LinkedCellPutAgentStrategy getPutInitAgentStrategy() {
+		return this.putInitAgentStrategy;
+	}
+
+	/**
+	 * Get the strategy for putting existing agents in cells.
+	 * 
+	 * @return Strategy for putting existing agents in cells.
+	 */
+	public LinkedCellPutAgentStrategy getPutExistingAgentStrategy() {
+		return this.putExistingAgentStrategy;
+	}
+	
+	/**
+	 * Reserve a batch of consecutive free agent indexes, allocating new 
+	 * chunks if required.
+	 * 
+	 * @param count Number of agent indexes to reserve.
+	 * @return The first reserved agent index.
+	 */
+	public synchronized int reserve(int count) {
+		
+		if ((long) this.reserved + count > Integer.MAX_VALUE)
+			throw new IllegalStateException("Too many agents.");
+		
+		int first = this.reserved;
+		this.reserved += count;
+		
+		/* Allocate chunks up to the last reserved index. */
+		for (int c = first >>> CHUNK_SHIFT; c <= (this.reserved - 1) >>> CHUNK_SHIFT; c++) {
+			if (this.next[c] == null) {
+				this.energy[c] = new int[CHUNK_MASK + 1];
+				this.type[c] = new byte[CHUNK_MASK + 1];
+				this.next[c] = new int[CHUNK_MASK + 1];
+			}
+		}
+		
+		return first;
+	}
+	
+	/**
+	 * Get the energy of the given agent.
+	 * 
+	 * @param ag Agent index.
+	 * @return Agent energy.
+	 */
+	public int getEnergy(int ag) {
+		return this.energy[ag >>> CHUNK_SHIFT][ag & CHUNK_MASK];
+	}
+
+	/**
+	 * Set the energy of the given agent.
+	 * 
+	 * @param ag Agent index.
+	 * @param energy Agent energy.
+	 */
+	public void setEnergy(int ag, int energy) {
+		this.energy[ag >>> CHUNK_SHIFT][ag & CHUNK_MASK] = energy;
+	}
+	
+	/**
+	 * Get the type of the given agent.
+	 * 
+	 * @param ag Agent index.
+	 * @return Agent type, either {@link PackedAgents#SHEEP} or 
+	 * {@link PackedAgents#WOLF}.
+	 */
+	public byte getType(int ag) {
+		return this.type[ag >>> CHUNK_SHIFT][ag & CHUNK_MASK];
+	}
+	
+	/**
+	 * Set the type of the given agent.
+	 * 
+	 * @param ag Agent index.
+	 * @param type Agent type, either {@link PackedAgents#SHEEP} or 
+	 * {@link PackedAgents#WOLF}.
+	 */
+	public void setType(int ag, byte type) {
+		this.type[ag >>> CHUNK_SHIFT][ag & CHUNK_MASK] = type;
+	}
+	
+	/**
+	 * Get the index of the agent following the given agent in its list.
+	 * 
+	 * @param ag Agent index.
+	 * @return Index of next agent, or {@link #END_OF_AG_LIST} if the given 
+	 * agent is the last one in its list.
+	 */
+	public int getNext(int ag) {
+		return this.next[ag >>> CHUNK_SHIFT][ag & CHUNK_MASK];
+	}
+
+	/**
+	 * Set the index of the agent following the given agent in its list.
+	 * 
+	 * @param ag Agent index.
+	 * @param next Index of next agent, or {@link #END_OF_AG_LIST}.
+	 */
+	public void setNext(int ag, int next) {
+		this.next[ag >>> CHUNK_SHIFT][ag & CHUNK_MASK] = next;
+	}
+	
+	/**
+	 * Get the ordering profile of the given agent, as in 
+	 * {@link PackedAgents#profile(byte, int)}.
+	 * 
+	 * @param ag Agent index.
+	 * @return The ordering profile of the given agent.
+	 */
+	public int getProfile(int ag) {
+		return PackedAgents.profile(this.getType(ag), this.getEnergy(ag));
+	}
+	
+	/**
+	 * Get the index of the first agent in a list of the given cell.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @return Index of first agent, or {@link #END_OF_AG_LIST} if the list is
+	 * empty.
+	 */
+	public int getHead(int cell, int list) {
+		return this.heads[cell * NUM_LISTS + list];
+	}
+	
+	/**
+	 * Get the index of the last agent in a list of the given cell.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @return Index of last agent, or {@link #END_OF_AG_LIST} if the list is
+	 * empty.
+	 */
+	public int getTail(int cell, int list) {
+		return this.tails[cell * NUM_LISTS + list];
+	}
+
+	/**
+	 * Set the head and tail of a list of the given cell.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @param head Index of first agent, or {@link #END_OF_AG_LIST}.
+	 * @param tail Index of last agent, or {@link #END_OF_AG_LIST}.
+	 */
+	public void setList(int cell, int list, int head, int tail) {
+		this.heads[cell * NUM_LISTS + list] = head;
+		this.tails[cell * NUM_LISTS + list] = tail;
+	}
+	
+	/**
+	 * Append an agent to the end of a list of the given cell.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @param ag Agent index.
+	 */
+	public void append(int cell, int list, int ag) {
+		
+		int l = cell * NUM_LISTS + list;
+		
+		this.setNext(ag, END_OF_AG_LIST);
+		if (this.tails[l] == END_OF_AG_LIST)
+			this.heads[l] = ag;
+		else
+			this.setNext(this.tails[l], ag);
+		this.tails[l] = ag;
+	}
+
+	/**
+	 * Insert an agent in a list of the given cell such that, if the list was 
+	 * ordered by agent profile, it remains ordered.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @param ag Agent index.
+	 */
+	public void insertOrdered(int cell, int list, int ag) {
+		
+		int l = cell * NUM_LISTS + list;
+		int p = this.getProfile(ag);
+		
+		/* Find the last agent with a lower profile. */
+		int prev = END_OF_AG_LIST;
+		int curr = this.heads[l];
+		while (curr != END_OF_AG_LIST && this.getProfile(curr) < p) {
+			prev = curr;
+			curr = this.getNext(curr);
+		}
+		
+		/* Link agent after it. */
+		this.setNext(ag, curr);
+		if (prev == END_OF_AG_LIST)
+			this.heads[l] = ag;
+		else
+			this.setNext(prev, ag);
+		if (curr == END_OF_AG_LIST)
+			this.tails[l] = ag;
+	}
+
+}
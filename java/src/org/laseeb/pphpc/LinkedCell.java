@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+
+/**
+ * Concrete implementation of a PPHPC model cell whose agents are kept in 
+ * index-linked lists of a {@link LinkedAgents} store. The simulation dynamics
+ * are exactly the same as in {@link Cell}, such that both produce identical 
+ * statistics for the same seed and parallelization strategy. Agent indexes 
+ * of dead agents are recycled through the worker {@link AgentPool}, so 
+ * steady-state simulation allocates no memory.
+ * 
+ * @author Nuno Fachada
+ */
+public class LinkedCell implements ICell {
+	
+	/* Store where the agents of this cell are kept. */
+	private LinkedAgents store;
+	
+	/* Grass counters of all cells, owned by the model. */
+	private int[] grass;
+	
+	/* Index of this cell, and of its grass counter. */
+	private int idx;
+
+	/**
+	 * Create a new grid cell with agents kept in index-linked lists.
+	 * 
+	 * @param store Store where the agents of this cell are kept.
+	 * @param grass Grass counters of all cells, owned by the model.
+	 * @param idx Index of this cell, and of its grass counter.
+	 */
+	public LinkedCell(LinkedAgents store, int[] grass, int idx) {
+		this.store = store;
+		this.grass = grass;
+		this.idx = idx;
+	}
+
+	/**
+	 * @see ICell#isGrassAlive()
+	 */
+	@Override
+	public boolean isGrassAlive() {
+		return this.grass[this.idx] == 0;
+	}
+
+	/**
+	 * @see ICell#eatGrass()
+	 */
+	@Override
+	public void eatGrass() {
+		this.grass[this.idx] = this.getGrassRestart();
+	}
+
+	/**
+	 * @see ICell#getGrassRestart()
+	 */
+	@Override
+	public int getGrassRestart() {
+		return this.store.getParams().getGrassRestart();
+	}
+
+	/**
+	 * The given agent object is only used to determine the type and energy of
+	 * the agent to put in this cell, and is not kept.
+	 * 
+	 * @see ICell#putInitAgent(IAgent)
+	 */
+	@Override
+	public void putInitAgent(IAgent agent) {
+		
+		/* Put initial agent according to the specified strategy. */
+		this.store.getPutInitAgentStrategy().putAgent(this, LinkedAgents.NEW,
+				this.newAgent(PackedAgents.typeOf(agent), agent.getEnergy()));
+		
+	}
+
+	/**
+	 * The given agent object is only used to determine the type and energy of
+	 * the agent to put in this cell, and is not kept.
+	 * 
+	 * @see ICell#putNewAgent(IAgent)
+	 */
+	@Override
+	public void putNewAgent(IAgent agent) {
+		
+		/* Put new agent in new agent list. */
+		this.store.append(this.idx, LinkedAgents.NEW,
+				this.newAgent(PackedAgents.typeOf(agent), agent.getEnergy()));
+
+	}
+
+	/**
+	 * The given agent object is only used to determine the type and energy of
+	 * the agent to put in this cell, and is not kept.
+	 * 
+	 * @see ICell#putExistingAgent(IAgent)
+	 */
+	@Override
+	public void putExistingAgent(IAgent agent) {
+
+		/* Put existing agent according to the specified strategy. */
+		this.store.getPutExistingAgentStrategy().putAgent(this, LinkedAgents.EXISTING,
+				this.newAgent(PackedAgents.typeOf(agent), agent.getEnergy()));
+
+	}
+	
+	/**
+	 * Link an agent to the end of one of this cell's lists. Used by put agent
+	 * strategies.
+	 * 
+	 * @param list List identifier.
+	 * @param agent Agent index.
+	 */
+	void add(int list, int agent) {
+		this.store.append(this.idx, list, agent);
+	}
+	
+	/**
+	 * Link an agent in order in one of this cell's lists. Used by put agent 
+	 * strategies.
+	 * 
+	 * @param list List identifier.
+	 * @param agent Agent index.
+	 */
+	void addOrdered(int list, int agent) {
+		this.store.insertOrdered(this.idx, list, agent);
+	}
+
+	/**
+	 * @see ICell#getStats(IterationStats, AgentPool)
+	 */
+	@Override
+	public void getStats(IterationStats stats, AgentPool pool) {
+		
+		LinkedAgents store = this.store;
+		int head = LinkedAgents.END_OF_AG_LIST;
+		int tail = LinkedAgents.END_OF_AG_LIST;
+		
+		/* Count previously existing agents, unlinking and recycling the ones
+		 * which are dead. */
+		int ag = store.getHead(this.idx, LinkedAgents.AGENTS);
+		while (ag != LinkedAgents.END_OF_AG_LIST) {
+			
+			int next = store.getNext(ag);
+			
+			/* If he's alive, count him and keep him. */
+			if (store.getEnergy(ag) > 0) {
+				countAgent(stats, store, ag);
+				if (tail == LinkedAgents.END_OF_AG_LIST)
+					head = ag;
+				else
+					store.setNext(tail, ag);
+				tail = ag;
+			} else {
+				pool.recycleIndex(ag);
+			}
+			ag = next;
+		}
+		
+		/* Count newly born agents. */
+		int newHead = store.getHead(this.idx, LinkedAgents.NEW);
+		for (ag = newHead; ag != LinkedAgents.END_OF_AG_LIST; ag = store.getNext(ag)) {
+			countAgent(stats, store, ag);
+		}
+		
+		/* Append the new agents list to the current agents list, and clear
+		 * the former. */
+		if (newHead != LinkedAgents.END_OF_AG_LIST) {
+			if (tail == LinkedAgents.END_OF_AG_LIST)
+				head = newHead;
+			else
+				store.setNext(tail, newHead);
+			tail = store.getTail(this.idx, LinkedAgents.NEW);
+		} else if (tail != LinkedAgents.END_OF_AG_LIST) {
+			store.setNext(tail, LinkedAgents.END_OF_AG_LIST);
+		}
+		store.setList(this.idx, LinkedAgents.AGENTS, head, tail);
+		store.setList(this.idx, LinkedAgents.NEW, 
+				LinkedAgents.END_OF_AG_LIST, LinkedAgents.END_OF_AG_LIST);
+		
+	}
+
+	/**
+	 * @see ICell#agentActions(IRng, boolean, AgentPool)
+	 */
+	@Override
+	public void agentActions(IRng rng, boolean shuffle, AgentPool pool) {
+		
+		LinkedAgents store = this.store;
+		
+		/* Existing agents become the current agents. */
+		int head = store.getHead(this.idx, LinkedAgents.EXISTING);
+		store.setList(this.idx, LinkedAgents.AGENTS, head, 
+				store.getTail(this.idx, LinkedAgents.EXISTING));
+		store.setList(this.idx, LinkedAgents.EXISTING, 
+				LinkedAgents.END_OF_AG_LIST, LinkedAgents.END_OF_AG_LIST);
+		
+		/* Shuffle agents in the same way as Collections.shuffle() does, so 
+		 * that the random number generator is used exactly as in the object
+		 * model. Agent indexes are gathered in a buffer, shuffled, and 
+		 * relinked in the new order. */
+		if (shuffle && head != LinkedAgents.END_OF_AG_LIST
+				&& store.getNext(head) != LinkedAgents.END_OF_AG_LIST) {
+			
+			int numAgents = 0;
+			for (int ag = head; ag != LinkedAgents.END_OF_AG_LIST; ag = store.getNext(ag))
+				numAgents++;
+			
+			int[] buffer = pool.getIndexBuffer(numAgents);
+			int i = 0;
+			for (int ag = head; ag != LinkedAgents.END_OF_AG_LIST; ag = store.getNext(ag))
+				buffer[i++] = ag;
+			
+			for (i = numAgents; i > 1; i--) {
+				int j = rng.nextInt(i);
+				int aux = buffer[i - 1];
+				buffer[i - 1] = buffer[j];
+				buffer[j] = aux;
+			}
+			
+			for (i = 0; i < numAgents - 1; i++)
+				store.setNext(buffer[i], buffer[i + 1]);
+			store.setNext(buffer[numAgents - 1], LinkedAgents.END_OF_AG_LIST);
+			head = buffer[0];
+			store.setList(this.idx, LinkedAgents.AGENTS, head, 
+					buffer[numAgents - 1]);
+		}
+		
+		/* Cycle through agents in the current agents list. */
+		for (int ag = head; ag != LinkedAgents.END_OF_AG_LIST; ag = store.getNext(ag)) {
+			
+			/* If agent is alive, perform its actions. */
+			if (store.getEnergy(ag) > 0) {
+				
+				/* Maybe eat something. */
+				if (store.getType(ag) == PackedAgents.SHEEP)
+					this.sheepTryEat(ag);
+				else
+					this.wolfTryEat(ag, head);
+				
+				/* Maybe perform reproduction. */
+				this.tryReproduce(ag, rng, pool);
+			}
+		}
+		
+	}
+
+	/**
+	 * @see ICell#agentsMove(IRng, AgentPool, AgentOutbox)
+	 */
+	@Override
+	public void agentsMove(IRng rng, AgentPool pool, AgentOutbox outbox) {
+		
+		LinkedAgents store = this.store;
+		LinkedCellPutAgentStrategy putExistingAgentStrategy = 
+				store.getPutExistingAgentStrategy();
+		ICell[] cells = store.getCells();
+		ISpace space = store.getSpace();
+		
+		/*  Cycle through agents in the current agents list. The next agent is
+		 * obtained before the current one is linked in another list. */
+		int ag = store.getHead(this.idx, LinkedAgents.AGENTS);
+		while (ag != LinkedAgents.END_OF_AG_LIST) {
+			
+			int next = store.getNext(ag);
+			
+			/* Decrement agent energy. */
+			int energy = store.getEnergy(ag) - 1;
+			store.setEnergy(ag, energy);
+			
+			/* Move agent if he's still alive, otherwise recycle his index. */
+			if (energy > 0) {
+				
+				/* Choose a random direction. */
+				int direction = rng.nextInt(space.getNeighborhoodSize());
+				
+				/* Move agent. */
+				putExistingAgentStrategy.putAgent(
+						(LinkedCell) cells[space.getNeighbor(this.idx, direction)],
+						LinkedAgents.EXISTING, ag);
+			} else {
+				pool.recycleIndex(ag);
+			}
+			
+			ag = next;
+		}
+		
+		/* All agents moved out or died. */
+		store.setList(this.idx, LinkedAgents.AGENTS, 
+				LinkedAgents.END_OF_AG_LIST, LinkedAgents.END_OF_AG_LIST);
+		
+	}
+	
+	/**
+	 * @see ICell#clear()
+	 */
+	@Override
+	public void clear() {
+		
+		/* Agents are kept in the model-wide linked agent store, which is 
+		 * cleared as a whole when the model is reset. */
+		
+	}
+	
+	/**
+	 * Get a new agent index from the store, and set the agent's type and
+	 * energy.
+	 * 
+	 * @param type Agent type.
+	 * @param energy Agent energy.
+	 * @return Index of new agent.
+	 */
+	private int newAgent(byte type, int energy) {
+		int ag = this.store.reserve(1);
+		this.store.setType(ag, type);
+		this.store.setEnergy(ag, energy);
+		return ag;
+	}
+	
+	/**
+	 * Sheep with the given index tries to eat grass in this cell.
+	 * 
+	 * @param ag Index of sheep.
+	 */
+	private void sheepTryEat(int ag) {
+		
+		/* Check if grass is alive. */
+		if (this.isGrassAlive()) {
+			
+			/* Grass is alive, eat it... */
+			this.eatGrass();
+			
+			/* ...and gain energy from it. */
+			this.store.setEnergy(ag, this.store.getEnergy(ag) 
+					+ AgentRules.gainFromFood(PackedAgents.SHEEP, this.store.getParams()));
+		}
+	}
+	
+	/**
+	 * Wolf with the given index tries to eat a sheep in this cell.
+	 * 
+	 * @param ag Index of wolf.
+	 * @param head Index of first agent in current agents list.
+	 */
+	private void wolfTryEat(int ag, int head) {
+		
+		LinkedAgents store = this.store;
+		
+		/* Iterate over agents in this cell. */
+		for (int i = head; i != LinkedAgents.END_OF_AG_LIST; i = store.getNext(i)) {
+			
+			/* Check if agent is a sheep which is still alive (otherwise 
+			 * another wolf got to the sheep first). */
+			if (store.getType(i) == PackedAgents.SHEEP && store.getEnergy(i) > 0) {
+				
+				/* Eat sheep... */
+				store.setEnergy(i, 0);
+				
+				/* ...and gain energy from it. */
+				store.setEnergy(ag, store.getEnergy(ag) 
+						+ AgentRules.gainFromFood(PackedAgents.WOLF, store.getParams()));
+				
+				/* I can only eat one sheep, so get out of here. */
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Agent with the given index tries to reproduce.
+	 * 
+	 * @param ag Index of agent.
+	 * @param rng Random number generator used to try reproduction.
+	 * @param pool Pool from which the index of the offspring is obtained.
+	 */
+	private void tryReproduce(int ag, IRng rng, AgentPool pool) {
+		
+		LinkedAgents store = this.store;
+		byte type = store.getType(ag);
+		int energy = store.getEnergy(ag);
+		
+		/* Throw dice, see if agent reproduces. */
+		int childEnergy = AgentRules.offspringEnergy(
+				type, energy, store.getParams(), rng);
+		if (childEnergy != AgentRules.NO_OFFSPRING) {
+			
+			/* Create new agent with half of the energy of the current agent
+			 * and link it in the new agents list. */
+			int child = pool.newIndex(store);
+			store.setEnergy(ag, energy - childEnergy);
+			store.setType(child, type);
+			store.setEnergy(child, childEnergy);
+			store.append(this.idx, LinkedAgents.NEW, child);
+		}
+	}
+
+	/**
+	 * Update statistics with the given agent.
+	 * 
+	 * @param stats Statistics object to update.
+	 * @param store Store where the agent is kept.
+	 * @param ag Agent index.
+	 */
+	private static void countAgent(IterationStats stats, LinkedAgents store, int ag) {
+		AgentRules.countAgent(stats, store.getType(ag), store.getEnergy(ag));
+	}
+
+}
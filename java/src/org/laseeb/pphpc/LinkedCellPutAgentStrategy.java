@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+/**
+ * Strategies for linking an agent in one of the lists of a linked cell, used
+ * by the LINKED agent engine. Strategy design pattern.
+ * 
+ * @see LinkedAgents
+ * 
+ * @author Nuno Fachada
+ */
+public enum LinkedCellPutAgentStrategy {
+	
+	/** @see CellPutAgentMode#ASYNC */
+	ASYNC {
+		/** @see LinkedCellPutAgentStrategy#putAgent(LinkedCell, int, int) */
+		@Override
+		public void putAgent(LinkedCell cell, int list, int agent) {
+			cell.add(list, agent);
+		}
+	},
+	
+	/** @see CellPutAgentMode#SYNC */
+	SYNC {
+		/** @see LinkedCellPutAgentStrategy#putAgent(LinkedCell, int, int) */
+		@Override
+		public void putAgent(LinkedCell cell, int list, int agent) {
+			synchronized (cell) {
+				cell.add(list, agent);
+			}
+		}
+	},
+	
+	/** @see CellPutAgentMode#SYNC_ORDERED */
+	SYNC_ORDERED {
+		/** @see LinkedCellPutAgentStrategy#putAgent(LinkedCell, int, int) */
+		@Override
+		public void putAgent(LinkedCell cell, int list, int agent) {
+			synchronized (cell) {
+				cell.addOrdered(list, agent);
+			}
+		}
+	};
+	
+	/**
+	 * Link an agent in one of the lists of a linked cell using the behavior
+	 * of this strategy.
+	 * 
+	 * @param cell Linked cell.
+	 * @param list Identifier of list in cell, as defined in 
+	 * {@link LinkedAgents}.
+	 * @param agent Index of agent to link in list.
+	 */
+	public abstract void putAgent(LinkedCell cell, int list, int agent);
+	
+	/**
+	 * Get the strategy which links agents in the given mode.
+	 * 
+	 * @param mode How agents are put in cells.
+	 * @return The strategy which links agents in the given mode.
+	 * @throws IllegalArgumentException If linked agents can't be put in the
+	 * given mode.
+	 */
+	public static LinkedCellPutAgentStrategy forMode(CellPutAgentMode mode) {
+		switch (mode) {
+			case ASYNC:
+				return ASYNC;
+			case SYNC:
+				return SYNC;
+			case SYNC_ORDERED:
+				return SYNC_ORDERED;
+			default:
+				throw new IllegalArgumentException(
+						"Linked agents can't be put in mode " + mode);
+		}
+	}
+
+}
@@ -29,13 +29,12 @@ package org.laseeb.pphpc;
 import java.io.FileWriter;
 import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.uncommons.maths.random.SeedGenerator;
 
 /**
  * A concrete implementation of the simulation model, in the MVC sense.
@@ -44,15 +43,37 @@ import org.uncommons.maths.random.SeedGenerator;
  */
 public class Model implements IModel {
 	
+	/* Maximum number of pending events for each asynchronous observer, 
+	 * other than a new iteration event. */
+	private static final int ASYNC_EVENTS_CAPACITY = 16;
+	
+	/* Bound of the random draws which decide if agents reproduce. */
+	private static final int REPRODUCE_DRAW_BOUND = 100;
+	
 	/* Size of model (i.e. number of cells). */
 	private int size;
 	
 	/* Model parameters. */
 	private ModelParams params;
 	
-	/* Model cells. */
+	/* Model cells. Null if the agent engine keeps state off-heap, in which 
+	 * case there are no cell objects, and cells are accessed through the 
+	 * views of the off-heap store. */
 	private ICell cells[];
 	
+	/* Grass counters of all cells, kept contiguously so that grass can be
+	 * regenerated in bulk. Null if the agent engine keeps state off-heap. */
+	private int grass[];
+	
+	/* Model-wide agent store, only used by agent engines which do not keep
+	 * agents in the cells themselves. */
+	private IAgentStore agentStore = null;
+	
+	/* Off-heap store and grass counters, only used if the agent engine 
+	 * keeps state off-heap. */
+	private OffHeapStore offHeapStore = null;
+	private OffHeapIntArray offHeapGrass = null;
+	
 	/* Current iteration. */
 	private int currentIteration;
 	
@@ -62,11 +83,11 @@ public class Model implements IModel {
 	/* Simulation space. */
 	private ISpace space;
 	
-	/* Strategy for putting initial agents in cells. */
-	private ICellPutAgentStrategy putInitAgentStrategy;
+	/* How initial agents are put in cells. */
+	private CellPutAgentMode putInitAgentMode;
 	
-	/* Strategy for putting existing agents in cells. */
-	private ICellPutAgentStrategy putExistingAgentStrategy;
+	/* How existing agents are put in cells. */
+	private CellPutAgentMode putExistingAgentMode;
 	
 	/* Grass initialization strategy. */
 	private ICellGrassInitStrategy grassInitStrategy;
@@ -77,6 +98,10 @@ public class Model implements IModel {
 	/* Model event observers. */
 	private Map<ModelEvent, List<IModelEventObserver>> observers = null;
 	
+	/* Asynchronous observers which deliver events to each registered 
+	 * observer, null if events are delivered synchronously. */
+	private Map<IModelEventObserver, AsyncModelEventObserver> asyncObservers = null;
+	
 	/* Shuffle agents before they act? */
 	private boolean shuffle;
 	
@@ -86,32 +111,112 @@ public class Model implements IModel {
 	/* Random number generator seed. */
 	private BigInteger seed;
 	
+	/* Factory of the random number generator streams of each worker, 
+	 * replaced in each simulation. */
+	private IRNGStreamFactory rngStreams;
+	
+	/* Size of the buffers of movement and reproduction draws, zero if 
+	 * these draws are not buffered. */
+	private int rngBufferSize;
+	
+	/* Agent engine, i.e. how agents are kept in cells. */
+	private AgentEngineType agentEngine;
+	
+	/* Relocate moving agents with a counting sort by destination? */
+	private boolean relocate;
+	
+	/* Alternate the cell traversal direction in each pass? */
+	private boolean alternateTraversal;
+	
+	/* Outboxes through which workers move agents into cells processed by 
+	 * other workers, null if agents are put directly in other cells. */
+	private AgentOutbox[] agentOutboxes = null;
+	
+	/* Kernel for grass regrowth and statistics. */
+	private IGrassKernel grassKernel;
+	
+	/* Total number of agent objects allocated. */
+	private AtomicLong agentAllocations = new AtomicLong(0);
+	
 	/**
 	 * Create a new simulation model.
 	 * 
 	 * @param params Model parameters.
 	 * @param wFactory Work factory used to execute the simulation.
-	 * @param shuffle Shuffle agents before they act?
-	 * @param rngType Type of random number generator used in this model.
-	 * @param seed Random number generator seed. 
+	 * @param options Simulation options.
+	 * @throws IllegalArgumentException If the agent engine can't put agents 
+	 * in cells as required by the work factory.
 	 */
-	public Model(ModelParams params, IWorkFactory wFactory, boolean shuffle, 
-			RNGType rngType, BigInteger seed) {
+	public Model(ModelParams params, IWorkFactory wFactory, 
+			ModelOptions options) {
+		
+		RNGType rngType = options.getRngType();
+		AgentEngineType agentEngine = options.getAgentEngine();
 		
 		this.params = params;
 		this.space = new VonNeumann2DTorusSpace(
 				params.getGridX(), params.getGridY());
 		this.globalStats = wFactory.createGlobalStats(params.getIters());
-		this.putInitAgentStrategy = wFactory.createPutInitAgentStrategy();
-		this.putExistingAgentStrategy = 
-				wFactory.createPutExistingAgentStrategy();
+		if (rngType.isCounterBased()) {
+			
+			/* With counter-based generators, the random numbers used to 
+			 * process a cell only depend on the order of its agents. Agents
+			 * are sorted before being processed (or, with engines which 
+			 * can't sort agents once, inserted in order), so that 
+			 * simulations are reproducible with any strategy and number of 
+			 * workers. */
+			this.putInitAgentMode = 
+					agentEngine.supportsPutMode(CellPutAgentMode.SYNC_SORTED) 
+					? CellPutAgentMode.SYNC_SORTED 
+					: CellPutAgentMode.SYNC_ORDERED;
+			this.putExistingAgentMode = this.putInitAgentMode;
+			
+		} else {
+			
+			this.putInitAgentMode = wFactory.getPutInitAgentMode();
+			this.putExistingAgentMode = wFactory.getPutExistingAgentMode();
+		}
+		if (!agentEngine.supportsPutMode(this.putInitAgentMode))
+			throw new IllegalArgumentException("Agent engine " + agentEngine 
+					+ " can't put agents in mode " + this.putInitAgentMode);
+		if (!agentEngine.supportsPutMode(this.putExistingAgentMode))
+			throw new IllegalArgumentException("Agent engine " + agentEngine 
+					+ " can't put agents in mode " + this.putExistingAgentMode);
 		this.grassInitStrategy = new CellGrassInitCoinRandCounter();
 		this.currentIteration = 0;
 		this.size = space.getSize();
-		this.cells = new ICell[this.size];
-		this.shuffle = shuffle;
+		if (!agentEngine.isOffHeap())
+			this.cells = new ICell[this.size];
+		this.agentStore = agentEngine.createStore(params, this.cells, 
+				this.space, this.putInitAgentMode, 
+				this.putExistingAgentMode, options.getOffHeapMemory());
+		if (agentEngine.isOffHeap()) {
+			this.offHeapStore = (OffHeapStore) this.agentStore;
+			this.offHeapGrass = this.offHeapStore.getGrass();
+		} else {
+			this.grass = new int[this.size];
+		}
+		this.shuffle = options.isShuffle();
 		this.rngType = rngType;
-		this.seed = seed;
+		this.seed = options.getSeed();
+		this.rngStreams = rngType.createStreamFactory(this.seed);
+		this.rngBufferSize = rngType.isCounterBased() 
+				? 0 : options.getRngBufferSize();
+		this.agentEngine = agentEngine;
+		this.relocate = options.isRelocate();
+		this.alternateTraversal = options.isAlternateTraversal();
+		if (options.isOutbox()) {
+			this.agentOutboxes = new AgentOutbox[wFactory.getNumWorkers()];
+			for (int w = 0; w < this.agentOutboxes.length; w++)
+				this.agentOutboxes[w] = 
+					new AgentOutbox(this, w, this.agentOutboxes.length);
+		}
+		this.grassKernel = options.getGrassKernelType()
+				.createKernel(params.getGrassRestart());
+		if (options.isAsyncEvents()) {
+			this.asyncObservers = 
+					new IdentityHashMap<IModelEventObserver, AsyncModelEventObserver>();
+		}
 
 	}
 	
@@ -123,6 +228,14 @@ public class Model implements IModel {
 		return shuffle;
 	}
 
+	/**
+	 * @see IModelQuerier#isAlternateTraversal()
+	 */
+	@Override
+	public boolean isAlternateTraversal() {
+		return this.alternateTraversal;
+	}
+
 	/**
 	 * @see IModelQuerier#getSize()
 	 */
@@ -136,17 +249,11 @@ public class Model implements IModel {
 	 */
 	@Override
 	public ICell getCell(int idx) {
+		if (this.cells == null)
+			return this.offHeapStore.getCell(idx);
 		return this.cells[idx];
 	}
 
-	/**
-	 * @see IModelManipulator#setCellNeighbors(int)
-	 */
-	@Override
-	public void setCellNeighbors(int idx) {
-		this.space.setNeighbors(cells, idx);
-	}
-
 	/**
 	 * @see IModelQuerier#getParams()
 	 */
@@ -173,30 +280,110 @@ public class Model implements IModel {
 	}
 
 	/**
-	 * @see IModelManipulator#initCellAt(int, Random)
+	 * @see IModelManipulator#initCellAt(int, IRng)
+	 */
+	@Override
+	public void initCellAt(int idx, IRng rng) {
+		int initGrass = this.grassInitStrategy.getInitGrass(
+				params.getGrassRestart(), rng);
+		if (this.offHeapGrass != null)
+			this.offHeapGrass.set(idx, initGrass);
+		else
+			this.grass[idx] = initGrass;
+		
+		/* Cells are only created in the first simulation, and reused 
+		 * afterwards, since the model reset clears them. Engines which keep
+		 * state off-heap have no cell objects. */
+		if (this.cells != null && this.cells[idx] == null) {
+			this.cells[idx] = this.agentEngine.createCell(params, 
+					this.grass, this.agentStore, idx, this.cells, this.space,
+					this.putInitAgentMode, this.putExistingAgentMode,
+					this.relocate);
+		}
+	}
+	
+	/**
+	 * @see IModelManipulator#regenerateGrass(int, int)
+	 */
+	@Override
+	public void regenerateGrass(int from, int to) {
+		if (this.offHeapGrass != null) {
+			
+			/* Off-heap grass is split in chunks, process each chunk in the
+			 * given range separately. */
+			OffHeapIntArray grass = this.offHeapGrass;
+			for (int i = from, end; i < to; i = end) {
+				end = Math.min(to, grass.chunkEnd(i));
+				this.grassKernel.regenerate(grass.chunk(i), 
+						grass.chunkOffset(i), grass.chunkOffset(i) + end - i);
+			}
+			
+		} else {
+			this.grassKernel.regenerate(this.grass, from, to);
+		}
+	}
+	
+	/**
+	 * @see IModelManipulator#getGrassStats(int, int, IterationStats)
 	 */
 	@Override
-	public void initCellAt(int idx, Random rng) {
-		if (this.cells[idx] == null) {
-			this.cells[idx] = new Cell(params.getGrassRestart(), 
-					this.grassInitStrategy.getInitGrass(params.getGrassRestart(), 
-							rng),
-					this.putInitAgentStrategy, this.putExistingAgentStrategy);
+	public void getGrassStats(int from, int to, IterationStats stats) {
+		if (this.offHeapGrass != null) {
+			
+			/* Off-heap grass is split in chunks, process each chunk in the
+			 * given range separately. */
+			OffHeapIntArray grass = this.offHeapGrass;
+			for (int i = from, end; i < to; i = end) {
+				end = Math.min(to, grass.chunkEnd(i));
+				this.grassKernel.getStats(grass.chunk(i), 
+						grass.chunkOffset(i), grass.chunkOffset(i) + end - i,
+						stats);
+			}
+			
 		} else {
-			throw new IllegalStateException("Cell " + idx + " already set!");
+			this.grassKernel.getStats(this.grass, from, to, stats);
 		}
 	}
 	
+	/**
+	 * @see IModelManipulator#getAgentOutbox(int)
+	 */
+	@Override
+	public AgentOutbox getAgentOutbox(int wId) {
+		return this.agentOutboxes != null ? this.agentOutboxes[wId] : null;
+	}
+	
 	/**
 	 * @see IModelManipulator#reset()
 	 */
 	@Override
 	public void reset() {
-		Arrays.fill(this.cells, null);
+		
+		/* Cells are cleared instead of being discarded, so that they and
+		 * their agent keeping structures are reused in the next simulation. */
+		if (this.cells != null)
+			for (ICell cell : this.cells)
+				if (cell != null) cell.clear();
+		if (this.agentStore != null)
+			this.agentStore.reset();
+		if (this.agentOutboxes != null)
+			for (AgentOutbox outbox : this.agentOutboxes)
+				outbox.clear();
 		this.globalStats.reset();
+		this.rngStreams = this.rngType.createStreamFactory(this.seed);
+		this.agentAllocations.set(0);
 		this.currentIteration = 0;
 	}
 	
+	/**
+	 * @see IModelManipulator#dispose()
+	 */
+	@Override
+	public void dispose() {
+		if (this.offHeapStore != null)
+			this.offHeapStore.close();
+	}
+	
 	/**
 	 * @see IModelManipulator#start()
 	 */
@@ -297,13 +484,20 @@ public class Model implements IModel {
 	 * @see IModelQuerier#createRNG(int)
 	 */
 	@Override
-	public Random createRNG(int modifier) throws Exception {
+	public IRng createRNG(int modifier) throws Exception {
 		
-		/* Instantiate the seed generator for the PPHPC model. */
-		SeedGenerator seedGen = new ModelSeedGenerator(modifier, this.seed);
+		/* Create the random number generator stream of the worker. */
+		IRng rng = this.rngStreams.createStream(modifier);
 		
-		/* Create and return the random number generator. */
-		return rngType.createRNG(seedGen);
+		/* Movement and reproduction draws, if buffered, are generated in 
+		 * bulk. */
+		if (this.rngBufferSize > 0) {
+			rng = new BufferedRng(rng, this.rngBufferSize, 
+					this.space.getNeighborhoodSize(), REPRODUCE_DRAW_BOUND);
+		}
+		
+		/* Return the random number generator. */
+		return rng;
 	}
 	
 	/**
@@ -323,6 +517,19 @@ public class Model implements IModel {
 			}
 		}
 		
+		/* If events are delivered asynchronously, register the asynchronous
+		 * observer of the given observer instead, the same for all events. */
+		if (this.asyncObservers != null) {
+			synchronized (this.asyncObservers) {
+				AsyncModelEventObserver asyncObserver = this.asyncObservers.get(observer);
+				if (asyncObserver == null) {
+					asyncObserver = new AsyncModelEventObserver(observer, ASYNC_EVENTS_CAPACITY);
+					this.asyncObservers.put(observer, asyncObserver);
+				}
+				observer = asyncObserver;
+			}
+		}
+		
 		if (event == null) {
 			for (List<IModelEventObserver> listOfObservers : this.observers.values()) {
 				listOfObservers.add(observer);
@@ -349,11 +556,45 @@ public class Model implements IModel {
 	}
 
 	/**
-	 * @see IModelManipulator#updateStats(int, IterationStats)
+	 * @see IModelManipulator#updateStats(int, int, IterationStats)
+	 */
+	@Override
+	public void updateStats(int wId, int iter, IterationStats iterStats) {
+		this.globalStats.updateStats(wId, iter, iterStats);
+	}
+	
+	/**
+	 * @see IModelManipulator#updateAgentAllocations(long)
+	 */
+	@Override
+	public void updateAgentAllocations(long allocations) {
+		this.agentAllocations.addAndGet(allocations);
+	}
+	
+	/**
+	 * @see IModelQuerier#getAgentAllocations()
 	 */
 	@Override
-	public void updateStats(int iter, IterationStats iterStats) {
-		this.globalStats.updateStats(iter, iterStats);
+	public long getAgentAllocations() {
+		return this.agentAllocations.get();
+	}
+	
+	/**
+	 * @see IModelQuerier#getEventReport()
+	 */
+	@Override
+	public String getEventReport() {
+		
+		if (this.asyncObservers == null) return null;
+		
+		StringBuilder report = new StringBuilder();
+		synchronized (this.asyncObservers) {
+			for (AsyncModelEventObserver asyncObserver : this.asyncObservers.values()) {
+				if (report.length() > 0) report.append("\n");
+				report.append(asyncObserver.getReport());
+			}
+		}
+		return report.toString();
 	}
 	
 	/**
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.math.BigInteger;
+
+/**
+ * Simulation options of a {@link Model}, i.e. how the model is simulated, as
+ * opposed to the {@link ModelParams model parameters}. Options have sensible
+ * defaults, and each setter returns this object, so that only the options 
+ * which differ from the defaults need to be set.
+ * 
+ * @author Nuno Fachada
+ */
+public class ModelOptions {
+	
+	/* Shuffle agents before they act? */
+	private boolean shuffle = true;
+	
+	/* Type of random number generator. */
+	private RNGType rngType = RNGType.MT;
+	
+	/* Random number generator seed. */
+	private BigInteger seed = BigInteger.valueOf(System.nanoTime());
+	
+	/* Agent engine, i.e. how agents are kept in cells. */
+	private AgentEngineType agentEngine = AgentEngineType.OBJECT;
+	
+	/* Type of kernel for grass regrowth and statistics. */
+	private GrassKernelType grassKernelType = GrassKernelType.SCALAR;
+	
+	/* Source of off-heap memory, null for direct buffers. */
+	private OffHeapMemory offHeapMemory = null;
+	
+	/* Relocate moving agents with a counting sort by destination? */
+	private boolean relocate = false;
+	
+	/* Alternate the cell traversal direction in each pass? */
+	private boolean alternateTraversal = false;
+	
+	/* Move agents into cells processed by other workers through outboxes? */
+	private boolean outbox = false;
+	
+	/* Deliver events to each observer in a separate thread? */
+	private boolean asyncEvents = false;
+	
+	/* Number of random draws generated in bulk, zero for one at a time. */
+	private int rngBufferSize = 0;
+	
+	/**
+	 * Shuffle agents before they act? Default is true.
+	 * 
+	 * @param shuffle Shuffle agents before they act?
+	 * @return These options.
+	 */
+	public ModelOptions setShuffle(boolean shuffle) {
+		this.shuffle = shuffle;
+		return this;
+	}
+	
+	/**
+	 * Set the type of random number generator. Default is 
+	 * {@link RNGType#MT}.
+	 * 
+	 * @param rngType Type of random number generator.
+	 * @return These options.
+	 */
+	public ModelOptions setRngType(RNGType rngType) {
+		this.rngType = rngType;
+		return this;
+	}
+	
+	/**
+	 * Set the random number generator seed. Default is based on the time at
+	 * which these options were created.
+	 * 
+	 * @param seed Random number generator seed.
+	 * @return These options.
+	 */
+	public ModelOptions setSeed(BigInteger seed) {
+		this.seed = seed;
+		return this;
+	}
+	
+	/**
+	 * Set the agent engine, i.e. how agents are kept in cells. Default is 
+	 * {@link AgentEngineType#OBJECT}.
+	 * 
+	 * @param agentEngine Agent engine.
+	 * @return These options.
+	 */
+	public ModelOptions setAgentEngine(AgentEngineType agentEngine) {
+		this.agentEngine = agentEngine;
+		return this;
+	}
+	
+	/**
+	 * Set the type of kernel for grass regrowth and statistics. Default is
+	 * {@link GrassKernelType#SCALAR}.
+	 * 
+	 * @param grassKernelType Type of kernel for grass regrowth and statistics.
+	 * @return These options.
+	 */
+	public ModelOptions setGrassKernelType(GrassKernelType grassKernelType) {
+		this.grassKernelType = grassKernelType;
+		return this;
+	}
+	
+	/**
+	 * Set the source of off-heap memory for agent engines which keep state 
+	 * off-heap. Default is null, in which case direct buffers are used.
+	 * 
+	 * @param offHeapMemory Source of off-heap memory, or null.
+	 * @return These options.
+	 */
+	public ModelOptions setOffHeapMemory(OffHeapMemory offHeapMemory) {
+		this.offHeapMemory = offHeapMemory;
+		return this;
+	}
+	
+	/**
+	 * Relocate moving agents with a counting sort by destination, instead of
+	 * putting them directly in the destination cells? Default is false.
+	 * 
+	 * @param relocate Relocate moving agents?
+	 * @return These options.
+	 */
+	public ModelOptions setRelocate(boolean relocate) {
+		this.relocate = relocate;
+		return this;
+	}
+	
+	/**
+	 * Alternate the direction in which workers traverse their cells in each
+	 * pass over the grid? Default is false.
+	 * 
+	 * @param alternateTraversal Alternate the cell traversal direction?
+	 * @return These options.
+	 */
+	public ModelOptions setAlternateTraversal(boolean alternateTraversal) {
+		this.alternateTraversal = alternateTraversal;
+		return this;
+	}
+	
+	/**
+	 * Move agents into cells processed by other workers through per-worker
+	 * outboxes, instead of putting them directly in those cells? Default is 
+	 * false.
+	 * 
+	 * @param outbox Move agents through outboxes?
+	 * @return These options.
+	 */
+	public ModelOptions setOutbox(boolean outbox) {
+		this.outbox = outbox;
+		return this;
+	}
+	
+	/**
+	 * Deliver events to each observer in a separate thread, instead of in 
+	 * the thread which caused the event? Default is false.
+	 * 
+	 * @param asyncEvents Deliver events asynchronously?
+	 * @return These options.
+	 */
+	public ModelOptions setAsyncEvents(boolean asyncEvents) {
+		this.asyncEvents = asyncEvents;
+		return this;
+	}
+	
+	/**
+	 * Set the number of movement and reproduction draws generated in bulk by
+	 * each worker (ignored for counter-based generators). Default is zero, 
+	 * i.e. one draw at a time.
+	 * 
+	 * @param rngBufferSize Number of draws generated in bulk, or zero.
+	 * @return These options.
+	 */
+	public ModelOptions setRngBufferSize(int rngBufferSize) {
+		this.rngBufferSize = rngBufferSize;
+		return this;
+	}
+	
+	/**
+	 * Check if agents are shuffled before they act.
+	 * 
+	 * @return Shuffle agents before they act?
+	 */
+	public boolean isShuffle() {
+		return this.shuffle;
+	}
+	
+	/**
+	 * Get type of random number generator.
+	 * 
+	 * @return Type of random number generator.
+	 */
+	public RNGType getRngType() {
+		return this.rngType;
+	}
+	
+	/**
+	 * Get random number generator seed.
+	 * 
+	 * @return Random number generator seed.
+	 */
+	public BigInteger getSeed() {
+		return this.seed;
+	}
+	
+	/**
+	 * Get agent engine.
+	 * 
+	 * @return Agent engine.
+	 */
+	public AgentEngineType getAgentEngine() {
+		return this.agentEngine;
+	}
+	
+	/**
+	 * Get type of kernel for grass regrowth and statistics.
+	 * 
+	 * @return Type of kernel for grass regrowth and statistics.
+	 */
+	public GrassKernelType getGrassKernelType() {
+		return this.grassKernelType;
+	}
+	
+	/**
+	 * Get source of off-heap memory.
+	 * 
+	 * @return Source of off-heap memory, or null for direct buffers.
+	 */
+	public OffHeapMemory getOffHeapMemory() {
+		return this.offHeapMemory;
+	}
+	
+	/**
+	 * Check if moving agents are relocated.
+	 * 
+	 * @return Relocate moving agents?
+	 */
+	public boolean isRelocate() {
+		return this.relocate;
+	}
+	
+	/**
+	 * Check if the cell traversal direction is alternated.
+	 * 
+	 * @return Alternate the cell traversal direction?
+	 */
+	public boolean isAlternateTraversal() {
+		return this.alternateTraversal;
+	}
+	
+	/**
+	 * Check if agents are moved through outboxes.
+	 * 
+	 * @return Move agents through outboxes?
+	 */
+	public boolean isOutbox() {
+		return this.outbox;
+	}
+	
+	/**
+	 * Check if events are delivered asynchronously.
+	 * 
+	 * @return Deliver events asynchronously?
+	 */
+	public boolean isAsyncEvents() {
+		return this.asyncEvents;
+	}
+	
+	/**
+	 * Get number of random draws generated in bulk.
+	 * 
+	 * @return Number of random draws generated in bulk, or zero.
+	 */
+	public int getRngBufferSize() {
+		return this.rngBufferSize;
+	}
+
+}
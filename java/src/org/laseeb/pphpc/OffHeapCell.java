@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+
+/**
+ * View of a PPHPC model cell whose grass counter and agents are kept in an 
+ * {@link OffHeapStore}. Agents are packed as in {@link PackedCell}, and the 
+ * simulation dynamics are exactly the same as in {@link Cell}, such that both
+ * produce identical statistics for the same seed and parallelization 
+ * strategy. Since all state is kept off-heap, there are no cell objects: 
+ * each thread reuses a single view, which is moved to the cell being 
+ * processed by {@link OffHeapStore#getCell(int)}.
+ * 
+ * @author Nuno Fachada
+ */
+public class OffHeapCell implements ICell {
+	
+	/* Store where the state of the cells is kept. */
+	private final OffHeapStore store;
+	
+	/* Index of the cell currently viewed. */
+	private int idx;
+
+	/**
+	 * Create a new view of the cells kept in the given store.
+	 * 
+	 * @param store Store where the state of the cells is kept.
+	 */
+	OffHeapCell(OffHeapStore store) {
+		this.store = store;
+	}
+	
+	/**
+	 * Move this view to the given cell.
+	 * 
+	 * @param idx Index of the cell to view.
+	 * @return This view.
+	 */
+	OffHeapCell moveTo(int idx) {
+		this.idx = idx;
+		return this;
+	}
+
+	/**
+	 * @see ICell#isGrassAlive()
+	 */
+	@Override
+	public boolean isGrassAlive() {
+		return this.store.getGrass().get(this.idx) == 0;
+	}
+
+	/**
+	 * @see ICell#eatGrass()
+	 */
+	@Override
+	public void eatGrass() {
+		this.store.getGrass().set(this.idx, this.getGrassRestart());
+	}
+
+	/**
+	 * @see ICell#getGrassRestart()
+	 */
+	@Override
+	public int getGrassRestart() {
+		return this.store.getParams().getGrassRestart();
+	}
+
+	/**
+	 * The given agent object is only used to determine the type and energy of
+	 * the agent to put in this cell, and is not kept.
+	 * 
+	 * @see ICell#putInitAgent(IAgent)
+	 */
+	@Override
+	public void putInitAgent(IAgent agent) {
+		
+		/* Put initial agent according to the specified strategy. */
+		this.store.getPutInitAgentStrategy().putAgent(this.store, this.idx, OffHeapStore.NEW,
+				PackedAgents.profile(PackedAgents.typeOf(agent), agent.getEnergy()));
+		
+	}
+
+	/**
+	 * The given agent object is only used to determine the type and energy of
+	 * the agent to put in this cell, and is not kept.
+	 * 
+	 * @see ICell#putNewAgent(IAgent)
+	 */
+	@Override
+	public void putNewAgent(IAgent agent) {
+		
+		/* Put new agent in new agent list. */
+		this.store.add(this.idx, OffHeapStore.NEW,
+				PackedAgents.profile(PackedAgents.typeOf(agent), agent.getEnergy()));
+
+	}
+
+	/**
+	 * The given agent object is only used to determine the type and energy of
+	 * the agent to put in this cell, and is not kept.
+	 * 
+	 * @see ICell#putExistingAgent(IAgent)
+	 */
+	@Override
+	public void putExistingAgent(IAgent agent) {
+
+		/* Put existing agent according to the specified strategy. */
+		this.store.getPutExistingAgentStrategy().putAgent(this.store, this.idx, OffHeapStore.EXISTING,
+				PackedAgents.profile(PackedAgents.typeOf(agent), agent.getEnergy()));
+
+	}
+	
+	/**
+	 * @see ICell#getStats(IterationStats, AgentPool)
+	 */
+	@Override
+	public void getStats(IterationStats stats, AgentPool pool) {
+		
+		OffHeapStore store = this.store;
+		int numAgents = store.size(this.idx, OffHeapStore.AGENTS);
+		int base = store.base(this.idx, OffHeapStore.AGENTS);
+		int numAlive = 0;
+		
+		/* Count previously existing agents, keeping the ones which are alive
+		 * at the start of the list. */
+		for (int i = 0; i < numAgents; i++) {
+			
+			int agent = store.get(base + i);
+			
+			/* If he's alive, count him and keep him. */
+			if (energyOf(agent) > 0) {
+				countAgent(stats, agent);
+				store.set(base + numAlive, agent);
+				numAlive++;
+			}
+		}
+		store.truncate(this.idx, OffHeapStore.AGENTS, numAlive);
+		
+		/* Count newly born agents, append them to the list. */
+		int numNew = store.size(this.idx, OffHeapStore.NEW);
+		int newBase = store.base(this.idx, OffHeapStore.NEW);
+		for (int i = 0; i < numNew; i++) {
+			
+			int agent = store.get(newBase + i);
+			countAgent(stats, agent);
+			store.add(this.idx, OffHeapStore.AGENTS, agent);
+			
+		}
+		
+		/* Clear the new agents list. */
+		store.clear(this.idx, OffHeapStore.NEW);
+		
+	}
+
+	/**
+	 * @see ICell#agentActions(IRng, boolean, AgentPool)
+	 */
+	@Override
+	public void agentActions(IRng rng, boolean shuffle, AgentPool pool) {
+		
+		OffHeapStore store = this.store;
+		
+		/* Swap current agents list and existing agents list. */
+		store.swapLists(this.idx, OffHeapStore.AGENTS, OffHeapStore.EXISTING);
+		store.clear(this.idx, OffHeapStore.EXISTING);
+		
+		/* The current agents list doesn't change size from here on. */
+		int numAgents = store.size(this.idx, OffHeapStore.AGENTS);
+		int base = store.base(this.idx, OffHeapStore.AGENTS);
+		
+		/* Shuffle agents in the same way as Collections.shuffle() does, so 
+		 * that the random number generator is used exactly as in the object
+		 * model. */
+		if (shuffle) {
+			for (int i = numAgents; i > 1; i--) {
+				int j = rng.nextInt(i);
+				int aux = store.get(base + i - 1);
+				store.set(base + i - 1, store.get(base + j));
+				store.set(base + j, aux);
+			}
+		}
+		
+		/* Cycle through agents in the current agents list. */
+		for (int i = 0; i < numAgents; i++) {
+			
+			int agent = store.get(base + i);
+			
+			/* If agent is alive, perform its actions. */
+			if (energyOf(agent) > 0) {
+				
+				/* Maybe eat something. */
+				if (typeOf(agent) == PackedAgents.SHEEP)
+					this.sheepTryEat(base + i);
+				else
+					this.wolfTryEat(base + i, base, numAgents);
+				
+				/* Maybe perform reproduction. */
+				this.tryReproduce(base + i, rng);
+			}
+		}
+		
+	}
+
+	/**
+	 * @see ICell#agentsMove(IRng, AgentPool, AgentOutbox)
+	 */
+	@Override
+	public void agentsMove(IRng rng, AgentPool pool, AgentOutbox outbox) {
+		
+		OffHeapStore store = this.store;
+		int numAgents = store.size(this.idx, OffHeapStore.AGENTS);
+		int base = store.base(this.idx, OffHeapStore.AGENTS);
+		OffHeapCellPutAgentStrategy putExistingAgentStrategy = 
+				store.getPutExistingAgentStrategy();
+		ISpace space = store.getSpace();
+		
+		/*  Cycle through agents in the current agents list. */
+		for (int i = 0; i < numAgents; i++) {
+			
+			/* Decrement agent energy. */
+			int agent = store.get(base + i) - (1 << 2);
+			store.set(base + i, agent);
+			
+			/* Move agent if he's still alive. */
+			if (energyOf(agent) > 0) {
+				
+				/* Choose a random direction. */
+				int direction = rng.nextInt(space.getNeighborhoodSize());
+				
+				/* Move agent. */
+				putExistingAgentStrategy.putAgent(store,
+						space.getNeighbor(this.idx, direction),
+						OffHeapStore.EXISTING, agent);
+			}
+		}
+		
+	}
+	
+	/**
+	 * @see ICell#clear()
+	 */
+	@Override
+	public void clear() {
+		
+		/* Agents are kept in the off-heap store, which is cleared as a 
+		 * whole when the model is reset. */
+		
+	}
+	
+	/**
+	 * Sheep at the given arena index tries to eat grass in this cell.
+	 * 
+	 * @param ag Arena index of sheep.
+	 */
+	private void sheepTryEat(int ag) {
+		
+		/* Check if grass is alive. */
+		if (this.isGrassAlive()) {
+			
+			/* Grass is alive, eat it... */
+			this.eatGrass();
+			
+			/* ...and gain energy from it. */
+			this.store.set(ag, this.store.get(ag) + (AgentRules.gainFromFood(
+					PackedAgents.SHEEP, this.store.getParams()) << 2));
+		}
+	}
+	
+	/**
+	 * Wolf at the given arena index tries to eat a sheep in this cell.
+	 * 
+	 * @param ag Arena index of wolf.
+	 * @param base Arena index of first agent in current agents list.
+	 * @param numAgents Number of agents in current agents list.
+	 */
+	private void wolfTryEat(int ag, int base, int numAgents) {
+		
+		OffHeapStore store = this.store;
+		
+		/* Iterate over agents in this cell. */
+		for (int i = base; i < base + numAgents; i++) {
+			
+			int agent = store.get(i);
+			
+			/* Check if agent is a sheep which is still alive (otherwise 
+			 * another wolf got to the sheep first). */
+			if (typeOf(agent) == PackedAgents.SHEEP && energyOf(agent) > 0) {
+				
+				/* Eat sheep... */
+				store.set(i, PackedAgents.profile(PackedAgents.SHEEP, 0));
+				
+				/* ...and gain energy from it. */
+				store.set(ag, store.get(ag) + (AgentRules.gainFromFood(
+						PackedAgents.WOLF, store.getParams()) << 2));
+				
+				/* I can only eat one sheep, so get out of here. */
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Agent at the given arena index tries to reproduce.
+	 * 
+	 * @param ag Arena index of agent.
+	 * @param rng Random number generator used to try reproduction.
+	 */
+	private void tryReproduce(int ag, IRng rng) {
+		
+		int agent = this.store.get(ag);
+		byte type = typeOf(agent);
+		int energy = energyOf(agent);
+		
+		/* Throw dice, see if agent reproduces. */
+		int childEnergy = AgentRules.offspringEnergy(
+				type, energy, this.store.getParams(), rng);
+		if (childEnergy != AgentRules.NO_OFFSPRING) {
+			
+			/* Create new agent with half of the energy of the current agent
+			 * and put it in the new agents list. */
+			this.store.set(ag, PackedAgents.profile(type, energy - childEnergy));
+			this.store.add(this.idx, OffHeapStore.NEW, 
+					PackedAgents.profile(type, childEnergy));
+		}
+	}
+
+	/**
+	 * Update statistics with the given packed agent.
+	 * 
+	 * @param stats Statistics object to update.
+	 * @param agent Packed agent.
+	 */
+	private static void countAgent(IterationStats stats, int agent) {
+		AgentRules.countAgent(stats, typeOf(agent), energyOf(agent));
+	}
+	
+	/**
+	 * Get the type of a packed agent.
+	 * 
+	 * @param agent Packed agent.
+	 * @return Agent type.
+	 */
+	private static byte typeOf(int agent) {
+		return (byte) (agent & 0x3);
+	}
+	
+	/**
+	 * Get the energy of a packed agent.
+	 * 
+	 * @param agent Packed agent.
+	 * @return Agent energy.
+	 */
+	private static int energyOf(int agent) {
+		return agent >> 2;
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+/**
+ * Strategies for putting a packed agent in one of the lists of an off-heap 
+ * cell, used by the OFFHEAP agent engine. Strategy design pattern.
+ * 
+ * @see OffHeapStore
+ * 
+ * @author Nuno Fachada
+ */
+public enum OffHeapCellPutAgentStrategy {
+	
+	/** @see CellPutAgentMode#ASYNC */
+	ASYNC {
+		/** @see OffHeapCellPutAgentStrategy#putAgent(OffHeapStore, int, int, int) */
+		@Override
+		public void putAgent(OffHeapStore store, int cell, int list, int agent) {
+			store.add(cell, list, agent);
+		}
+	},
+	
+	/** @see CellPutAgentMode#SYNC */
+	SYNC {
+		/** @see OffHeapCellPutAgentStrategy#putAgent(OffHeapStore, int, int, int) */
+		@Override
+		public void putAgent(OffHeapStore store, int cell, int list, int agent) {
+			synchronized (store.getLock(cell)) {
+				store.add(cell, list, agent);
+			}
+		}
+	},
+	
+	/** @see CellPutAgentMode#SYNC_ORDERED */
+	SYNC_ORDERED {
+		/** @see OffHeapCellPutAgentStrategy#putAgent(OffHeapStore, int, int, int) */
+		@Override
+		public void putAgent(OffHeapStore store, int cell, int list, int agent) {
+			synchronized (store.getLock(cell)) {
+				store.addOrdered(cell, list, agent);
+			}
+		}
+	};
+	
+	/**
+	 * Put a packed agent in one of the lists of an off-heap cell using the
+	 * behavior of this strategy.
+	 * 
+	 * @param store Off-heap store where the cell is kept.
+	 * @param cell Index of the cell.
+	 * @param list Identifier of list in cell, as defined in 
+	 * {@link OffHeapStore}.
+	 * @param agent Packed agent to put in list.
+	 */
+	public abstract void putAgent(OffHeapStore store, int cell, int list, int agent);
+	
+	/**
+	 * Get the strategy which puts off-heap agents in the given mode.
+	 * 
+	 * @param mode How agents are put in cells.
+	 * @return The strategy which puts off-heap agents in the given mode.
+	 * @throws IllegalArgumentException If off-heap agents can't be put in 
+	 * the given mode.
+	 */
+	public static OffHeapCellPutAgentStrategy forMode(CellPutAgentMode mode) {
+		switch (mode) {
+			case ASYNC:
+				return ASYNC;
+			case SYNC:
+				return SYNC;
+			case SYNC_ORDERED:
+				return SYNC_ORDERED;
+			default:
+				throw new IllegalArgumentException(
+						"Off-heap agents can't be put in mode " + mode);
+		}
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An array of integers kept in off-heap memory. Since a single buffer is 
+ * limited to 2GB, the array is split in chunks of equal size (except possibly
+ * the last one), each one kept in its own buffer. The array can grow, in 
+ * which case new chunks are allocated, but existing elements never move.
+ * 
+ * @author Nuno Fachada
+ */
+public class OffHeapIntArray {
+	
+	/** Log2 of the maximum number of integers in a chunk (256MB chunks). */
+	public static final int MAX_CHUNK_SHIFT = 26;
+
+	/* Source of off-heap memory. */
+	private OffHeapMemory memory;
+	
+	/* Log2 of number of integers in a chunk. */
+	private int chunkShift;
+	
+	/* Mask which yields the index of an integer within its chunk. */
+	private int chunkMask;
+	
+	/* Chunks of this array. */
+	private ByteBuffer[] chunks;
+	
+	/* Number of integers in this array. */
+	private int length;
+	
+	/**
+	 * Create a new zero-filled off-heap array of integers.
+	 * 
+	 * @param memory Source of off-heap memory.
+	 * @param chunkShift Log2 of the number of integers in each chunk, at most
+	 * {@link #MAX_CHUNK_SHIFT}.
+	 * @param length Initial length of the array.
+	 */
+	public OffHeapIntArray(OffHeapMemory memory, int chunkShift, int length) {
+		
+		if (chunkShift < 0 || chunkShift > MAX_CHUNK_SHIFT)
+			throw new IllegalArgumentException("Invalid chunk size: 2^" + chunkShift);
+		
+		this.memory = memory;
+		this.chunkShift = chunkShift;
+		this.chunkMask = (1 << chunkShift) - 1;
+		this.chunks = new ByteBuffer[(Integer.MAX_VALUE >>> chunkShift) + 1];
+		this.length = 0;
+		
+		/* Allocate chunks, the last one only as large as required. */
+		while (this.length < length) {
+			int chunkInts = Math.min(length - this.length, this.chunkMask + 1);
+			this.chunks[this.length >>> chunkShift] = memory.allocate(chunkInts << 2);
+			this.length += chunkInts;
+		}
+	}
+	
+	/**
+	 * Return the length of this array.
+	 * 
+	 * @return The length of this array.
+	 */
+	public int length() {
+		return this.length;
+	}
+	
+	/**
+	 * Get the integer at the given index.
+	 * 
+	 * @param idx Index of integer.
+	 * @return The integer at the given index.
+	 */
+	public int get(int idx) {
+		return this.chunks[idx >>> this.chunkShift].getInt((idx & this.chunkMask) << 2);
+	}
+
+	/**
+	 * Set the integer at the given index.
+	 * 
+	 * @param idx Index of integer.
+	 * @param value Value to set.
+	 */
+	public void set(int idx, int value) {
+		this.chunks[idx >>> this.chunkShift].putInt((idx & this.chunkMask) << 2, value);
+	}
+	
+	/**
+	 * Get the buffer of the chunk which contains the given index. Integers in
+	 * the buffer are addressed by their {@link #chunkOffset(int) offset} 
+	 * within the chunk.
+	 * 
+	 * @param idx Index of an integer in this array.
+	 * @return Buffer of the chunk which contains the given index.
+	 */
+	public ByteBuffer chunk(int idx) {
+		return this.chunks[idx >>> this.chunkShift];
+	}
+	
+	/**
+	 * Get the offset of the given index within its chunk.
+	 * 
+	 * @param idx Index of an integer in this array.
+	 * @return Offset of the given index within its chunk, in integers.
+	 */
+	public int chunkOffset(int idx) {
+		return idx & this.chunkMask;
+	}
+	
+	/**
+	 * Get the index following the last integer of the chunk which contains
+	 * the given index.
+	 * 
+	 * @param idx Index of an integer in this array.
+	 * @return Index following the last integer of the chunk containing the
+	 * given index (exclusive end of chunk).
+	 */
+	public int chunkEnd(int idx) {
+		return (int) Math.min((long) (idx | this.chunkMask) + 1, this.length);
+	}
+	
+	/**
+	 * Get the number of integers in a full chunk.
+	 * 
+	 * @return Number of integers in a full chunk.
+	 */
+	public int chunkLength() {
+		return this.chunkMask + 1;
+	}
+	
+	/**
+	 * Make sure this array has at least the given length, allocating new 
+	 * zero-filled chunks if required. Since existing chunks are not resized,
+	 * arrays can only grow if their last chunk is full, and grow by whole
+	 * chunks.
+	 * 
+	 * @param length Minimum length of this array.
+	 */
+	public synchronized void ensureLength(int length) {
+		
+		while (this.length < length) {
+			
+			if ((this.length & this.chunkMask) != 0)
+				throw new IllegalStateException(
+						"Off-heap array with a partial chunk can't grow.");
+			
+			this.chunks[this.length >>> this.chunkShift] = 
+					this.memory.allocate((this.chunkMask + 1) << 2);
+			this.length += this.chunkMask + 1;
+		}
+	}
+	
+	/**
+	 * Set all integers in this array to zero.
+	 */
+	public void clear() {
+		for (int i = 0; i < this.chunks.length && this.chunks[i] != null; i++) {
+			ByteBuffer chunk = this.chunks[i];
+			int b = 0;
+			for (; b + 8 <= chunk.capacity(); b += 8)
+				chunk.putLong(b, 0);
+			for (; b < chunk.capacity(); b += 4)
+				chunk.putInt(b, 0);
+		}
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Source of memory outside the Java heap, used to keep simulation state which
+ * does not count towards the heap size and is not traversed by the garbage
+ * collector. Memory is either allocated as direct buffers, in which case it is
+ * bounded by the <code>-XX:MaxDirectMemorySize</code> JVM option, or is mapped
+ * from a file, in which case it is only bounded by the available disk space
+ * (the operating system pages it in and out of RAM as required).
+ * 
+ * <p>Allocated buffers are released when the memory source is closed, 
+ * without waiting for the garbage collector to reclaim them. Buffers must
+ * not be accessed after that.</p>
+ * 
+ * @author Nuno Fachada
+ */
+public class OffHeapMemory implements Closeable {
+	
+	/* File channel for memory-mapped buffers, null for direct buffers. */
+	private FileChannel channel = null;
+	
+	/* File from which buffers are mapped, null for direct buffers. */
+	private File file = null;
+	
+	/* Buffers allocated so far, released when memory is closed. */
+	private List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+	
+	/* Was memory closed? */
+	private boolean closed = false;
+	
+	/* Position in file where the next buffer will be mapped. */
+	private long position = 0;
+	
+	/**
+	 * Create a new source of off-heap memory which allocates direct buffers.
+	 */
+	public OffHeapMemory() {}
+
+	/**
+	 * Create a new source of off-heap memory which maps buffers from the given
+	 * file. If the file exists, it is truncated. The file is deleted when the
+	 * JVM terminates.
+	 * 
+	 * @param filename Name of the file from which buffers are mapped.
+	 * @throws IOException If the file cannot be opened for reading and 
+	 * writing.
+	 */
+	public OffHeapMemory(String filename) throws IOException {
+		this.file = new File(filename);
+		this.channel = FileChannel.open(this.file.toPath(), 
+				StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.file.deleteOnExit();
+	}
+	
+	/**
+	 * Is the memory mapped from a file?
+	 * 
+	 * @return True if memory is mapped from a file, false if direct buffers
+	 * are used.
+	 */
+	public boolean isMapped() {
+		return this.channel != null;
+	}
+	
+	/**
+	 * Allocate a new zero-filled buffer with native byte order.
+	 * 
+	 * @param bytes Size of the buffer in bytes.
+	 * @return A new buffer with native byte order.
+	 * @throws UncheckedIOException If the buffer cannot be mapped from the
+	 * file.
+	 * @throws IllegalStateException If memory was already closed.
+	 */
+	public synchronized ByteBuffer allocate(int bytes) {
+		
+		ByteBuffer buffer;
+		
+		if (this.closed)
+			throw new IllegalStateException("Off-heap memory already closed");
+		
+		if (this.channel == null) {
+			
+			/* Direct buffers are zero-filled when allocated. */
+			buffer = ByteBuffer.allocateDirect(bytes);
+			
+		} else {
+			
+			/* The file grows as buffers are mapped beyond its end, and new
+			 * file regions read as zeros. */
+			try {
+				buffer = this.channel.map(
+						FileChannel.MapMode.READ_WRITE, this.position, bytes);
+			} catch (IOException ioe) {
+				throw new UncheckedIOException(
+						"Unable to map off-heap memory from file", ioe);
+			}
+			this.position += bytes;
+		}
+		
+		this.buffers.add(buffer);
+		return buffer.order(ByteOrder.nativeOrder());
+	}
+	
+	/**
+	 * Release all allocated buffers and, if memory is mapped from a file,
+	 * close and delete the file. Closing memory more than once has no effect.
+	 * 
+	 * @throws UncheckedIOException If the file cannot be closed.
+	 */
+	@Override
+	public synchronized void close() {
+		
+		if (this.closed) return;
+		this.closed = true;
+		
+		/* Direct and mapped buffers are normally only released when they are 
+		 * garbage collected, so release them explicitly if the JVM allows it.
+		 * Otherwise, just drop the references to them. */
+		for (ByteBuffer buffer : this.buffers)
+			release(buffer);
+		this.buffers.clear();
+		
+		if (this.channel != null) {
+			try {
+				this.channel.close();
+			} catch (IOException ioe) {
+				throw new UncheckedIOException(
+						"Unable to close off-heap memory file", ioe);
+			}
+			this.file.delete();
+		}
+	}
+	
+	/**
+	 * Release the memory of a direct or mapped buffer, using the 
+	 * <code>invokeCleaner(ByteBuffer)</code> method of the JVM's unsafe 
+	 * instance (Java 9 and later). If not available, the buffer is left to the
+	 * garbage collector.
+	 * 
+	 * @param buffer Buffer to release.
+	 */
+	private static void release(ByteBuffer buffer) {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			Method invokeCleaner = 
+					unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+		} catch (Exception e) {
+			/* Leave the buffer to the garbage collector. */
+		}
+	}
+
+}
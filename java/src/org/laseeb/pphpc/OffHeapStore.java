@@ -0,0 +1,488 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.util.Arrays;
+
+/**
+ * Simulation state kept in off-heap memory, used by the off-heap agent 
+ * engine. It holds the grass counters of all cells and, for each cell, three
+ * lists of packed agents (see {@link PackedAgents#profile(byte, int)}): the 
+ * agents currently being simulated, the existing agents which moved into the
+ * cell, and the new (newly-born) agents.
+ * 
+ * The elements of each list are kept in a block of an off-heap arena, whose
+ * size is a power of two. When a list is full, it moves to a block twice as
+ * large, and its previous block is recycled. Each cell has a header in which
+ * the arena index of the block of each list is kept, together with the list
+ * size and block size.
+ * 
+ * No objects are kept on the Java heap for each cell: cells are accessed 
+ * through per-thread {@link OffHeapCell views}, and agents are put in cells 
+ * of other workers under one of a fixed number of locks, selected by cell 
+ * index.
+ * 
+ * @author Nuno Fachada
+ */
+public class OffHeapStore implements IAgentStore {
+	
+	/** List of agents currently being simulated. */
+	public static final int AGENTS = 0;
+	
+	/** List of existing agents, e.g. agents which moved in from another 
+	 * cell. */
+	public static final int EXISTING = 1;
+	
+	/** List of new agents, i.e. newly-born agents. */
+	public static final int NEW = 2;
+	
+	/* Number of lists per cell. */
+	private static final int NUM_LISTS = 3;
+	
+	/* Number of integers in the header of each cell: for each list, the 
+	 * arena index of its block, and the list size packed with the log2 of 
+	 * the block size. */
+	private static final int HEADER_INTS = 2 * NUM_LISTS;
+	
+	/* Bit position of the log2 of the block size in the packed list size. A 
+	 * log2 of zero means the list has no block yet. */
+	private static final int LOG2_CAP_SHIFT = 27;
+	
+	/* Mask which yields the list size from the packed list size. */
+	private static final int SIZE_MASK = (1 << LOG2_CAP_SHIFT) - 1;
+	
+	/* Log2 of the size of the smallest block. */
+	private static final int MIN_LOG2_CAP = 2;
+	
+	/* Log2 of the minimum number of integers in a chunk of the arena. */
+	private static final int MIN_ARENA_CHUNK_SHIFT = 16;
+	
+	/* Number of locks used to put agents in cells, a power of two. */
+	private static final int NUM_LOCKS = 4096;
+	
+	/* Source of the off-heap memory of this store. */
+	private OffHeapMemory memory;
+	
+	/* Simulation parameters. */
+	private ModelParams params;
+	
+	/* Locks used to put agents in cells. */
+	private Object[] locks;
+	
+	/* View of the cells used by each thread. */
+	private ThreadLocal<OffHeapCell> views;
+	
+	/* Simulation space, which determines cell neighbors. */
+	private ISpace space;
+	
+	/* Put agent strategies. */
+	private OffHeapCellPutAgentStrategy putInitAgentStrategy;
+	private OffHeapCellPutAgentStrategy putExistingAgentStrategy;
+	
+	/* Grass counters of all cells. */
+	private OffHeapIntArray grass;
+	
+	/* Cell headers. */
+	private OffHeapIntArray headers;
+	
+	/* Arena where list blocks are kept. */
+	private OffHeapIntArray arena;
+	
+	/* Arena index of the next never used block. */
+	private int arenaTop;
+	
+	/* For each block size, arena index of first recycled block, or -1 if 
+	 * there are no recycled blocks of that size. Recycled blocks are linked 
+	 * through their first element. */
+	private int[] freeBlocks;
+	
+	/**
+	 * Create a new off-heap store.
+	 * 
+	 * @param memory Source of off-heap memory.
+	 * @param params Simulation parameters.
+	 * @param space Simulation space, which determines the number of cells 
+	 * and their neighbors.
+	 * @param putInitAgentStrategy Strategy for putting initial agents in cells.
+	 * @param putExistingAgentStrategy Strategy for putting existing agents in 
+	 * cells.
+	 */
+	public OffHeapStore(OffHeapMemory memory, ModelParams params, 
+			ISpace space,
+			OffHeapCellPutAgentStrategy putInitAgentStrategy,
+			OffHeapCellPutAgentStrategy putExistingAgentStrategy) {
+		
+		int size = space.getSize();
+		if ((long) size * HEADER_INTS > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many cells for off-heap "
+					+ "store: " + size);
+		
+		this.memory = memory;
+		this.params = params;
+		this.space = space;
+		this.putInitAgentStrategy = putInitAgentStrategy;
+		this.putExistingAgentStrategy = putExistingAgentStrategy;
+		this.grass = new OffHeapIntArray(memory, 
+				OffHeapIntArray.MAX_CHUNK_SHIFT, size);
+		this.headers = new OffHeapIntArray(memory, 
+				OffHeapIntArray.MAX_CHUNK_SHIFT, size * HEADER_INTS);
+		
+		/* The arena grows one chunk at a time, so size chunks such that 
+		 * the initial agents, in blocks of twice their number, fit in a 
+		 * few chunks. */
+		long initAgents = (long) params.getInitSheep() + params.getInitWolves();
+		int arenaChunkShift = 64 - Long.numberOfLeadingZeros(initAgents);
+		arenaChunkShift = Math.max(MIN_ARENA_CHUNK_SHIFT, 
+				Math.min(OffHeapIntArray.MAX_CHUNK_SHIFT, arenaChunkShift));
+		this.arena = new OffHeapIntArray(memory, arenaChunkShift, 
+				1 << arenaChunkShift);
+		
+		this.freeBlocks = new int[arenaChunkShift + 1];
+		this.reset();
+		
+		this.locks = new Object[NUM_LOCKS];
+		for (int i = 0; i < NUM_LOCKS; i++)
+			this.locks[i] = new Object();
+		final OffHeapStore store = this;
+		this.views = new ThreadLocal<OffHeapCell>() {
+			@Override
+			protected OffHeapCell initialValue() {
+				return new OffHeapCell(store);
+			}
+		};
+	}
+	
+	/**
+	 * Release the off-heap memory of this store. The store can't be used 
+	 * afterwards.
+	 * 
+	 * @see OffHeapMemory#close()
+	 */
+	public void close() {
+		this.memory.close();
+	}
+	
+	/**
+	 * Remove all agents and set all grass counters to zero. Memory is kept
+	 * for reuse.
+	 * 
+	 * @see IAgentStore#reset()
+	 */
+	@Override
+	public synchronized void reset() {
+		this.grass.clear();
+		this.headers.clear();
+		this.arenaTop = 0;
+		Arrays.fill(this.freeBlocks, -1);
+	}
+	
+	/**
+	 * Get simulation parameters.
+	 * 
+	 * @return Simulation parameters.
+	 */
+	public ModelParams getParams() {
+		return this.params;
+	}
+	
+	/**
+	 * Get the view of the given cell for the calling thread. Each thread has
+	 * a single view, so the view is only valid until the thread gets the 
+	 * view of another cell.
+	 * 
+	 * @param cell Cell index.
+	 * @return The view of the given cell.
+	 */
+	public ICell getCell(int cell) {
+		return this.views.get().moveTo(cell);
+	}
+	
+	/**
+	 * Get the simulation space, which determines cell neighbors.
+	 * 
+	 * @return Simulation space.
+	 */
+	public ISpace getSpace() {
+		return this.space;
+	}
+	
+	/**
+	 * Get the strategy for putting initial agents in cells.
+	 * 
+	 * @return Strategy for putting initial agents in cells.
+	 */
+	public OffHeapCellPutAgentStrategy getPutInitAgentStrategy() {
+		return this.putInitAgentStrategy;
+	}
+
+	/**
+	 * Get the strategy for putting existing agents in cells.
+	 * 
+	 * @return Strategy for putting existing agents in cells.
+	 */
+	public OffHeapCellPutAgentStrategy getPutExistingAgentStrategy() {
+		return this.putExistingAgentStrategy;
+	}
+
+	/**
+	 * Get the lock which must be held to put agents in the given cell 
+	 * concurrently with other threads. Locks are shared by several cells.
+	 * 
+	 * @param cell Cell index.
+	 * @return The lock for the given cell.
+	 */
+	public Object getLock(int cell) {
+		return this.locks[cell & (NUM_LOCKS - 1)];
+	}
+
+	/**
+	 * Get the grass counters of all cells.
+	 * 
+	 * @return The grass counters of all cells.
+	 */
+	public OffHeapIntArray getGrass() {
+		return this.grass;
+	}
+	
+	/**
+	 * Get the number of agents in a list of the given cell.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @return Number of agents in list.
+	 */
+	public int size(int cell, int list) {
+		return this.headers.get(cell * HEADER_INTS + 2 * list + 1) & SIZE_MASK;
+	}
+	
+	/**
+	 * Get the arena index of the first agent in a list of the given cell. 
+	 * Remains valid while no agents are added to the list.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @return Arena index of the first agent in list.
+	 * @see #get(int)
+	 * @see #set(int, int)
+	 */
+	public int base(int cell, int list) {
+		return this.headers.get(cell * HEADER_INTS + 2 * list);
+	}
+	
+	/**
+	 * Get the packed agent at the given arena index.
+	 * 
+	 * @param idx Arena index.
+	 * @return The packed agent at the given arena index.
+	 */
+	public int get(int idx) {
+		return this.arena.get(idx);
+	}
+
+	/**
+	 * Set the packed agent at the given arena index.
+	 * 
+	 * @param idx Arena index.
+	 * @param agent The packed agent to set.
+	 */
+	public void set(int idx, int agent) {
+		this.arena.set(idx, agent);
+	}
+	
+	/**
+	 * Remove all agents from a list of the given cell. The list keeps its 
+	 * block.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 */
+	public void clear(int cell, int list) {
+		this.truncate(cell, list, 0);
+	}
+	
+	/**
+	 * Remove agents from the end of a list of the given cell, such that the
+	 * list keeps the given number of agents.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @param size New number of agents in the list, at most the current 
+	 * number.
+	 */
+	public void truncate(int cell, int list, int size) {
+		int h = cell * HEADER_INTS + 2 * list + 1;
+		this.headers.set(h, (this.headers.get(h) & ~SIZE_MASK) | size);
+	}
+
+	/**
+	 * Swap two lists of the given cell.
+	 * 
+	 * @param cell Cell index.
+	 * @param list1 First list identifier.
+	 * @param list2 Second list identifier.
+	 */
+	public void swapLists(int cell, int list1, int list2) {
+		int h1 = cell * HEADER_INTS + 2 * list1;
+		int h2 = cell * HEADER_INTS + 2 * list2;
+		for (int i = 0; i < 2; i++) {
+			int aux = this.headers.get(h1 + i);
+			this.headers.set(h1 + i, this.headers.get(h2 + i));
+			this.headers.set(h2 + i, aux);
+		}
+	}
+	
+	/**
+	 * Append a packed agent to the end of a list of the given cell.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @param agent Packed agent.
+	 */
+	public void add(int cell, int list, int agent) {
+		int size = this.size(cell, list);
+		this.ensureCapacity(cell, list, size + 1);
+		this.arena.set(this.base(cell, list) + size, agent);
+		this.truncate(cell, list, size + 1);
+	}
+
+	/**
+	 * Insert a packed agent in a list of the given cell such that, if the 
+	 * list was ordered, it remains ordered.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @param agent Packed agent.
+	 */
+	public void addOrdered(int cell, int list, int agent) {
+
+		int size = this.size(cell, list);
+		this.ensureCapacity(cell, list, size + 1);
+		int base = this.base(cell, list);
+		
+		/* Binary search for the insertion point. */
+		int lo = 0;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (this.arena.get(base + mid) < agent)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		
+		/* Shift following agents and place the new one. */
+		for (int i = size; i > lo; i--)
+			this.arena.set(base + i, this.arena.get(base + i - 1));
+		this.arena.set(base + lo, agent);
+		this.truncate(cell, list, size + 1);
+	}
+	
+	/**
+	 * Make sure a list of the given cell can hold the given number of agents,
+	 * moving it to a larger block if required.
+	 * 
+	 * @param cell Cell index.
+	 * @param list List identifier.
+	 * @param capacity Required capacity.
+	 */
+	private void ensureCapacity(int cell, int list, int capacity) {
+		
+		int h = cell * HEADER_INTS + 2 * list;
+		int sizeAndLog2Cap = this.headers.get(h + 1);
+		int log2Cap = sizeAndLog2Cap >>> LOG2_CAP_SHIFT;
+		
+		if (log2Cap == 0 || capacity > 1 << log2Cap) {
+			
+			/* Determine new block size. */
+			int newLog2Cap = Math.max(MIN_LOG2_CAP, 
+					32 - Integer.numberOfLeadingZeros(capacity - 1));
+			if (newLog2Cap >= this.freeBlocks.length)
+				throw new IllegalStateException("Too many agents in cell " + cell);
+			
+			/* Move agents to new block and recycle the old one. */
+			int size = sizeAndLog2Cap & SIZE_MASK;
+			int oldBase = this.headers.get(h);
+			int newBase = this.allocateBlock(newLog2Cap);
+			for (int i = 0; i < size; i++)
+				this.arena.set(newBase + i, this.arena.get(oldBase + i));
+			if (log2Cap > 0)
+				this.recycleBlock(oldBase, log2Cap);
+			
+			/* Update header. */
+			this.headers.set(h, newBase);
+			this.headers.set(h + 1, (newLog2Cap << LOG2_CAP_SHIFT) | size);
+		}
+	}
+	
+	/**
+	 * Allocate an arena block of the given size, reusing a recycled block if 
+	 * possible.
+	 * 
+	 * @param log2Cap Log2 of block size.
+	 * @return Arena index of the block.
+	 */
+	private synchronized int allocateBlock(int log2Cap) {
+		
+		int block = this.freeBlocks[log2Cap];
+		
+		if (block >= 0) {
+			
+			/* Reuse recycled block. */
+			this.freeBlocks[log2Cap] = this.arena.get(block);
+			
+		} else {
+			
+			/* Blocks never span chunks, so skip the remainder of the current
+			 * chunk if the block doesn't fit there. */
+			int blockSize = 1 << log2Cap;
+			block = this.arenaTop;
+			if (this.arena.chunkOffset(block) + blockSize > this.arena.chunkLength())
+				block = this.arena.chunkEnd(block);
+			
+			if ((long) block + blockSize > Integer.MAX_VALUE)
+				throw new IllegalStateException("Off-heap agent arena is full.");
+			
+			this.arena.ensureLength(block + blockSize);
+			this.arenaTop = block + blockSize;
+		}
+		
+		return block;
+	}
+	
+	/**
+	 * Recycle an arena block.
+	 * 
+	 * @param block Arena index of the block.
+	 * @param log2Cap Log2 of block size.
+	 */
+	private synchronized void recycleBlock(int block, int log2Cap) {
+		this.arena.set(block, this.freeBlocks[log2Cap]);
+		this.freeBlocks[log2Cap] = block;
+	}
+
+}
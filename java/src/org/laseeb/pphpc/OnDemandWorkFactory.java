@@ -37,31 +37,45 @@ public class OnDemandWorkFactory extends AbstractMultiThreadWorkFactory {
 	/* Block size for OD work type. */
 	private Integer blockSize;
 	
+	/* Adapt the block size for processing cells? */
+	private boolean adaptive;
+	
+	/* Work provider for processing cells, kept for reporting adapted block 
+	 * sizes. */
+	private OnDemandWorkProvider cellsWorkProvider;
+	
 	/**
 	 * Create a new on-demand work factory.
 	 * 
 	 * @param numThreads Number of threads.
-	 * @param blockSize Block size.
+	 * @param blockSize Block size, or initial minimum block size for 
+	 * processing cells if the block size is adaptive.
+	 * @param adaptive Adapt the block size for processing cells to the 
+	 * measured cost of processing cells in each phase of the simulation?
+	 * @param spinBudget Number of spin iterations before workers waiting at
+	 * a barrier are parked (if zero, a cyclic barrier is used instead).
 	 */
-	public OnDemandWorkFactory(int numThreads, int blockSize) {
-		super(numThreads);
+	public OnDemandWorkFactory(int numThreads, int blockSize, 
+			boolean adaptive, int spinBudget) {
+		super(numThreads, spinBudget);
 		this.blockSize = blockSize;
+		this.adaptive = adaptive;
 	}
 
 	/**
-	 * @see IWorkFactory#createPutInitAgentStrategy()
+	 * @see IWorkFactory#getPutInitAgentMode()
 	 */
 	@Override
-	public ICellPutAgentStrategy createPutInitAgentStrategy() {
-		return new CellPutAgentSync();
+	public CellPutAgentMode getPutInitAgentMode() {
+		return CellPutAgentMode.SYNC;
 	}
 
 	/**
-	 * @see IWorkFactory#createPutExistingAgentStrategy()
+	 * @see IWorkFactory#getPutExistingAgentMode()
 	 */
 	@Override
-	public ICellPutAgentStrategy createPutExistingAgentStrategy() {
-		return new CellPutAgentSync();
+	public CellPutAgentMode getPutExistingAgentMode() {
+		return CellPutAgentMode.SYNC;
 	}
 
 	/**
@@ -77,18 +91,11 @@ public class OnDemandWorkFactory extends AbstractMultiThreadWorkFactory {
 		controller.setWorkerSynchronizers(
 				new NonBlockingSyncPoint(ControlEvent.BEFORE_INIT_CELLS, 
 						this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_INIT_CELLS, 
-						controller, this.numThreads), 
-				new NonBlockingSyncPoint(ControlEvent.AFTER_SET_CELL_NEIGHBORS, 
-						this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_INIT_AGENTS,
-						controller, this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_FIRST_STATS, 
-						controller, this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_HALF_ITERATION, 
-						controller, this.numThreads), 
-				new BlockingSyncPoint(ControlEvent.AFTER_END_ITERATION, 
-						controller, this.numThreads), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_INIT_CELLS, controller), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_INIT_AGENTS, controller), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_FIRST_STATS, controller), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_HALF_ITERATION, controller), 
+				this.createBlockingSyncPoint(ControlEvent.AFTER_END_ITERATION, controller), 
 				new NonBlockingSyncPoint(ControlEvent.AFTER_END_SIMULATION, 
 						this.numThreads));
 		
@@ -103,9 +110,28 @@ public class OnDemandWorkFactory extends AbstractMultiThreadWorkFactory {
 	protected IWorkProvider doGetWorkProvider(int workSize, WorkType workType, 
 			IModel model, IController controller) {
 		
+		/* Block size is only adapted when processing cells. */
+		if (workType == WorkType.CELL) {
+			this.cellsWorkProvider = new OnDemandWorkProvider(
+					this.numThreads, this.blockSize, workSize, this.adaptive);
+			return this.cellsWorkProvider;
+		}
+		
 		/* Return a new on-demand work provider. */
 		return new OnDemandWorkProvider(
 				this.numThreads, this.blockSize, workSize);
 	}
 
+	/**
+	 * Reports the minimum block sizes chosen for processing cells, if the 
+	 * block size is adaptive.
+	 * 
+	 * @see IWorkFactory#getWorkReport()
+	 */
+	@Override
+	public String getWorkReport() {
+		if (this.cellsWorkProvider == null) return null;
+		return this.cellsWorkProvider.getBlockSizeReport();
+	}
+
 }
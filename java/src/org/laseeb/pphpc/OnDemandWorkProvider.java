@@ -27,10 +27,21 @@
 package org.laseeb.pphpc;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Work provider which distributes work on-demand among the available workers.
  * 
+ * Blocks of work tokens have a fixed size, unless the provider is adaptive. 
+ * In that case, blocks are guided, i.e. each block is a fraction of the 
+ * remaining work, such that blocks decrease in size as work is consumed, 
+ * down to a minimum block size. The minimum block size is kept for each 
+ * phase of the simulation, and is adjusted after each pass over the work 
+ * according to the measured processing time per work token and to the 
+ * contention on the shared work counter. Simulation passes alternate 
+ * between two phases: cell initialization and agent movement on one hand,
+ * statistics gathering and agent actions on the other.
+ * 
  * @author Nuno Fachada
  */
 public class OnDemandWorkProvider implements IWorkProvider {
@@ -49,6 +60,32 @@ public class OnDemandWorkProvider implements IWorkProvider {
 		 * than this value. */
 		private int max;
 		
+		/* Provide work tokens in decreasing order? */
+		private boolean reverse;
+		
+		/* Time at which the current block was allocated (adaptive only). */
+		private long blockStart;
+		
+		/* Number of work tokens in the current block (adaptive only). */
+		private int blockTokens;
+		
+		/* Time spent processing blocks in the current pass (adaptive 
+		 * only). */
+		private long busyNanos;
+		
+		/* Number of work tokens processed in the current pass (adaptive
+		 * only). */
+		private long tokens;
+		
+		/* Number of block allocations in the current pass (adaptive 
+		 * only). */
+		private long fetches;
+		
+		/* Number of failed attempts to allocate a block in the current pass,
+		 * due to other workers allocating blocks at the same time (adaptive
+		 * only). */
+		private long failures;
+		
 		/**
 		 * Create an on-demand work state.
 		 * 
@@ -58,6 +95,7 @@ public class OnDemandWorkProvider implements IWorkProvider {
 			super(wId);
 			this.next = 0;
 			this.max = 0;
+			this.reverse = false;
 		}
 	}
 	
@@ -75,6 +113,42 @@ public class OnDemandWorkProvider implements IWorkProvider {
 	
 	/* Total work size. */
 	private int workSize;
+	
+	/* Adapt the block size to the work? */
+	private boolean adaptive;
+	
+	/* Number of simulation phases with their own minimum block size. */
+	private static final int NUM_PHASES = 2;
+	
+	/* Each block is at most the remaining work divided by this value times 
+	 * the number of workers (adaptive only). */
+	private static final int GUIDED_FACTOR = 2;
+	
+	/* Intended processing time of a minimum size block, long enough to
+	 * amortize the cost of allocating it (adaptive only). */
+	private static final long TARGET_BLOCK_NANOS = 50000;
+	
+	/* Fraction of failed block allocations above which the minimum block
+	 * size is doubled (adaptive only). */
+	private static final double MAX_FAILURE_RATE = 0.1;
+	
+	/* Current phase (adaptive only). */
+	private int phase;
+	
+	/* Minimum block size for each phase (adaptive only). */
+	private int[] minBlockSize;
+	
+	/* Smallest and largest minimum block size chosen for each phase 
+	 * (adaptive only). */
+	private int[] minBlockSizeLow;
+	private int[] minBlockSizeHigh;
+	
+	/* Measurements of the current pass, accumulated by all workers 
+	 * (adaptive only). */
+	private AtomicLong busyNanos;
+	private AtomicLong tokens;
+	private AtomicLong fetches;
+	private AtomicLong failures;
 
 	/**
 	 * Create a new on-demand work provider.
@@ -84,11 +158,45 @@ public class OnDemandWorkProvider implements IWorkProvider {
 	 * @param workSize Total work size.
 	 */
 	public OnDemandWorkProvider(int numWorkers, int blockSize, int workSize) {
+		this(numWorkers, blockSize, workSize, false);
+	}
+
+	/**
+	 * Create a new on-demand work provider, optionally adapting the block
+	 * size to the work.
+	 * 
+	 * @param numWorkers Number of workers which will access this work provider.
+	 * @param blockSize Number of work tokens to allocate for each worker at 
+	 * each request, or initial minimum block size if the provider is 
+	 * adaptive.
+	 * @param workSize Total work size.
+	 * @param adaptive Adapt the block size to the work?
+	 */
+	public OnDemandWorkProvider(int numWorkers, int blockSize, int workSize, 
+			boolean adaptive) {
 		this.counter = new AtomicInteger(0);
 		this.resetsCounter = new AtomicInteger(0);
 		this.numWorkers = numWorkers;
 		this.blockSize = blockSize;
 		this.workSize = workSize;
+		this.adaptive = adaptive;
+		
+		/* Initialize adaptive block size state, if required. */
+		if (adaptive) {
+			this.phase = 0;
+			this.minBlockSize = new int[NUM_PHASES];
+			this.minBlockSizeLow = new int[NUM_PHASES];
+			this.minBlockSizeHigh = new int[NUM_PHASES];
+			for (int i = 0; i < NUM_PHASES; i++) {
+				this.minBlockSize[i] = this.clampBlockSize(blockSize);
+				this.minBlockSizeLow[i] = this.minBlockSize[i];
+				this.minBlockSizeHigh[i] = this.minBlockSize[i];
+			}
+			this.busyNanos = new AtomicLong(0);
+			this.tokens = new AtomicLong(0);
+			this.fetches = new AtomicLong(0);
+			this.failures = new AtomicLong(0);
+		}
 	}
 
 	/**
@@ -116,16 +224,22 @@ public class OnDemandWorkProvider implements IWorkProvider {
 		if (odWork.next >= odWork.max) {
 
 			/* If so, allocate a new block of work for him. */
-			odWork.next = this.counter.getAndAdd(this.blockSize);
-			odWork.max = Math.min(odWork.next + this.blockSize, this.workSize);
+			if (this.adaptive) {
+				this.allocateGuidedBlock(odWork);
+			} else {
+				odWork.next = this.counter.getAndAdd(this.blockSize);
+				odWork.max = Math.min(odWork.next + this.blockSize, this.workSize);
+			}
 			
 		}
 		
 		/* If worker has still work left to do... */
 		if (odWork.next < this.workSize) {
 
-			/* ...give worker a work token... */
-			nextToken = odWork.next;
+			/* ...give worker a work token, counting from the end if tokens
+			 * are provided in decreasing order... */
+			nextToken = odWork.reverse 
+					? this.workSize - 1 - odWork.next : odWork.next;
 			
 			/* ...and increment the next work token for the next request.*/
 			odWork.next++;
@@ -136,27 +250,183 @@ public class OnDemandWorkProvider implements IWorkProvider {
 		return nextToken;
 	}
 
+	/**
+	 * Allocate a guided block of work for a worker, and measure the time 
+	 * taken by the worker to process its previous block.
+	 * 
+	 * @param odWork Work state of the worker.
+	 */
+	private void allocateGuidedBlock(OnDemandWork odWork) {
+		
+		/* The previous block was processed in the meantime. */
+		long now = System.nanoTime();
+		if (odWork.blockTokens > 0) {
+			odWork.busyNanos += now - odWork.blockStart;
+			odWork.tokens += odWork.blockTokens;
+		}
+		
+		/* Allocate a block which is a fraction of the remaining work, but 
+		 * not smaller than the minimum block size of the current phase. */
+		int minBlock = this.minBlockSize[this.phase];
+		int start, size;
+		odWork.fetches++;
+		while (true) {
+			start = this.counter.get();
+			if (start >= this.workSize) {
+				size = 0;
+				break;
+			}
+			size = Math.max(minBlock, 
+					(this.workSize - start) / (GUIDED_FACTOR * this.numWorkers));
+			if (this.counter.compareAndSet(start, start + size))
+				break;
+			odWork.failures++;
+		}
+		
+		/* Keep the new block. */
+		odWork.next = start;
+		odWork.max = Math.min(start + size, this.workSize);
+		odWork.blockStart = now;
+		odWork.blockTokens = odWork.max - start;
+		
+	}
+	
+	/**
+	 * Adjust the minimum block size of the phase which has just finished, and
+	 * move on to the next phase. Invoked by the last worker to reset its work,
+	 * such that no worker is processing work.
+	 */
+	private void adaptBlockSize() {
+		
+		long tokens = this.tokens.getAndSet(0);
+		long busyNanos = this.busyNanos.getAndSet(0);
+		long fetches = this.fetches.getAndSet(0);
+		long failures = this.failures.getAndSet(0);
+		int current = this.minBlockSize[this.phase];
+		
+		if (tokens > 0 && busyNanos > 0) {
+			
+			/* Minimum block size which would take the intended time to 
+			 * process, at the measured time per token. */
+			long target = TARGET_BLOCK_NANOS * tokens / busyNanos;
+			
+			/* If workers often compete for blocks, use larger blocks. */
+			if (failures > MAX_FAILURE_RATE * fetches)
+				target = Math.max(target, 2L * current);
+			
+			/* Move half way to the target, to avoid oscillations. */
+			int size = this.clampBlockSize((current + target + 1) / 2);
+			this.minBlockSize[this.phase] = size;
+			this.minBlockSizeLow[this.phase] = 
+					Math.min(this.minBlockSizeLow[this.phase], size);
+			this.minBlockSizeHigh[this.phase] = 
+					Math.max(this.minBlockSizeHigh[this.phase], size);
+		}
+		
+		/* Move on to the next phase. */
+		this.phase = (this.phase + 1) % NUM_PHASES;
+	}
+	
+	/**
+	 * Limit the given minimum block size to between one work token and an 
+	 * equal share of the work for each worker.
+	 * 
+	 * @param size Minimum block size to limit.
+	 * @return The limited minimum block size.
+	 */
+	private int clampBlockSize(long size) {
+		int share = (this.workSize + this.numWorkers - 1) / this.numWorkers;
+		return (int) Math.max(1, Math.min(size, Math.max(share, 1)));
+	}
+	
+	/**
+	 * Get a report of the minimum block size chosen for each phase, if the
+	 * provider is adaptive.
+	 * 
+	 * @return A report of the chosen minimum block sizes, or null if the 
+	 * provider is not adaptive.
+	 */
+	public String getBlockSizeReport() {
+		
+		if (!this.adaptive) return null;
+		
+		StringBuilder report = new StringBuilder("Minimum block sizes (last, low-high):");
+		String[] names = { "init/move", "stats/act" };
+		for (int i = 0; i < NUM_PHASES; i++) {
+			report.append(i == 0 ? " " : ", ").append(names[i]).append(" ")
+				.append(this.minBlockSize[i]).append(" (")
+				.append(this.minBlockSizeLow[i]).append("-")
+				.append(this.minBlockSizeHigh[i]).append(")");
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Work tokens are assigned on-demand, so they have no fixed owner.
+	 * 
+	 * @see IWorkProvider#getOwner(int)
+	 */
+	@Override
+	public int getOwner(int token) {
+		return -1;
+	}
+
 	/**
 	 * @see IWorkProvider#resetWork(IWork)
 	 */
 	@Override
 	public void resetWork(IWork work) {
+		this.resetWork(work, false);
+	}
+
+	/**
+	 * Blocks are allocated in the same way in both directions, but tokens
+	 * are counted from the end of the work if they are provided in 
+	 * decreasing order.
+	 * 
+	 * @see IWorkProvider#resetWork(IWork, boolean)
+	 */
+	@Override
+	public void resetWork(IWork work, boolean reverse) {
+		
+		/* Cast generic work to on-demand work. */
+		OnDemandWork odWork = (OnDemandWork) work;
+
+		/* Contribute the measurements of this worker in the current pass,
+		 * before the other workers know this worker has finished it. */
+		if (this.adaptive) {
+			this.busyNanos.addAndGet(odWork.busyNanos);
+			this.tokens.addAndGet(odWork.tokens);
+			this.fetches.addAndGet(odWork.fetches);
+			this.failures.addAndGet(odWork.failures);
+			odWork.busyNanos = odWork.tokens = 0;
+			odWork.fetches = odWork.failures = 0;
+			odWork.blockTokens = 0;
+		}
 		
 		/* Another worker has reset its work... */
 		int numResets = this.resetsCounter.incrementAndGet();
 
-		/* Cast generic work to on-demand work... */
-		OnDemandWork odWork = (OnDemandWork) work;
-
-		/* ...and reset work state. */
+		/* ...so reset its work state. */
 		odWork.next = 0;
 		odWork.max = 0;
+		odWork.reverse = reverse;
 		
-		/* If all workers have reset their work, reset work counter. */
+		/* If all workers have reset their work, reset work counter, and 
+		 * adjust the block size, if required. */
 		if (numResets == this.numWorkers) {
+			if (this.adaptive) this.adaptBlockSize();
 			this.resetsCounter.set(0);
 			this.counter.set(0);
 		}
 	}
 
+	/**
+	 * Work is not balanced according to statistics, so nothing is done.
+	 * 
+	 * @see IWorkProvider#updateLoad(IWork, IterationStats)
+	 */
+	@Override
+	public void updateLoad(IWork work, IterationStats stats) {}
+
 }
@@ -98,7 +98,7 @@ public class OneGoCLIView extends AbstractModelEventObserver implements IView {
 	 */
 	@Override
 	protected void updateOnStart() {
-		System.out.println("Started simulation with " + this.controller.getNumWorkers() + " threads...");
+		System.out.println("Started simulation with " + this.controller.getNumThreads() + " threads...");
 		this.timing = System.currentTimeMillis();
 	}
 
@@ -107,8 +107,16 @@ public class OneGoCLIView extends AbstractModelEventObserver implements IView {
 	 */
 	@Override
 	protected void updateOnStop() {
-		System.out.println("Total simulation time: " + ((System.currentTimeMillis() - this.timing) / 1000.0f) + "\n");
+		System.out.println("Total simulation time: " + ((System.currentTimeMillis() - this.timing) / 1000.0f));
+		if (this.pp.isShowAllocations())
+			System.out.println("Agent objects allocated: " + this.model.getAgentAllocations());
+		String workReport = this.controller.getWorkReport();
+		if (workReport != null) System.out.println(workReport);
+		String eventReport = this.model.getEventReport();
+		if (eventReport != null) System.out.println(eventReport);
+		System.out.println();
 		this.controller.export(this.pp.getStatsFile());
+		this.controller.dispose();
 		System.exit(PredPrey.Errors.NONE.getValue());
 	}
 
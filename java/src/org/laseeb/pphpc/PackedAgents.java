@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.util.Arrays;
+
+/**
+ * A list of agents kept in primitive arrays, used by the packed agent engine
+ * instead of lists of {@link IAgent} objects. Each agent is represented by
+ * its type and energy, stored at the same index in the respective arrays.
+ * 
+ * @author Nuno Fachada
+ */
+public class PackedAgents {
+	
+	/** Agent type representing a wolf. */
+	public static final byte WOLF = 0x1;
+	
+	/** Agent type representing a sheep. */
+	public static final byte SHEEP = 0x2;
+	
+	/* Initial capacity of the agent arrays, once an agent is added. */
+	private static final int INIT_CAPACITY = 4;
+	
+	/* Shared arrays of empty lists, such that arrays are only allocated when
+	 * agents are added. */
+	private static final int[] NO_ENERGY = new int[0];
+	private static final byte[] NO_TYPE = new byte[0];
+	
+	/* Agent energies. */
+	private int[] energy;
+	
+	/* Agent types. */
+	private byte[] type;
+	
+	/* Number of agents in this list. */
+	private int size;
+	
+	/**
+	 * Create a new empty list of packed agents. No arrays are allocated until
+	 * agents are added.
+	 */
+	public PackedAgents() {
+		this.energy = NO_ENERGY;
+		this.type = NO_TYPE;
+		this.size = 0;
+	}
+	
+	/**
+	 * Return the number of agents in this list.
+	 * 
+	 * @return The number of agents in this list.
+	 */
+	public int size() {
+		return this.size;
+	}
+	
+	/**
+	 * Remove all agents from this list.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+	
+	/**
+	 * Get the energy of the agent at the given index.
+	 * 
+	 * @param idx Agent index.
+	 * @return The energy of the agent at the given index.
+	 */
+	public int getEnergy(int idx) {
+		return this.energy[idx];
+	}
+	
+	/**
+	 * Set the energy of the agent at the given index.
+	 * 
+	 * @param idx Agent index.
+	 * @param energy Energy to set.
+	 */
+	public void setEnergy(int idx, int energy) {
+		this.energy[idx] = energy;
+	}
+	
+	/**
+	 * Get the type of the agent at the given index.
+	 * 
+	 * @param idx Agent index.
+	 * @return The type of the agent at the given index, either {@link #SHEEP}
+	 * or {@link #WOLF}.
+	 */
+	public byte getType(int idx) {
+		return this.type[idx];
+	}
+	
+	/**
+	 * Get the ordering profile of the agent at the given index. The profile is
+	 * the same one used by {@link AbstractAgent#compareTo(IAgent)}, so that
+	 * packed and object agents are ordered in the same way.
+	 * 
+	 * @param idx Agent index.
+	 * @return The ordering profile of the agent at the given index.
+	 */
+	public int getProfile(int idx) {
+		return profile(this.type[idx], this.energy[idx]);
+	}
+	
+	/**
+	 * Append an agent to the end of this list.
+	 * 
+	 * @param type Agent type.
+	 * @param energy Agent energy.
+	 */
+	public void add(byte type, int energy) {
+		this.ensureCapacity(this.size + 1);
+		this.type[this.size] = type;
+		this.energy[this.size] = energy;
+		this.size++;
+	}
+	
+	/**
+	 * Insert an agent in this list such that, if the list was ordered by agent
+	 * profile, it remains ordered.
+	 * 
+	 * @param type Agent type.
+	 * @param energy Agent energy.
+	 */
+	public void addOrdered(byte type, int energy) {
+		
+		/* Profile of agent to insert. */
+		int p = profile(type, energy);
+		
+		/* Binary search for the insertion point. */
+		int lo = 0;
+		int hi = this.size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (this.getProfile(mid) < p)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		
+		/* Shift following agents and place the new one. */
+		this.ensureCapacity(this.size + 1);
+		System.arraycopy(this.type, lo, this.type, lo + 1, this.size - lo);
+		System.arraycopy(this.energy, lo, this.energy, lo + 1, this.size - lo);
+		this.type[lo] = type;
+		this.energy[lo] = energy;
+		this.size++;
+	}
+	
+	/**
+	 * Swap the agents at the given indexes.
+	 * 
+	 * @param i Index of first agent.
+	 * @param j Index of second agent.
+	 */
+	public void swap(int i, int j) {
+		int e = this.energy[i];
+		this.energy[i] = this.energy[j];
+		this.energy[j] = e;
+		byte t = this.type[i];
+		this.type[i] = this.type[j];
+		this.type[j] = t;
+	}
+	
+	/**
+	 * Determine the ordering profile of an agent with the given type and
+	 * energy.
+	 * 
+	 * @param type Agent type.
+	 * @param energy Agent energy.
+	 * @return The agent ordering profile.
+	 */
+	public static int profile(byte type, int energy) {
+		return energy << 2 | type;
+	}
+
+	/**
+	 * Determine the packed type of the given agent object.
+	 * 
+	 * @param agent Agent object.
+	 * @return The packed type of the given agent, either {@link #SHEEP} or
+	 * {@link #WOLF}.
+	 */
+	public static byte typeOf(IAgent agent) {
+		return agent instanceof Wolf ? WOLF : SHEEP;
+	}
+
+	/**
+	 * Make sure the agent arrays can hold at least the given number of agents.
+	 * 
+	 * @param capacity Required capacity.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > this.energy.length) {
+			int newCapacity = Math.max(Math.max(capacity, INIT_CAPACITY),
+					this.energy.length * 2);
+			this.energy = Arrays.copyOf(this.energy, newCapacity);
+			this.type = Arrays.copyOf(this.type, newCapacity);
+		}
+	}
+	
+}
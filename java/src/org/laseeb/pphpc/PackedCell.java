@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+
+/**
+ * Concrete implementation of a PPHPC model cell in which agents are not kept
+ * as objects, but packed as types and energies in primitive arrays (see 
+ * {@link PackedAgents}). The simulation dynamics are exactly the same as in
+ * {@link Cell}, such that both produce identical statistics for the same
+ * seed and parallelization strategy.
+ * 
+ * @author Nuno Fachada
+ */
+public class PackedCell implements ICell {
+	
+	/* Put agent strategies. */
+	private PackedCellPutAgentStrategy putInitAgentStrategy;
+	private PackedCellPutAgentStrategy putExistingAgentStrategy;
+	
+	/* Simulation parameters. */
+	private ModelParams params;
+	
+	/* Agents currently being simulated. */
+	private PackedAgents agents;
+	
+	/* Agents which already exist in simulation (e.g. moving from another
+	 * cell). */
+	private PackedAgents existingAgents;	
+	
+	/* New agents. */
+	private PackedAgents newAgents;
+	
+	/* Auxiliary list for gathering agent statistics and incorporating new 
+	 * agents in simulation. */
+	private PackedAgents auxAgents;
+	
+	/* Cells of the simulation grid, owned by the model. */
+	private ICell[] cells;
+	
+	/* Simulation space, which determines this cell's neighbors. */
+	private ISpace space;
+	
+	/* Grass counters of all cells, owned by the model. */
+	private int[] grass;
+	
+	/* Index of this cell, and of its grass counter. */
+	private int idx;
+	
+	/**
+	 * Create a new grid cell with packed agents.
+	 * 
+	 * @param params Simulation parameters.
+	 * @param grass Grass counters of all cells, owned by the model.
+	 * @param idx Index of this cell, and of its grass counter.
+	 * @param cells Cells of the simulation grid, owned by the model.
+	 * @param space Simulation space, which determines this cell's neighbors.
+	 * @param putInitAgentsStrategy Strategy for putting initial agents in this
+	 * cell.
+	 * @param putExistingAgentStrategy Strategy for putting existing agents in
+	 * this cell.
+	 */
+	public PackedCell(ModelParams params,
+			int[] grass,
+			int idx,
+			ICell[] cells,
+			ISpace space,
+			PackedCellPutAgentStrategy putInitAgentsStrategy,
+			PackedCellPutAgentStrategy putExistingAgentStrategy) {
+		
+		this.params = params;
+		this.grass = grass;
+		this.idx = idx;
+		this.cells = cells;
+		this.space = space;
+		this.putInitAgentStrategy = putInitAgentsStrategy;
+		this.putExistingAgentStrategy = putExistingAgentStrategy;
+		
+		/* Initialize agent keeping structures. */
+		this.agents = new PackedAgents();
+		this.newAgents = new PackedAgents();
+		this.existingAgents = new PackedAgents();
+		this.auxAgents = new PackedAgents();
+	}
+
+	/**
+	 * @see ICell#isGrassAlive()
+	 */
+	@Override
+	public boolean isGrassAlive() {
+		return this.grass[this.idx] == 0;
+	}
+
+	/**
+	 * @see ICell#eatGrass()
+	 */
+	@Override
+	public void eatGrass() {
+		this.grass[this.idx] = this.getGrassRestart();
+	}
+	
+	/**
+	 * @see ICell#getGrassRestart()
+	 */
+	@Override
+	public int getGrassRestart() {
+		return this.params.getGrassRestart();
+	}
+
+	/**
+	 * The given agent object is only used to determine the type and energy of
+	 * the agent to put in this cell, and is not kept.
+	 * 
+	 * @see ICell#putInitAgent(IAgent)
+	 */
+	@Override
+	public void putInitAgent(IAgent agent) {
+		
+		/* Put initial agent according to the specified strategy. */
+		this.putInitAgentStrategy.putAgent(
+				this.newAgents, PackedAgents.typeOf(agent), agent.getEnergy());
+
+	}
+	
+	/**
+	 * The given agent object is only used to determine the type and energy of
+	 * the agent to put in this cell, and is not kept.
+	 * 
+	 * @see ICell#putNewAgent(IAgent)
+	 */
+	@Override
+	public void putNewAgent(IAgent agent) {
+		
+		/* Put new agent in new agent list. */
+		this.newAgents.add(PackedAgents.typeOf(agent), agent.getEnergy());
+
+	}
+	
+	/**
+	 * The given agent object is only used to determine the type and energy of
+	 * the agent to put in this cell, and is not kept.
+	 * 
+	 * @see ICell#putExistingAgent(IAgent)
+	 */
+	@Override
+	public void putExistingAgent(IAgent agent) {
+
+		/* Put existing agent according to the specified strategy. */
+		this.putExistingAgentStrategy.putAgent(
+				this.existingAgents, PackedAgents.typeOf(agent), agent.getEnergy());
+
+	}
+	
+	/**
+	 * @see ICell#getStats(IterationStats, AgentPool)
+	 */
+	@Override
+	public void getStats(IterationStats stats, AgentPool pool) {
+		
+		this.auxAgents.clear();
+		
+		/* Count previously existing agents, add them to the auxAgents list. */
+		for (int i = 0; i < this.agents.size(); i++) {
+			
+			int energy = this.agents.getEnergy(i);
+			
+			/* If he's alive, count him and add him to the auxAgents list. */
+			if (energy > 0) {
+				byte type = this.agents.getType(i);
+				AgentRules.countAgent(stats, type, energy);
+				this.auxAgents.add(type, energy);
+			}
+		}
+		
+		/* Count newly born agents, add them to the auxAgents list. */
+		for (int i = 0; i < this.newAgents.size(); i++) {
+
+			int energy = this.newAgents.getEnergy(i);
+			byte type = this.newAgents.getType(i);
+			AgentRules.countAgent(stats, type, energy);
+			this.auxAgents.add(type, energy);
+
+		}
+		
+		/* Clear the newAgents list. */
+		this.newAgents.clear();
+		
+		/* Swap agents lists. The auxAgents list becomes the current agents list, and vice-versa. */
+		PackedAgents aux = this.agents;
+		this.agents = this.auxAgents;
+		this.auxAgents = aux;
+		
+	}
+	
+	/**
+	 * @see ICell#agentActions(IRng, boolean, AgentPool)
+	 */
+	@Override
+	public void agentActions(IRng rng, boolean shuffle, AgentPool pool) {
+		
+		/* Swap current agents list and existingAgents list. */
+		PackedAgents aux;
+		aux = this.agents;
+		this.agents = this.existingAgents;
+		this.existingAgents = aux;
+		this.existingAgents.clear();
+		
+		/* Shuffle agents in the same way as Collections.shuffle() does, so 
+		 * that the random number generator is used exactly as in the object
+		 * model. */
+		if (shuffle) {
+			for (int i = this.agents.size(); i > 1; i--)
+				this.agents.swap(i - 1, rng.nextInt(i));
+		}
+		
+		/* Cycle through agents in the current agents list. */
+		for (int i = 0; i < this.agents.size(); i++) {
+			
+			/* If agent is alive, perform its actions. */
+			if (this.agents.getEnergy(i) > 0) {
+				
+				/* Maybe eat something. */
+				if (this.agents.getType(i) == PackedAgents.SHEEP)
+					this.sheepTryEat(i);
+				else
+					this.wolfTryEat(i);
+				
+				/* Maybe perform reproduction. */
+				this.tryReproduce(i, rng);
+			}
+		}
+		
+	}
+	
+	/**
+	 * @see ICell#agentsMove(IRng, AgentPool, AgentOutbox)
+	 */
+	@Override
+	public void agentsMove(IRng rng, AgentPool pool, AgentOutbox outbox) {
+			
+		/*  Cycle through agents in the current agents list. */
+		for (int i = 0; i < this.agents.size(); i++) {
+			
+			/* Decrement agent energy. */
+			int energy = this.agents.getEnergy(i) - 1;
+			this.agents.setEnergy(i, energy);
+
+			/* Move agent if he's still alive. */
+			if (energy > 0) {
+				
+				/* Choose a random direction. */
+				int direction = rng.nextInt(this.space.getNeighborhoodSize());
+				
+				/* Move agent. */
+				PackedCell dest = 
+						(PackedCell) this.cells[this.space.getNeighbor(this.idx, direction)];
+				dest.putExistingAgentStrategy.putAgent(
+						dest.existingAgents, this.agents.getType(i), energy);
+				
+			}
+		}
+		
+	}
+	
+	/**
+	 * @see ICell#clear()
+	 */
+	@Override
+	public void clear() {
+		
+		this.agents.clear();
+		this.existingAgents.clear();
+		this.newAgents.clear();
+		this.auxAgents.clear();
+		
+	}
+	
+	/**
+	 * Sheep at the given index tries to eat grass in this cell.
+	 * 
+	 * @param idx Index of sheep in the current agents list.
+	 */
+	private void sheepTryEat(int idx) {
+		
+		/* Check if grass is alive. */
+		if (this.isGrassAlive()) {
+			
+			/* Grass is alive, eat it... */
+			this.eatGrass();
+			
+			/* ...and gain energy from it. */
+			this.agents.setEnergy(idx, this.agents.getEnergy(idx) 
+					+ AgentRules.gainFromFood(PackedAgents.SHEEP, this.params));
+			
+		}
+	}
+	
+	/**
+	 * Wolf at the given index tries to eat a sheep in this cell.
+	 * 
+	 * @param idx Index of wolf in the current agents list.
+	 */
+	private void wolfTryEat(int idx) {
+		
+		/* Iterate over agents in this cell. */
+		for (int i = 0; i < this.agents.size(); i++) {
+			
+			/* Check if agent is a sheep which is still alive (otherwise 
+			 * another wolf got to the sheep first). */
+			if (this.agents.getType(i) == PackedAgents.SHEEP 
+					&& this.agents.getEnergy(i) > 0) {
+				
+				/* Eat sheep... */
+				this.agents.setEnergy(i, 0);
+				
+				/* ...and gain energy from it. */
+				this.agents.setEnergy(idx, this.agents.getEnergy(idx) 
+						+ AgentRules.gainFromFood(PackedAgents.WOLF, this.params));
+				
+				/* I can only eat one sheep, so get out of here. */
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Agent at the given index tries to reproduce.
+	 * 
+	 * @param idx Index of agent in the current agents list.
+	 * @param rng Random number generator used to try reproduction.
+	 */
+	private void tryReproduce(int idx, IRng rng) {
+		
+		byte type = this.agents.getType(idx);
+		int energy = this.agents.getEnergy(idx);
+		
+		/* Throw dice, see if agent reproduces. */
+		int childEnergy = 
+				AgentRules.offspringEnergy(type, energy, this.params, rng);
+		if (childEnergy != AgentRules.NO_OFFSPRING) {
+			
+			/* Create new agent with half of the energy of the current agent
+			 * and put it in the new agents list. */
+			this.agents.setEnergy(idx, energy - childEnergy);
+			this.newAgents.add(type, childEnergy);
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+/**
+ * Strategies for putting a packed agent in a cell's internal packed agent 
+ * list, used by the PACKED agent engine. Strategy design pattern.
+ * 
+ * @see PackedCell
+ * 
+ * @author Nuno Fachada
+ */
+public enum PackedCellPutAgentStrategy {
+	
+	/** @see CellPutAgentMode#ASYNC */
+	ASYNC {
+		/** @see PackedCellPutAgentStrategy#putAgent(PackedAgents, byte, int) */
+		@Override
+		public void putAgent(PackedAgents agents, byte type, int energy) {
+			agents.add(type, energy);
+		}
+	},
+	
+	/** @see CellPutAgentMode#SYNC */
+	SYNC {
+		/** @see PackedCellPutAgentStrategy#putAgent(PackedAgents, byte, int) */
+		@Override
+		public void putAgent(PackedAgents agents, byte type, int energy) {
+			synchronized (agents) {
+				agents.add(type, energy);
+			}
+		}
+	},
+	
+	/** @see CellPutAgentMode#SYNC_ORDERED */
+	SYNC_ORDERED {
+		/** @see PackedCellPutAgentStrategy#putAgent(PackedAgents, byte, int) */
+		@Override
+		public void putAgent(PackedAgents agents, byte type, int energy) {
+			synchronized (agents) {
+				
+				/* Agent profiles are the same as in the object model, so 
+				 * packed agents are kept in the same order as agent 
+				 * objects. */
+				agents.addOrdered(type, energy);
+				
+			}
+		}
+	};
+	
+	/**
+	 * Put a packed agent in a cell's internal packed agent list using the 
+	 * behavior of this strategy.
+	 * 
+	 * @param agents Packed agent list, internal to the cell.
+	 * @param type Type of agent to put in list.
+	 * @param energy Energy of agent to put in list.
+	 */
+	public abstract void putAgent(PackedAgents agents, byte type, int energy);
+	
+	/**
+	 * Get the strategy which puts packed agents in the given mode.
+	 * 
+	 * @param mode How agents are put in cells.
+	 * @return The strategy which puts packed agents in the given mode.
+	 * @throws IllegalArgumentException If packed agents can't be put in the
+	 * given mode.
+	 */
+	public static PackedCellPutAgentStrategy forMode(CellPutAgentMode mode) {
+		switch (mode) {
+			case ASYNC:
+				return ASYNC;
+			case SYNC:
+				return SYNC;
+			case SYNC_ORDERED:
+				return SYNC_ORDERED;
+			default:
+				throw new IllegalArgumentException(
+						"Packed agents can't be put in mode " + mode);
+		}
+	}
+
+}
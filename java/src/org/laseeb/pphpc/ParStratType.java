@@ -47,7 +47,9 @@ public enum ParStratType {
 		@Override
 		/** @see ParStratType#getWorkFactory() */
 		public IWorkFactory getWorkFactory(PredPrey pp) {
-			return new EqualWorkFactory(pp.getNumThreads(), false);
+			return new EqualWorkFactory(
+					pp.getNumThreads(), false, false, 
+					pp.isRebalance(), pp.getSpinBudget());
 		}
 	},
 	
@@ -56,7 +58,21 @@ public enum ParStratType {
 		@Override
 		/** @see ParStratType#getWorkFactory() */
 		public IWorkFactory getWorkFactory(PredPrey pp) {
-			return new EqualWorkFactory(pp.getNumThreads(), true);
+			return new EqualWorkFactory(
+					pp.getNumThreads(), true, false, 
+					pp.isRebalance(), pp.getSpinBudget());
+		}
+	},
+	
+	/** Equal with repeatability for a given number of threads, sorting 
+	 * agents once per cell (OBJECT agent engine only). */
+	ES {
+		@Override
+		/** @see ParStratType#getWorkFactory() */
+		public IWorkFactory getWorkFactory(PredPrey pp) {
+			return new EqualWorkFactory(
+					pp.getNumThreads(), true, true, 
+					pp.isRebalance(), pp.getSpinBudget());
 		}
 	},
 	
@@ -65,7 +81,18 @@ public enum ParStratType {
 		@Override
 		/** @see ParStratType#getWorkFactory() */
 		public IWorkFactory getWorkFactory(PredPrey pp) {
-			return new EqualRowSyncWorkFactory(pp.getNumThreads());
+			return new EqualRowSyncWorkFactory(
+					pp.getNumThreads(), pp.getSpinBudget(), false);
+		}
+	},
+	
+	/** Equal with row synchronization among neighbor workers only. */
+	EN {
+		@Override
+		/** @see ParStratType#getWorkFactory() */
+		public IWorkFactory getWorkFactory(PredPrey pp) {
+			return new EqualRowSyncWorkFactory(
+					pp.getNumThreads(), pp.getSpinBudget(), true);
 		}
 	},
 	
@@ -74,7 +101,18 @@ public enum ParStratType {
 		@Override
 		/** @see ParStratType#getWorkFactory() */
 		public IWorkFactory getWorkFactory(PredPrey pp) {
-			return new OnDemandWorkFactory(
+			return new OnDemandWorkFactory(pp.getNumThreads(), 
+					pp.getBlockSize(), pp.isAdaptiveBlocks(), 
+					pp.getSpinBudget());
+		}
+	},
+	
+	/** Fork/join with work stealing. */
+	FJ {
+		@Override
+		/** @see ParStratType#getWorkFactory() */
+		public IWorkFactory getWorkFactory(PredPrey pp) {
+			return new ForkJoinWorkFactory(
 					pp.getNumThreads(), pp.getBlockSize());
 		}
 	};
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Management of global simulation statistics in which each worker adds its
+ * statistics to its own slot, without atomic operations. Slots are padded,
+ * such that workers never write to the same cache line. Per-worker 
+ * statistics of an iteration are reduced once, when first requested after
+ * all workers have published their statistics for that iteration. 
+ * Statistics requested for an iteration still in progress are the sum of 
+ * the statistics published so far, but are not kept.
+ * 
+ * Each worker must update statistics once per iteration, in increasing 
+ * iteration order.
+ * 
+ * @author Nuno Fachada
+ */
+public class PerWorkerGlobalStats implements IGlobalStats {
+	
+	/* Position of each statistic within the statistics of an iteration. */
+	private static final int SHEEP_COUNT = 0;
+	private static final int WOLVES_COUNT = 1;
+	private static final int GRASS_ALIVE = 2;
+	private static final int SHEEP_ENERGY = 3;
+	private static final int WOLVES_ENERGY = 4;
+	private static final int GRASS_COUNTDOWN = 5;
+	
+	/* Number of statistics per iteration. */
+	private static final int NUM_STATS = 6;
+	
+	/* Padding, in longs, before and after the statistics of each worker. 
+	 * Two 64-byte cache lines, since some CPUs prefetch lines in pairs. */
+	private static final int PAD_LONGS = 16;
+	
+	/* Distance, in ints, between the published iterations of consecutive 
+	 * workers. */
+	private static final int PAD_INTS = 32;
+
+	/* Statistics slot of each worker, with the statistics of all iterations
+	 * after the initial padding. */
+	private long[][] slots;
+	
+	/* Last iteration for which each worker published statistics. Written
+	 * with release semantics after the statistics, so that a reader which 
+	 * sees the iteration also sees the statistics. */
+	private AtomicIntegerArray published;
+	
+	/* Reduced statistics of all iterations. */
+	private long[] reduced;
+	
+	/* Number of iterations, starting at the zero iteration, for which 
+	 * statistics are already reduced. */
+	private int reducedIters;
+	
+	/* Number of workers. */
+	private int numWorkers;
+	
+	/**
+	 * Create a new per-worker global statistics object.
+	 * 
+	 * @param iters Number of iterations.
+	 * @param numWorkers Number of workers updating statistics.
+	 */
+	public PerWorkerGlobalStats(int iters, int numWorkers) {
+		
+		this.numWorkers = numWorkers;
+		this.slots = new long[numWorkers][];
+		for (int w = 0; w < numWorkers; w++) {
+			this.slots[w] = new long[PAD_LONGS + (iters + 1) * NUM_STATS + PAD_LONGS];
+		}
+		this.published = new AtomicIntegerArray(numWorkers * PAD_INTS);
+		this.reduced = new long[(iters + 1) * NUM_STATS];
+		this.reset();
+	}
+
+	/**
+	 * @see IGlobalStats#getStats(StatType, int)
+	 */
+	@Override
+	public Number getStats(StatType st, int iter) {
+		
+		IterationStats stats = this.getStats(iter);
+		switch (st) {
+			case SHEEP_COUNT:
+				return stats.getSheepCount();
+			case WOLVES_COUNT:
+				return stats.getWolvesCount();
+			case GRASS_ALIVE:
+				return stats.getGrassAlive();
+			case SHEEP_ENERGY:
+				return stats.getSheepEnergy();
+			case WOLVES_ENERGY:
+				return stats.getWolvesEnergy();
+			case GRASS_COUNTDOWN:
+				return stats.getGrassCountdown();
+		}
+		return 0;
+	}
+
+	/**
+	 * @see IGlobalStats#getStats(int)
+	 */
+	@Override
+	public synchronized IterationStats getStats(int iter) {
+		
+		/* If the requested iteration is not yet reduced, reduce the 
+		 * statistics of iterations for which all workers already published
+		 * their statistics. */
+		if (iter >= this.reducedIters) {
+			int complete = Integer.MAX_VALUE;
+			for (int w = 0; w < this.numWorkers; w++) {
+				complete = Math.min(complete, this.published.get(w * PAD_INTS));
+			}
+			if (complete >= this.reducedIters) {
+				this.sum(this.reducedIters, complete + 1, this.reduced, 
+						this.reducedIters * NUM_STATS);
+				this.reducedIters = complete + 1;
+			}
+		}
+		
+		/* If the requested iteration is not complete, sum the statistics 
+		 * published so far, without keeping them. */
+		long[] values = this.reduced;
+		int base = iter * NUM_STATS;
+		if (iter >= this.reducedIters) {
+			values = new long[NUM_STATS];
+			base = 0;
+			this.sum(iter, iter + 1, values, base);
+		}
+		
+		return new IterationStats(
+				(int) values[base + SHEEP_COUNT], 
+				(int) values[base + WOLVES_COUNT], 
+				(int) values[base + GRASS_ALIVE],
+				values[base + SHEEP_ENERGY], 
+				values[base + WOLVES_ENERGY], 
+				values[base + GRASS_COUNTDOWN]);
+	}
+	
+	/**
+	 * Sum the statistics of all workers for the given range of iterations.
+	 * The slot of each worker is traversed sequentially.
+	 * 
+	 * @param from First iteration (inclusive).
+	 * @param to Last iteration (exclusive).
+	 * @param dest Array where to place the sums.
+	 * @param base Position of the sums in the given array.
+	 */
+	private void sum(int from, int to, long[] dest, int base) {
+		
+		int len = (to - from) * NUM_STATS;
+		Arrays.fill(dest, base, base + len, 0);
+		for (int w = 0; w < this.numWorkers; w++) {
+			long[] slot = this.slots[w];
+			int pos = PAD_LONGS + from * NUM_STATS;
+			for (int i = 0; i < len; i++) {
+				dest[base + i] += slot[pos + i];
+			}
+		}
+	}
+
+	/**
+	 * @see IGlobalStats#updateStats(int, int, IterationStats)
+	 */
+	@Override
+	public void updateStats(int wId, int iter, IterationStats stats) {
+		
+		long[] slot = this.slots[wId];
+		int pos = PAD_LONGS + iter * NUM_STATS;
+		slot[pos + SHEEP_COUNT] += stats.getSheepCount();
+		slot[pos + WOLVES_COUNT] += stats.getWolvesCount();
+		slot[pos + GRASS_ALIVE] += stats.getGrassAlive();
+		slot[pos + SHEEP_ENERGY] += stats.getSheepEnergy();
+		slot[pos + WOLVES_ENERGY] += stats.getWolvesEnergy();
+		slot[pos + GRASS_COUNTDOWN] += stats.getGrassCountdown();
+		
+		/* Publish statistics for this iteration. */
+		this.published.lazySet(wId * PAD_INTS, iter);
+	}
+
+	/**
+	 * @see IGlobalStats#reset()
+	 */
+	@Override
+	public synchronized void reset() {
+		for (long[] slot : this.slots) {
+			Arrays.fill(slot, 0);
+		}
+		for (int w = 0; w < this.numWorkers; w++) {
+			this.published.set(w * PAD_INTS, -1);
+		}
+		this.reducedIters = 0;
+	}
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.util.Random;
+
+import org.uncommons.maths.binary.BinaryUtils;
+import org.uncommons.maths.random.RepeatableRNG;
+import org.uncommons.maths.random.SeedException;
+import org.uncommons.maths.random.SeedGenerator;
+
+/**
+ * Implementation of the Philox4x32-10 counter-based random number generator
+ * (Salmon et al., "Parallel random numbers: as easy as 1, 2, 3", SC'11). 
+ * Each block of four 32-bit random numbers is obtained by applying ten 
+ * rounds of a bijection, keyed by the seed, to a 128-bit counter. The 
+ * counter holds the position within the current stream in its first word, 
+ * and the index, iteration and pass selecting the stream in the remaining
+ * words.
+ * 
+ * Instances are not thread-safe, since each worker has its own generator.
+ * 
+ * @author Nuno Fachada
+ */
+public final class PhiloxRNG extends Random 
+	implements RepeatableRNG, ICounterBasedRNG, IRng {
+
+	/* Generated serial version UID. */
+	private static final long serialVersionUID = 3146204436158716474L;
+
+	/* Seed size for Philox4x32. */
+	private static final int SEED_SIZE_BYTES = 8;
+	
+	/* Number of rounds. */
+	private static final int ROUNDS = 10;
+	
+	/* Round multipliers. */
+	private static final long M0 = 0xD2511F53L;
+	private static final long M1 = 0xCD9E8D57L;
+	
+	/* Key increments (Weyl sequence). */
+	private static final int W0 = 0x9E3779B9;
+	private static final int W1 = 0xBB67AE85;
+
+	/* RNG seed. */
+	private byte[] seed;
+	
+	/* Key, derived from the seed. */
+	private int key0, key1;
+	
+	/* Counter words selecting the current stream. */
+	private int idx, iter, pass;
+	
+	/* Position of the next block within the current stream. */
+	private int block;
+	
+	/* Current block of random numbers. */
+	private int[] output = new int[4];
+	
+	/* Position of the next random number in the current block. */
+	private int outputPos;
+
+	/**
+	 * Seed the Philox RNG using the provided seed generation strategy.
+	 * 
+	 * @param seedGenerator The seed generation strategy that will provide
+	 * the seed value for this RNG.
+	 * @throws SeedException If there is a problem generating a seed.
+	 */
+	public PhiloxRNG(SeedGenerator seedGenerator) throws SeedException {
+		this(seedGenerator.generateSeed(SEED_SIZE_BYTES));
+	}
+
+	/**
+	 * Creates an RNG and seeds it with the specified seed data.
+	 * 
+	 * @param seed The seed data used to initialize the RNG.
+	 */
+	public PhiloxRNG(byte[] seed) {
+		
+		if (seed == null || seed.length != SEED_SIZE_BYTES) {
+			throw new IllegalArgumentException("Philox RNG requires 64 bits of seed data.");
+		}
+		this.seed = seed.clone();
+		int[] key = BinaryUtils.convertBytesToInts(seed);
+		this.key0 = key[0];
+		this.key1 = key[1];
+		this.setStream(0, 0, 0);
+	}
+
+	/**
+	 * @see org.uncommons.maths.random.RepeatableRNG#getSeed()
+	 */
+	@Override
+	public byte[] getSeed() {
+		return this.seed.clone();
+	}
+	
+	/**
+	 * @see ICounterBasedRNG#setStream(int, int, int)
+	 */
+	@Override
+	public void setStream(int pass, int iter, int idx) {
+		this.pass = pass;
+		this.iter = iter;
+		this.idx = idx;
+		this.block = 0;
+		this.outputPos = this.output.length;
+	}
+
+	/**
+	 * @see IRng#nextInts(int[], int, int, int)
+	 */
+	@Override
+	public void nextInts(int[] dest, int from, int to, int bound) {
+		for (int i = from; i < to; i++) {
+			dest[i] = this.nextInt(bound);
+		}
+	}
+
+	/**
+	 * @see java.util.Random#next(int bits)
+	 */
+	@Override
+	protected int next(int bits) {
+		if (this.outputPos == this.output.length) {
+			this.generateBlock();
+		}
+		return this.output[this.outputPos++] >>> (32 - bits);
+	}
+	
+	/**
+	 * Generate the block of random numbers for the current counter, and 
+	 * advance the counter.
+	 */
+	private void generateBlock() {
+		
+		int c0 = this.block++, c1 = this.idx, c2 = this.iter, c3 = this.pass;
+		int k0 = this.key0, k1 = this.key1;
+		
+		for (int r = 0; r < ROUNDS; r++) {
+			
+			/* Multiply two counter words by the round multipliers, obtaining
+			 * the high and low halves of each 64-bit product. */
+			long p0 = M0 * (c0 & 0xFFFFFFFFL);
+			long p1 = M1 * (c2 & 0xFFFFFFFFL);
+			
+			/* Mix the products with the other counter words and the key. */
+			c0 = (int) (p1 >>> 32) ^ c1 ^ k0;
+			c1 = (int) p1;
+			c2 = (int) (p0 >>> 32) ^ c3 ^ k1;
+			c3 = (int) p0;
+			
+			/* Bump the key. */
+			k0 += W0;
+			k1 += W1;
+		}
+		
+		this.output[0] = c0;
+		this.output[1] = c1;
+		this.output[2] = c2;
+		this.output[3] = c3;
+		this.outputPos = 0;
+	}
+}
@@ -95,7 +95,7 @@ public class PredPrey {
 	
 	/* Parallelization strategy. */
 	@Parameter(names = {"-ps", "--par-strat"}, description = "Parallelization"
-			+ " strategy (ST, EQ, EX, ER or OD)",
+			+ " strategy (ST, EQ, EX, ES, ER, EN, OD or FJ)",
 			converter =  ParStratTypeConverter.class)
 	private ParStratType parStart = ParStratType.EQ;
 
@@ -105,12 +105,35 @@ public class PredPrey {
 			validateWith = PositiveInteger.class)
 	private int numThreads = Runtime.getRuntime().availableProcessors();
 
-	/* Block size for OD parallelization strategy. */
-	@Parameter(names = "-b", description = "Block size (only for OD" 
-			+ " parallelization strategy)", 
+	/* Block size for OD and FJ parallelization strategies. */
+	@Parameter(names = "-b", description = "Block size (only for OD and FJ" 
+			+ " parallelization strategies)", 
 			validateWith = PositiveInteger.class)
 	private int blockSize = 100;
 	
+	/* Adapt block size of OD parallelization strategy? */
+	@Parameter(names = "--adaptive-blocks", description = "Process cells in"
+			+ " guided blocks, decreasing in size as cells are processed, down"
+			+ " to a minimum block size adapted to each phase of the"
+			+ " simulation, starting from the block size given by -b (only"
+			+ " for the OD parallelization strategy)")
+	private boolean adaptiveBlocks = false;
+	
+	/* Rebalance cell partitions of equal parallelization strategies? */
+	@Parameter(names = "--rebalance", description = "Move the boundaries"
+			+ " of the cell partitions of each thread at the end of each"
+			+ " iteration, such that partitions with more agents become"
+			+ " smaller (only for EQ, EX and ES parallelization strategies)")
+	private boolean rebalance = false;
+	
+	/* Spin budget for barriers in multithreaded parallelization strategies. */
+	@Parameter(names = "--spin", description = "Number of spin iterations"
+			+ " before workers waiting at a barrier are parked (if zero, a"
+			+ " cyclic barrier is used; only for EQ, EX, ES, ER, EN and OD"
+			+ " parallelization strategies)", 
+			validateWith = PositiveInteger.class)
+	private int spinBudget = 0;
+	
 	/* File containing simulation parameters. */
 	@Parameter(names = "-p", 
 			description = "File containing simulation parameters")
@@ -129,10 +152,75 @@ public class PredPrey {
 	/* Random number generator implementation. */
 	@Parameter(names = "-g", 
 			description = "Random number generator (AES, " + 
-					"CA, CMWC, JAVA, MT, RANDU, REALLYPOOR or XORSHIFT)", 
+					"CA, CMWC, JAVA, MT, RANDU, REALLYPOOR, XORSHIFT or PHILOX;" 
+					+ " PHILOX gives the same results with any strategy and" 
+					+ " number of threads)", 
 			converter =  RNGTypeConverter.class)
 	private RNGType rngType = RNGType.MT; //TODO verify this
 	
+	/* Size of the buffers of movement and reproduction draws. */
+	@Parameter(names = "--rng-buffer", description = "Number of agent"
+			+ " movement and reproduction random draws generated in bulk by"
+			+ " each worker, e.g. 4096 to 65536 (if zero, one draw is"
+			+ " generated at a time; changes simulation results; not valid"
+			+ " with PHILOX)", 
+			validateWith = PositiveInteger.class)
+	private int rngBufferSize = 0;
+	
+	/* Agent engine. */
+	@Parameter(names = {"-e", "--engine"}, description = "Agent engine: OBJECT"
+			+ " (agents are objects), PACKED (agents are packed in primitive"
+			+ " arrays, less memory and GC pressure), OFFHEAP (grass and"
+			+ " packed agents kept outside the Java heap) or LINKED (agents"
+			+ " kept in global arrays, linked by index in per-cell lists)",
+			converter = AgentEngineTypeConverter.class)
+	private AgentEngineType agentEngine = AgentEngineType.OBJECT;
+	
+	/* File backing off-heap state. */
+	@Parameter(names = "--offheap-file", description = "Memory-mapped file"
+			+ " backing the state of the OFFHEAP engine, deleted on exit (if"
+			+ " not given, direct memory is used, limited by the JVM option"
+			+ " -XX:MaxDirectMemorySize)")
+	private String offHeapFile = null;
+	
+	/* Relocate moving agents with a counting sort? */
+	@Parameter(names = "--relocate", description = "Relocate moving agents"
+			+ " with a counting sort by destination cell instead of"
+			+ " synchronized inserts (OBJECT engine only)")
+	private boolean relocate = false;
+	
+	/* Move agents to other workers through outboxes? */
+	@Parameter(names = "--outbox", description = "Move agents into cells of"
+			+ " other workers through per-worker outboxes, delivered after"
+			+ " the half-iteration barrier, so that agent movement requires no"
+			+ " synchronization (OBJECT engine only, no effect with OD and FJ)")
+	private boolean outbox = false;
+	
+	/* Alternate cell traversal direction? */
+	@Parameter(names = "--alternate-traversal", description = "Alternate the"
+			+ " direction in which cells are traversed in each pass, such"
+			+ " that each pass starts on the cells processed last, which are"
+			+ " likely still in cache (ignored by ER and EN)")
+	private boolean alternateTraversal = false;
+	
+	/* Use SIMD grass kernels? */
+	@Parameter(names = "--simd", description = "Use the Java Vector API for"
+			+ " grass regrowth and statistics (requires the JVM option"
+			+ " --add-modules jdk.incubator.vector)")
+	private boolean simd = false;
+	
+	/* Deliver model events to views asynchronously? */
+	@Parameter(names = "--async-events", description = "Deliver model events"
+			+ " to each view in a separate thread, through a bounded queue in"
+			+ " which pending new iteration events are coalesced, so that slow"
+			+ " views do not delay workers")
+	private boolean asyncEvents = false;
+	
+	/* Show number of agent objects allocated? */
+	@Parameter(names = "--show-allocations", description = "Show the number"
+			+ " of agent objects allocated in the simulation")
+	private boolean showAllocations = false;
+	
 	/* Shuffle agents before they act? */
 	@Parameter(names = {"-u", "--no-shuffle"}, description = "Disable agent"
 			+ " shuffling before agent actions (faster, but will have"
@@ -226,9 +314,82 @@ public class PredPrey {
 		if (this.seed == null)
 			this.seed = BigInteger.valueOf(System.nanoTime());
 		
+		/* Determine grass kernel, falling back to the scalar kernel if the
+		 * Vector API is not available. */
+		GrassKernelType grassKernelType = GrassKernelType.SCALAR;
+		if (this.simd) {
+			if (GrassKernelType.VECTOR.isAvailable()) {
+				grassKernelType = GrassKernelType.VECTOR;
+			} else {
+				System.err.println("Vector API not available (JVM option"
+						+ " --add-modules jdk.incubator.vector is required),"
+						+ " using scalar grass kernel.");
+			}
+		}
+		
+		/* Open the file backing off-heap state, if specified. */
+		OffHeapMemory offHeapMemory = null;
+		if (this.offHeapFile != null) {
+			if (!this.agentEngine.isOffHeap()) {
+				System.err.println("Option --offheap-file is only valid for"
+						+ " the OFFHEAP engine.");
+				System.exit(Errors.ARGS.getValue());
+			}
+			try {
+				offHeapMemory = new OffHeapMemory(this.offHeapFile);
+			} catch (IOException ioe) {
+				System.err.println("Unable to open off-heap file: " 
+						+ errMessage(ioe));
+				System.exit(Errors.ARGS.getValue());
+			}
+		}
+		
+		/* Check if the agent engine supports relocation, if specified. */
+		if (this.relocate && !this.agentEngine.supportsRelocation()) {
+			System.err.println("Option --relocate is only valid for the"
+					+ " OBJECT engine.");
+			System.exit(Errors.ARGS.getValue());
+		}
+		
+		/* Check if the agent engine sorts agents once per cell, if the ES
+		 * strategy is specified. */
+		if (this.parStart == ParStratType.ES 
+				&& !this.agentEngine.supportsPutMode(CellPutAgentMode.SYNC_SORTED)) {
+			System.err.println("Strategy ES is only valid for the"
+					+ " OBJECT engine.");
+			System.exit(Errors.ARGS.getValue());
+		}
+		
+		/* Check if the agent engine supports outboxes, if specified. Agents 
+		 * are either relocated or moved through outboxes. */
+		if (this.outbox && (this.agentEngine != AgentEngineType.OBJECT || this.relocate)) {
+			System.err.println("Option --outbox is only valid for the"
+					+ " OBJECT engine, without --relocate.");
+			System.exit(Errors.ARGS.getValue());
+		}
+		
+		/* Check if random draws can be buffered with the selected 
+		 * generator, if specified. */
+		if (this.rngBufferSize > 0 && this.rngType.isCounterBased()) {
+			System.err.println("Option --rng-buffer is not valid with"
+					+ " counter-based generators.");
+			System.exit(Errors.ARGS.getValue());
+		}
+		
 		/* Create the MVC model. */
-		IModel model = new Model(this.params, this.workFactory, 
-				!this.noShuffle, this.rngType, this.seed);
+		ModelOptions options = new ModelOptions()
+				.setShuffle(!this.noShuffle)
+				.setRngType(this.rngType)
+				.setSeed(this.seed)
+				.setAgentEngine(this.agentEngine)
+				.setGrassKernelType(grassKernelType)
+				.setOffHeapMemory(offHeapMemory)
+				.setRelocate(this.relocate)
+				.setAlternateTraversal(this.alternateTraversal)
+				.setOutbox(this.outbox)
+				.setAsyncEvents(this.asyncEvents)
+				.setRngBufferSize(this.rngBufferSize);
+		IModel model = new Model(this.params, this.workFactory, options);
 		
 		/* Obtain the MVC controller. */
 		IController controller = this.workFactory.createSimController(model);
@@ -389,5 +550,47 @@ public class PredPrey {
 	public int getBlockSize() {
 		return blockSize;
 	}
+
+	/**
+	 * Returns true if the block size of the OD strategy is to be adapted, 
+	 * false otherwise.
+	 * 
+	 * @return True if the block size of the OD strategy is to be adapted, 
+	 * false otherwise.
+	 */
+	public boolean isAdaptiveBlocks() {
+		return adaptiveBlocks;
+	}
+
+	/**
+	 * Returns true if cell partitions of equal strategies are to be 
+	 * rebalanced, false otherwise.
+	 * 
+	 * @return True if cell partitions of equal strategies are to be 
+	 * rebalanced, false otherwise.
+	 */
+	public boolean isRebalance() {
+		return rebalance;
+	}
+
+	/**
+	 * Returns the barrier spin budget specified in the command line.
+	 * 
+	 * @return The barrier spin budget specified in the command line.
+	 */
+	public int getSpinBudget() {
+		return spinBudget;
+	}
+
+	/**
+	 * Returns true if the number of agent objects allocated in the 
+	 * simulation is to be shown, false otherwise.
+	 * 
+	 * @return True if the number of agent objects allocated in the 
+	 * simulation is to be shown, false otherwise.
+	 */
+	public boolean isShowAllocations() {
+		return showAllocations;
+	}
 	
 }
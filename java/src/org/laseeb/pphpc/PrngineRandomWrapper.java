@@ -60,6 +60,16 @@ public class PrngineRandomWrapper extends Random {
         this.randomGen = randomGen;
     }
     
+    /**
+     * Get the wrapped generator. All PRNGine generators implement the JDK
+     * random generator interface.
+     * 
+     * @return The wrapped generator.
+     */
+    public RandomGenerator getGenerator() {
+    	return (RandomGenerator) randomGen;
+    }
+    
 
 	@Override
     public boolean nextBoolean() {
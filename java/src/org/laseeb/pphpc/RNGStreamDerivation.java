@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.util.Random;
+
+/**
+ * Ways of deriving the generator streams of workers from a root generator,
+ * used by the RNG types whose streams are not seeded independently.
+ * 
+ * @author Nuno Fachada
+ * @see RNGType#hasDerivedStreams()
+ */
+public enum RNGStreamDerivation {
+	
+	/** Split a root generator wrapping a {@link java.util.SplittableRandom}. */
+	JAVA_SPLIT {
+		@Override
+		public Random deriveStream(Random root) {
+			return ((JavaRandomWrapper) root).split();
+		}
+	},
+	/** Split a root generator wrapping an Apache Commons RNG splittable 
+	 * generator. */
+	APACHE_SPLIT {
+		@Override
+		public Random deriveStream(Random root) {
+			return ((ApacheCommonsRNGWrapper) root).split();
+		}
+	},
+	/** Jump a root generator wrapping an Apache Commons RNG jumpable 
+	 * generator. */
+	APACHE_JUMP {
+		@Override
+		public Random deriveStream(Random root) {
+			return ((ApacheCommonsRNGWrapper) root).jump();
+		}
+	};
+	
+	/**
+	 * Derive a new stream from a root generator.
+	 * 
+	 * @param root Root generator, which is modified.
+	 * @return The new stream.
+	 */
+	public abstract Random deriveStream(Random root);
+
+}
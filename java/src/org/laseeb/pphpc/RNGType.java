@@ -26,10 +26,10 @@
 
 package org.laseeb.pphpc;
 
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Random;
 import java.util.SplittableRandom;
-import java.util.random.RandomGenerator;
-import java.util.random.RandomGenerator.SplittableGenerator;
 import java.util.random.RandomGeneratorFactory;
 
 import org.uncommons.maths.random.AESCounterRNG;
@@ -57,85 +57,78 @@ import org.apache.commons.rng.simple.RandomSource;
 public enum RNGType {
 	
 	/** @see org.uncommons.maths.random.AESCounterRNG */
-	AES(false) {
+	AES {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new AESCounterRNG(seedGen);
 		}
 	},
 	/** @see org.uncommons.maths.random.CellularAutomatonRNG */
-	CA(false) {
+	CA {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new CellularAutomatonRNG(seedGen);
 		}
 	},
 	/** @see org.uncommons.maths.random.CMWC4096RNG */
-	CMWC(false) {
+	CMWC {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new CMWC4096RNG(seedGen);
 		}
 	},
 	/** @see org.uncommons.maths.random.JavaRNG */
-	JAVA(false) {
+	JAVA {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new JavaRNG(seedGen);
 		}
 	},
 	/** @see SplittableRandom*/
-	JAVASPLIT(false) {
-		JavaRandomWrapper rng;
+	JAVASPLIT(RNGStreamDerivation.JAVA_SPLIT) {
 		@Override
-		public synchronized Random createRNG(SeedGenerator seedGen) throws Exception {
-			if(!wasSplit()) {
-				splitRNG();
-					rng = new JavaRandomWrapper(
-							RandomGeneratorFactory.of("SplittableRandom").create(seedGen.generateSeed(16)));
-					return rng;
-			} else {				
-				return rng.split();
-			}
+		public Random createRNG(SeedGenerator seedGen) throws Exception {
+			return new JavaRandomWrapper(RandomGeneratorFactory.of("SplittableRandom")
+					.create(ByteBuffer.wrap(seedGen.generateSeed(8)).getLong()));
 		}
 	},
 	/** @see org.uncommons.maths.random.MersenneTwisterRNG */
-	MT(false) {
+	MT {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new MersenneTwisterRNG(seedGen);
 		}
 	},
 	/** @see RanduRNG */
-	RANDU(false) {
+	RANDU {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new RanduRNG(seedGen);
 		}
 	},
 	/** @see ModMidSquareRNG */
-	MODMIDSQUARE(false) {
+	MODMIDSQUARE {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new ModMidSquareRNG(seedGen);
 		}
 	},
 	/** @see org.uncommons.maths.random.XORShiftRNG */
-	XORSHIFT(false) {
+	XORSHIFT {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new XORShiftRNG(seedGen);
 		}
 	},
 	/** @see io.github.pr0methean.betterrandom.prng.Pcg128Random */
-	PCG128(false) {
+	PCG128 {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new Pcg128Random(seedGen.generateSeed(16));
 		}
 	},
 	/** @see io.github.pr0methean.betterrandom.prng.Pcg64Random */
-	PCG64(false) {
+	PCG64 {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new Pcg64Random(seedGen.generateSeed(8));
@@ -144,7 +137,7 @@ public enum RNGType {
 
 	
 	/** @see io.jenetics.prngine.KISS64Random */
-	KISS64(false) {
+	KISS64 {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 			return new PrngineRandomWrapper(new KISS64Random(seedGen.generateSeed(32)));
@@ -152,94 +145,154 @@ public enum RNGType {
 		}
 	},
 	/** @see io.jenetics.prngine.LCG64ShiftRandom */
-	LCG64(false) {
+	LCG64 {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
-			return new PrngineRandomWrapper(new LCG64ShiftRandom());
+			return new PrngineRandomWrapper(new LCG64ShiftRandom(seedGen.generateSeed(LCG64ShiftRandom.SEED_BYTES)));
 		}
 	},
 	
 	
 	/** @see org.apache.commons.rng.core.source64.L64X128Mix */
-	L64X128M(false) {
-		ApacheCommonsRNGWrapper rng;
+	L64X128M(RNGStreamDerivation.APACHE_SPLIT) {
 		@Override
-		public synchronized Random createRNG(SeedGenerator seedGen) throws Exception {
-			if(!wasSplit()) {
-				splitRNG();
-				rng = new ApacheCommonsRNGWrapper(RandomSource.L64_X128_MIX.create(seedGen.generateSeed(16)));
-				return rng;
-			} else {				
-				return rng.split();
-			}
+		public Random createRNG(SeedGenerator seedGen) throws Exception {
+			return new ApacheCommonsRNGWrapper(RandomSource.L64_X128_MIX.create(seedGen.generateSeed(16)));
 		}
 	},
 	/** @see org.apache.commons.rng.core.source64.L128X256Mix */
-	L128X256M(false) {
-		ApacheCommonsRNGWrapper rng;
+	L128X256M(RNGStreamDerivation.APACHE_SPLIT) {
 		@Override
-		public synchronized Random createRNG(SeedGenerator seedGen) throws Exception {
-			if(!wasSplit()) {
-				splitRNG();
-				rng = new ApacheCommonsRNGWrapper(RandomSource.L128_X256_MIX.create(seedGen.generateSeed(16)));
-				return rng;
-			} else {	
-				return rng.split();
-			}
+		public Random createRNG(SeedGenerator seedGen) throws Exception {
+			return new ApacheCommonsRNGWrapper(RandomSource.L128_X256_MIX.create(seedGen.generateSeed(16)));
 		}
 	},
 	/** @see org.apache.commons.rng.core.source64.XoShiRo256PlusPlus */
-	XOSHIRO(false) {
-		ApacheCommonsRNGWrapper rng;
+	XOSHIRO(RNGStreamDerivation.APACHE_JUMP) {
 		@Override
-		public synchronized Random createRNG(SeedGenerator seedGen) throws Exception {
-			if(!wasSplit()) {
-				splitRNG();
-				rng = new ApacheCommonsRNGWrapper(RandomSource.XO_SHI_RO_256_PP.create(seedGen.generateSeed(16)));
-				return rng;
-			} else {				
-				return rng.jump();
-			}
+		public Random createRNG(SeedGenerator seedGen) throws Exception {
+			return new ApacheCommonsRNGWrapper(RandomSource.XO_SHI_RO_256_PP.create(seedGen.generateSeed(16)));
 		}
 	},
 	/** @see org.apache.commons.rng.core.source64.XoRoShiRo128PlusPlus */
-	XOROSHIRO(false) {
-		ApacheCommonsRNGWrapper rng;
-
+	XOROSHIRO(RNGStreamDerivation.APACHE_JUMP) {
 		@Override
-		public synchronized Random createRNG(SeedGenerator seedGen) throws Exception {
-			if(!wasSplit()) {
-				splitRNG();
-				rng = new ApacheCommonsRNGWrapper(RandomSource.XO_RO_SHI_RO_128_PP.create(seedGen.generateSeed(16)));
-				return rng;
-			} else {				
-				return rng.jump();
-			}
+		public Random createRNG(SeedGenerator seedGen) throws Exception {
+			return new ApacheCommonsRNGWrapper(RandomSource.XO_RO_SHI_RO_128_PP.create(seedGen.generateSeed(16)));
 		}
 	}, 
 	/** @see org.apache.commons.rng.core.source64.SplitMix64 */
-	SPLIT(false) {
+	SPLIT {
 		@Override
 		public Random createRNG(SeedGenerator seedGen) throws Exception {
 				return  new ApacheCommonsRNGWrapper(RandomSource.SPLIT_MIX_64.create(seedGen.generateSeed(16)));
 		}
+	},
+	/** @see PhiloxRNG */
+	PHILOX {
+		@Override
+		public Random createRNG(SeedGenerator seedGen) throws Exception {
+			return new PhiloxRNG(seedGen);
+		}
+		@Override
+		public boolean isCounterBased() {
+			return true;
+		}
 	};
 
 
 	
-	private boolean split;
+	/* Derivation of the streams of each worker from a root generator, or
+	 * null if streams are seeded independently. */
+	private final RNGStreamDerivation derivation;
 	
-	private RNGType(boolean split) {
-        this.split = split;
-    }
+	/**
+	 * Create a RNG type whose worker streams are seeded independently.
+	 */
+	private RNGType() {
+		this.derivation = null;
+	}
 	
-	public boolean wasSplit() {
-        return split;
-    }
+	/**
+	 * Create a RNG type whose worker streams are derived from a root 
+	 * generator.
+	 * 
+	 * @param derivation How streams are derived from the root generator, by
+	 * splitting or jumping it.
+	 */
+	private RNGType(RNGStreamDerivation derivation) {
+		this.derivation = derivation;
+	}
 	
-	public void splitRNG () {
-        this.split = true;
-    }
+	/**
+	 * Are the streams of each worker derived from a root generator of this
+	 * type, by splitting or jumping it, instead of being seeded 
+	 * independently?
+	 * 
+	 * @return True if the streams of each worker are derived from a root
+	 * generator, false otherwise.
+	 */
+	public boolean hasDerivedStreams() {
+		return this.derivation != null;
+	}
+	
+	/**
+	 * Create a factory of the random number generator streams used by the 
+	 * workers of a model. Each model should have its own factory, such that
+	 * models do not share generator state.
+	 * 
+	 * @param seed Model seed.
+	 * @return A new factory of generator streams of this type.
+	 */
+	public IRNGStreamFactory createStreamFactory(BigInteger seed) {
+		if (this.derivation != null)
+			return new DerivedRNGStreamFactory(this, this.derivation, seed);
+		return new SeededRNGStreamFactory(this, seed);
+	}
+	
+	/**
+	 * Is this a counter-based RNG type? Generators of counter-based types 
+	 * implement {@link ICounterBasedRNG}, and all workers should create 
+	 * them with the same seed, since streams are selected by the counter.
+	 * 
+	 * @return True if this is a counter-based RNG type, false otherwise.
+	 */
+	public boolean isCounterBased() {
+		return false;
+	}
+	
+	/**
+	 * Create the random number generator associated with this RNG type, 
+	 * adapted to the primitive {@link IRng} interface used in the 
+	 * simulation.
+	 * 
+	 * @param seedGen Seed generator.
+	 * @return A random number generator associated with this RNG type.
+	 * @throws Exception If some problem occurs while creating the RNG.
+	 */
+	public IRng createIRng(SeedGenerator seedGen) throws Exception {
+		return adapt(this.createRNG(seedGen));
+	}
+	
+	/**
+	 * Adapt a generator to the {@link IRng} interface. Generators behind 
+	 * {@link java.util.Random} wrappers are unwrapped, so that the adapter 
+	 * calls them directly.
+	 * 
+	 * @param rng Generator to adapt.
+	 * @return The adapted generator.
+	 */
+	static IRng adapt(Random rng) {
+		if (rng instanceof IRng)
+			return (IRng) rng;
+		if (rng instanceof ApacheCommonsRNGWrapper)
+			return new RandomProviderRng(((ApacheCommonsRNGWrapper) rng).getProvider());
+		if (rng instanceof JavaRandomWrapper)
+			return new RandomGeneratorRng(((JavaRandomWrapper) rng).getGenerator());
+		if (rng instanceof PrngineRandomWrapper)
+			return new RandomGeneratorRng(((PrngineRandomWrapper) rng).getGenerator());
+		return new RandomGeneratorRng(rng);
+	}
 	
 	/**
 	 * Create the random number generator associated with this RNG type.
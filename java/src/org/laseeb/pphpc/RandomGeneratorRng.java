@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Adapter for generators implementing the JDK {@link RandomGenerator} 
+ * interface, which includes {@link java.util.Random} and its subclasses, the
+ * JDK generators and the PRNGine generators.
+ * 
+ * @author Nuno Fachada
+ */
+public final class RandomGeneratorRng implements IRng {
+	
+	/* The adapted generator. */
+	private final RandomGenerator rng;
+	
+	/**
+	 * Create a new adapter for the given generator.
+	 * 
+	 * @param rng The generator to adapt.
+	 */
+	public RandomGeneratorRng(RandomGenerator rng) {
+		this.rng = rng;
+	}
+
+	/**
+	 * @see IRng#nextInt()
+	 */
+	@Override
+	public int nextInt() {
+		return this.rng.nextInt();
+	}
+
+	/**
+	 * @see IRng#nextInt(int)
+	 */
+	@Override
+	public int nextInt(int bound) {
+		return this.rng.nextInt(bound);
+	}
+
+	/**
+	 * @see IRng#nextLong()
+	 */
+	@Override
+	public long nextLong() {
+		return this.rng.nextLong();
+	}
+
+	/**
+	 * @see IRng#nextBoolean()
+	 */
+	@Override
+	public boolean nextBoolean() {
+		return this.rng.nextBoolean();
+	}
+
+	/**
+	 * @see IRng#nextInts(int[], int, int, int)
+	 */
+	@Override
+	public void nextInts(int[] dest, int from, int to, int bound) {
+		RandomGenerator rng = this.rng;
+		for (int i = from; i < to; i++) {
+			dest[i] = rng.nextInt(bound);
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Grass kernel which processes one cell at a time.
+ * 
+ * @author Nuno Fachada
+ */
+public class ScalarGrassKernel implements IGrassKernel {
+
+	/**
+	 * Create a new scalar grass kernel.
+	 */
+	public ScalarGrassKernel() {}
+	
+	/**
+	 * @see IGrassKernel#regenerate(int[], int, int)
+	 */
+	@Override
+	public void regenerate(int[] grass, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (grass[i] > 0) {
+				grass[i]--;
+			}
+		}
+	}
+
+	/**
+	 * @see IGrassKernel#getStats(int[], int, int, IterationStats)
+	 */
+	@Override
+	public void getStats(int[] grass, int from, int to, IterationStats stats) {
+		
+		int alive = 0;
+		long countdown = 0;
+		
+		for (int i = from; i < to; i++) {
+			if (grass[i] == 0)
+				alive++;
+			else
+				countdown += grass[i];
+		}
+		
+		stats.updateGrassAlive(alive);
+		stats.updateGrassCountdown(countdown);
+	}
+
+	/**
+	 * @see IGrassKernel#regenerate(ByteBuffer, int, int)
+	 */
+	@Override
+	public void regenerate(ByteBuffer grass, int from, int to) {
+		for (int i = from << 2; i < to << 2; i += 4) {
+			int counter = grass.getInt(i);
+			if (counter > 0) {
+				grass.putInt(i, counter - 1);
+			}
+		}
+	}
+
+	/**
+	 * @see IGrassKernel#getStats(ByteBuffer, int, int, IterationStats)
+	 */
+	@Override
+	public void getStats(ByteBuffer grass, int from, int to, IterationStats stats) {
+		
+		int alive = 0;
+		long countdown = 0;
+		
+		for (int i = from << 2; i < to << 2; i += 4) {
+			int counter = grass.getInt(i);
+			if (counter == 0)
+				alive++;
+			else
+				countdown += counter;
+		}
+		
+		stats.updateGrassAlive(alive);
+		stats.updateGrassCountdown(countdown);
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.math.BigInteger;
+
+/**
+ * Factory of random number generator streams in which the generator of each
+ * worker is seeded independently, from the model seed and the worker ID. 
+ * Counter-based generators are seeded with the model seed only, since their
+ * streams are selected by the counter.
+ * 
+ * @author Nuno Fachada
+ */
+public class SeededRNGStreamFactory implements IRNGStreamFactory {
+	
+	/* Type of the generators. */
+	private final RNGType rngType;
+	
+	/* Model seed. */
+	private final BigInteger seed;
+
+	/**
+	 * Create a new factory of independently seeded streams.
+	 * 
+	 * @param rngType Type of the generators.
+	 * @param seed Model seed.
+	 */
+	public SeededRNGStreamFactory(RNGType rngType, BigInteger seed) {
+		this.rngType = rngType;
+		this.seed = seed;
+	}
+
+	/**
+	 * @see IRNGStreamFactory#createStream(int)
+	 */
+	@Override
+	public IRng createStream(int wId) throws Exception {
+		
+		/* Instantiate the seed generator for the PPHPC model. Counter-based
+		 * generators get the same seed in all workers, since the stream 
+		 * used to process each cell is selected by the counter. */
+		ModelSeedGenerator seedGen = new ModelSeedGenerator(
+				this.rngType.isCounterBased() ? 0 : wId, this.seed);
+		
+		/* Create and return the random number generator. */
+		return this.rngType.createIRng(seedGen);
+	}
+
+}
@@ -48,7 +48,7 @@ public class Sheep extends AbstractAgent {
 	 */
 	@Override
 	public int getReproduceProbability() {
-		return params.getSheepReproduceProb();
+		return AgentRules.reproduceProbability(PackedAgents.SHEEP, params);
 	}
 
 	/**
@@ -56,14 +56,22 @@ public class Sheep extends AbstractAgent {
 	 */
 	@Override
 	public int getReproduceThreshold() {
-		return params.getSheepReproduceThreshold();
+		return AgentRules.reproduceThreshold(PackedAgents.SHEEP, params);
 	}
 
 	/**
-	 * @see AbstractAgent#tryEat(ICell)
+	 * @see AbstractAgent#newOffspring(int, AgentPool)
 	 */
 	@Override
-	protected void tryEat(ICell cell) {
+	protected IAgent newOffspring(int energy, AgentPool pool) {
+		return pool.newSheep(energy);
+	}
+
+	/**
+	 * @see AbstractAgent#tryEat(Cell)
+	 */
+	@Override
+	protected void tryEat(Cell cell) {
 		
 		/* Only try to eat grass if I'm alive. */
 		if (this.isAlive()) {
@@ -75,7 +83,8 @@ public class Sheep extends AbstractAgent {
 				cell.eatGrass();
 				
 				/* ...and gain energy from it. */
-				this.setEnergy(this.getEnergy() + params.getSheepGainFromFood());
+				this.setEnergy(this.getEnergy() 
+						+ AgentRules.gainFromFood(PackedAgents.SHEEP, params));
 				
 			}
 			
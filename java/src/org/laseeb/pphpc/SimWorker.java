@@ -26,8 +26,6 @@
 
 package org.laseeb.pphpc;
 
-import java.util.Random;
-
 /**
  *  A simulation worker. Each worker runs in its own thread.
  *  
@@ -40,7 +38,7 @@ public class SimWorker implements Runnable {
 	private int wId;
 	
 	/* Work factory. */
-	private IWorkFactory workFactory;
+	private IWorkProviderFactory workFactory;
 	
 	/* Model parameters. */
 	private ModelParams params;
@@ -60,7 +58,7 @@ public class SimWorker implements Runnable {
 	 * @param model The MVC model.
 	 * @param controller The MVC controller.
 	 */
-	SimWorker(int wId, IWorkFactory workFactory, IModel model, IController controller) {
+	SimWorker(int wId, IWorkProviderFactory workFactory, IModel model, IController controller) {
 		this.wId = wId;
 		this.workFactory = workFactory;
 		this.params = model.getParams();
@@ -75,11 +73,12 @@ public class SimWorker implements Runnable {
 	 * */
 	public void run() {
 		
-		/* Random number generator for current worker. */
-		Random rng;
+		/* Per-token work of each pass, with the random number generator, 
+		 * agent pool and partial statistics of the current worker. */
+		WorkerPasses passes;
 
 		/* Partial statistics */
-		IterationStats iterStats = new IterationStats();
+		IterationStats iterStats;
 		
 		/* A work token. */
 		int token;
@@ -87,8 +86,16 @@ public class SimWorker implements Runnable {
 		/* Current iteration*/
 		int iter = 0;
 		
-		/* Shuffle agents before they act? */
-		boolean shuffle = this.model.isShuffle();
+		/* Alternate cell traversal direction in each pass? If so, each pass
+		 * starts on the cells processed last in the previous pass, which are
+		 * more likely to still be in cache. */
+		boolean alternate = this.model.isAlternateTraversal();
+		
+		/* Traverse cells in decreasing order in the current pass? */
+		boolean reverse = false;
+		
+		/* Agent object allocations already reported to the model. */
+		long reportedAllocations = 0;
 		
 		try {
 
@@ -107,62 +114,61 @@ public class SimWorker implements Runnable {
 			IWork sheepWork = sheepWorkProvider.newWork(wId);
 			IWork wolvesWork = wolvesWorkProvider.newWork(wId);
 
-			/* Create random number generator for current worker. */
-			rng = this.model.createRNG(wId);
+			/* Get my agent outbox, if agents are moved through outboxes. */
+			AgentOutbox outbox = this.model.getAgentOutbox(wId);
+			if (outbox != null) outbox.setWorkProvider(cellsWorkProvider);
+
+			/* Create random number generator for current worker, and the 
+			 * state with which passes are performed. */
+			passes = new WorkerPasses(this.model, this.model.createRNG(wId));
+			iterStats = passes.getStats();
 			
 			/* Notify controller that I'm about to begin working. */
 			this.controller.workerNotifyBeforeInitCells();
 			
 			/* Initialize simulation grid cells. */
-			while ((token = cellsWorkProvider.getNextToken(cellsWork)) >= 0) {
-				this.model.initCellAt(token, rng);
-			}
+			while ((token = cellsWorkProvider.getNextToken(cellsWork)) >= 0)
+				passes.initCell(token);
 
 			/* Reset my cells work. */
-			cellsWorkProvider.resetWork(cellsWork);
+			reverse = alternate && !reverse;
+			cellsWorkProvider.resetWork(cellsWork, reverse);
 
 			/* Notify controller I have initialized my allocated cells. */
 			this.controller.workerNotifyInitCells();
 			
-			while ((token = cellsWorkProvider.getNextToken(cellsWork)) >= 0) {
-				this.model.setCellNeighbors(token);
-			}
-
-			/* Reset my cells work. */
-			cellsWorkProvider.resetWork(cellsWork);
-			
-			/* Notify controller I already set the neighbors for my allocated cells. */
-			controller.workerNotifySetCellNeighbors();
-			
 			/* Populate simulation grid with agents. */
-			while ((token = sheepWorkProvider.getNextToken(sheepWork)) >= 0) {
-				int idx = rng.nextInt(this.model.getSize());
-				IAgent sheep = new Sheep(
-						1 + rng.nextInt(2 * this.params.getSheepGainFromFood()), this.params);
-				this.model.getCell(idx).putInitAgent(sheep);
-			}
+			while ((token = sheepWorkProvider.getNextToken(sheepWork)) >= 0)
+				passes.initSheep(token);
 
-			while ((token = wolvesWorkProvider.getNextToken(wolvesWork)) >= 0) {
-				int idx = rng.nextInt(this.model.getSize());
-				IAgent wolf = new Wolf(
-						1 + rng.nextInt(2 * this.params.getWolvesGainFromFood()), this.params);
-				this.model.getCell(idx).putInitAgent(wolf);
-			}
+			while ((token = wolvesWorkProvider.getNextToken(wolvesWork)) >= 0)
+				passes.initWolf(token);
 			
 			/* Notify controller I already initialized my allocated agents. */
 			this.controller.workerNotifyInitAgents();
-			
+
+			/* Reset my agent creation work, now that all workers have
+			 * finished it, such that agents are created again if the
+			 * simulation is restarted. */
+			sheepWorkProvider.resetWork(sheepWork);
+			wolvesWorkProvider.resetWork(wolvesWork);
+
 			/* Get initial statistics. */
 			iterStats.reset();
-			while ((token = cellsWorkProvider.getNextToken(cellsWork)) >= 0) {
-				this.model.getCell(token).getStats(iterStats);
-			}
+			while ((token = cellsWorkProvider.getNextToken(cellsWork)) >= 0)
+				passes.firstStats(token);
+			passes.finishPass();
 
 			/* Reset my cells work. */
-			cellsWorkProvider.resetWork(cellsWork);
+			reverse = alternate && !reverse;
+			cellsWorkProvider.resetWork(cellsWork, reverse);
 			
 			/* Update global statistics. */
-			this.model.updateStats(0, iterStats);
+			this.model.updateStats(this.wId, 0, iterStats);
+			
+			/* Report agent object allocations. */
+			this.model.updateAgentAllocations(passes.getAllocations());
+			reportedAllocations = passes.getAllocations();
 
 			/* Notify controller I updated statistics for the zero iteration. */
 			this.controller.workerNotifyFirstStats();
@@ -171,60 +177,42 @@ public class SimWorker implements Runnable {
 			for (iter = 1; iter <= this.params.getIters(); iter++) {
 				
 				/* Cycle through cells in order to perform step 1 and 2 of simulation. */
-				while ((token = cellsWorkProvider.getNextToken(cellsWork)) >= 0) {
-
-					/* Current cell being processed. */
-					ICell cell = this.model.getCell(token);
-
-					/* ************************* */
-					/* ** 1 - Agent movement. ** */
-					/* ************************* */
-	
-					cell.agentsMove(rng);
-						
-					/* ************************* */
-					/* *** 2 - Grass growth. *** */
-					/* ************************* */
-					
-					/* Regenerate grass if required. */
-					cell.regenerateGrass();
-	
-				}
+				while ((token = cellsWorkProvider.getNextToken(cellsWork)) >= 0)
+					passes.move(iter, token, outbox);
+				passes.finishPass();
 
 				/* Reset my cells work. */
-				cellsWorkProvider.resetWork(cellsWork);
+				reverse = alternate && !reverse;
+				cellsWorkProvider.resetWork(cellsWork, reverse);
 				
 				/* Notify controller I'm half-way through an iteration. */
 				this.controller.workerNotifyHalfIteration();
 				
+				/* Deliver agents moved into my cells by other workers. */
+				if (outbox != null) outbox.deliver();
+				
 				/* Reset statistics for current iteration. */
 				iterStats.reset();
 
 				/* Cycle through cells in order to perform step 3 and 4 of simulation. */
-				while ((token = cellsWorkProvider.getNextToken(cellsWork)) >= 0) {
-
-					/* Current cell being processed. */
-					ICell cell = this.model.getCell(token);
-
-					/* ************************** */
-					/* *** 3 - Agent actions. *** */
-					/* ************************** */
-	
-					cell.agentActions(rng, shuffle);
-					
-					/* ****************************** */
-					/* *** 4 - Gather statistics. *** */
-					/* ****************************** */
-	
-					cell.getStats(iterStats);
-					
-				}
+				while ((token = cellsWorkProvider.getNextToken(cellsWork)) >= 0)
+					passes.act(iter, token);
+				passes.finishPass();
+				
+				/* Inform the work provider of the load of my cells. */
+				cellsWorkProvider.updateLoad(cellsWork, iterStats);
 
 				/* Reset my cells work. */
-				cellsWorkProvider.resetWork(cellsWork);
+				reverse = alternate && !reverse;
+				cellsWorkProvider.resetWork(cellsWork, reverse);
 				
 				/* Update global statistics. */
-				this.model.updateStats(iter, iterStats);
+				this.model.updateStats(this.wId, iter, iterStats);
+				
+				/* Report agent object allocations in this iteration. */
+				this.model.updateAgentAllocations(
+						passes.getAllocations() - reportedAllocations);
+				reportedAllocations = passes.getAllocations();
 				
 				/* Notify controller I ended an iteration. */
 				this.controller.workerNotifyEndIteration();
@@ -94,10 +94,10 @@ public class SingleThreadGlobalStats implements IGlobalStats {
 	}
 
 	/**
-	 * @see IGlobalStats#updateStats(int, IterationStats)
+	 * @see IGlobalStats#updateStats(int, int, IterationStats)
 	 */
 	@Override
-	public void updateStats(int iter, IterationStats stats) {
+	public void updateStats(int wId, int iter, IterationStats stats) {
 		this.sheepCount[iter] = stats.getSheepCount();
 		this.wolvesCount[iter] = stats.getWolvesCount();
 		this.grassAlive[iter] = stats.getGrassAlive();
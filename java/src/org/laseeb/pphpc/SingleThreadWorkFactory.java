@@ -31,7 +31,7 @@ package org.laseeb.pphpc;
  * 
  * @author Nuno Fachada
  */
-public class SingleThreadWorkFactory implements IWorkFactory {
+public class SingleThreadWorkFactory implements IWorkProviderFactory {
 	
 	/**
 	 * Create a new single-threaded work factory.
@@ -39,7 +39,7 @@ public class SingleThreadWorkFactory implements IWorkFactory {
 	public SingleThreadWorkFactory() {}
 
 	/**
-	 * @see IWorkFactory#getWorkProvider(int, WorkType, IModel, IController)
+	 * @see IWorkProviderFactory#getWorkProvider(int, WorkType, IModel, IController)
 	 */
 	@Override
 	public IWorkProvider getWorkProvider(int workSize, WorkType workType, IModel model, IController controller) {
@@ -47,19 +47,19 @@ public class SingleThreadWorkFactory implements IWorkFactory {
 	}
 
 	/**
-	 * @see IWorkFactory#createPutInitAgentStrategy()
+	 * @see IWorkFactory#getPutInitAgentMode()
 	 */
 	@Override
-	public ICellPutAgentStrategy createPutInitAgentStrategy() {
-		return new CellPutAgentAsync();
+	public CellPutAgentMode getPutInitAgentMode() {
+		return CellPutAgentMode.ASYNC;
 	}
 
 	/**
-	 * @see IWorkFactory#createPutExistingAgentStrategy()
+	 * @see IWorkFactory#getPutExistingAgentMode()
 	 */
 	@Override
-	public ICellPutAgentStrategy createPutExistingAgentStrategy() {
-		return new CellPutAgentAsync();
+	public CellPutAgentMode getPutExistingAgentMode() {
+		return CellPutAgentMode.ASYNC;
 	}
 
 	/**
@@ -75,7 +75,6 @@ public class SingleThreadWorkFactory implements IWorkFactory {
 		controller.setWorkerSynchronizers(
 				new SingleThreadSyncPoint(ControlEvent.BEFORE_INIT_CELLS), 
 				new SingleThreadSyncPoint(ControlEvent.AFTER_INIT_CELLS), 
-				new SingleThreadSyncPoint(ControlEvent.AFTER_SET_CELL_NEIGHBORS), 
 				new SingleThreadSyncPoint(ControlEvent.AFTER_INIT_AGENTS), 
 				new SingleThreadSyncPoint(ControlEvent.AFTER_FIRST_STATS), 
 				new SingleThreadSyncPoint(ControlEvent.AFTER_HALF_ITERATION), 
@@ -107,4 +106,35 @@ public class SingleThreadWorkFactory implements IWorkFactory {
 		
 	}
 
+	/**
+	 * Always returns 1.
+	 * 
+	 * @see IWorkFactory#getNumThreads()
+	 */
+	@Override
+	public int getNumThreads() {
+		
+		/* Always returns 1. */
+		return 1;
+		
+	}
+
+	/**
+	 * Work distribution is not adapted, so there is nothing to report.
+	 * 
+	 * @see IWorkFactory#getWorkReport()
+	 */
+	@Override
+	public String getWorkReport() {
+		return null;
+	}
+
+	/**
+	 * @see IWorkFactory#createSimWorker(int, IModel, IController)
+	 */
+	@Override
+	public Runnable createSimWorker(int wId, IModel model, IController controller) {
+		return new SimWorker(wId, this, model, controller);
+	}
+
 }
@@ -42,6 +42,9 @@ public class SingleThreadWorkProvider implements IWorkProvider {
 		/* Work token counter. */
 		int counter;
 		
+		/* Provide work tokens in decreasing order? */
+		boolean reverse;
+		
 		/**
 		 * Create a new work state for the single available worker.
 		 * 
@@ -50,6 +53,7 @@ public class SingleThreadWorkProvider implements IWorkProvider {
 		public SingleThreadWork(int wId) {
 			super(wId);
 			this.counter = 0;
+			this.reverse = false;
 		}
 		
 	}
@@ -91,7 +95,8 @@ public class SingleThreadWorkProvider implements IWorkProvider {
 		if (stWork.counter < this.workSize) {
 			
 			/* ...get the next work token... */
-			nextToken = stWork.counter;
+			nextToken = stWork.reverse 
+					? this.workSize - 1 - stWork.counter : stWork.counter;
 			
 			/* ...and increment the work counter. */
 			stWork.counter++;
@@ -101,17 +106,42 @@ public class SingleThreadWorkProvider implements IWorkProvider {
 		return nextToken;
 	}
 
+	/**
+	 * @see IWorkProvider#getOwner(int)
+	 */
+	@Override
+	public int getOwner(int token) {
+		return 0;
+	}
+
 	/**
 	 * @see IWorkProvider#resetWork(IWork)
 	 */
 	@Override
 	public void resetWork(IWork work) {
+		this.resetWork(work, false);
+	}
+
+	/**
+	 * @see IWorkProvider#resetWork(IWork, boolean)
+	 */
+	@Override
+	public void resetWork(IWork work, boolean reverse) {
 		
 		/* Cast generic work to single-thread work. */
 		SingleThreadWork stWork = (SingleThreadWork) work;
 		
-		/* Set work counter to zero. */
+		/* Set work counter to zero, and set the direction. */
 		stWork.counter = 0;
+		stWork.reverse = reverse;
 	}
 
+	/**
+	 * Work is not balanced according to statistics, so nothing is done.
+	 * 
+	 * @see IWorkProvider#updateLoad(IWork, IterationStats)
+	 */
+	@Override
+	public void updateLoad(IWork work, IterationStats stats) {}
+
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A blocking simulation synchronizer based on a sense-reversing counter 
+ * barrier. Waits for all simulation workers to reach this synchronization 
+ * point before it lets them continue. Waiting workers spin for a given 
+ * number of iterations, which avoids the latency of parking and unparking
+ * threads when workers arrive close together, and park afterwards. The last
+ * worker to arrive executes the registered observers serially before the
+ * other workers are released.
+ * 
+ * @author Nuno Fachada
+ */
+public class SpinParkSyncPoint extends AbstractSyncPoint {
+
+	/* Number of workers involved in the blocking synchronization. */
+	private int numWorkers;
+	
+	/* Number of spin iterations before a waiting worker is parked. */
+	private int spinBudget;
+	
+	/* The simulation controller, passed to observers. */
+	private IController controller;
+	
+	/* Number of workers yet to arrive at the barrier. */
+	private AtomicInteger count;
+	
+	/* Barrier sense, reversed by the last worker to arrive. */
+	private volatile boolean sense;
+	
+	/* Parked workers, to be unparked by the last worker to arrive. */
+	private Queue<Thread> parked;
+	
+	/**
+	 * Create a new spin-then-park simulation synchronizer.
+	 * 
+	 * @param event Control event to associate with this synchronizer.
+	 * @param controller The simulation controller.
+	 * @param numWorkers Number of workers involved in the blocking 
+	 * synchronization.
+	 * @param spinBudget Number of spin iterations before a waiting worker 
+	 * is parked.
+	 */
+	public SpinParkSyncPoint(ControlEvent event, IController controller, 
+			int numWorkers, int spinBudget) {
+		
+		/* Call the super constructor. */
+		super(event);
+		
+		/* Keep parameters. */
+		this.controller = controller;
+		this.numWorkers = numWorkers;
+		this.spinBudget = spinBudget;
+		
+		/* Initialize barrier state. */
+		this.count = new AtomicInteger(numWorkers);
+		this.sense = false;
+		this.parked = new ConcurrentLinkedQueue<Thread>();
+	}
+	
+	/**
+	 * @see ISyncPoint#reset()
+	 */
+	@Override
+	public void reset() {
+		
+		/* Call overrided super class method. */
+		super.reset();
+		
+		/* Workers may have been left waiting in an interrupted simulation, so
+		 * reset the barrier count. This method is also invoked by the super
+		 * class constructor, before the barrier state exists. */
+		if (this.count != null)
+			this.count.set(this.numWorkers);
+	}
+
+	/**
+	 * @see ISyncPoint#stopNow()
+	 */
+	@Override
+	public void stopNow() {
+		
+		/* Call overrided super class method. */
+		super.stopNow();
+		
+		/* Wake up parked workers, so that they see the interruption. */
+		this.unparkAll();
+	}
+
+	/**
+	 * @see AbstractSyncPoint#doSyncNotify(IController)
+	 */
+	@Override
+	protected void doSyncNotify(IController controller) throws InterruptedWorkException {
+		
+		/* The sense this worker waits for. The barrier sense can only be 
+		 * reversed after this worker arrives, so it is safe to read it 
+		 * before arriving. */
+		boolean localSense = !this.sense;
+		
+		if (this.count.decrementAndGet() == 0) {
+			
+			/* Last worker to arrive: notify observers, reset the count for 
+			 * the next use of the barrier, release spinning workers by 
+			 * reversing the barrier sense, and unpark parked workers. */
+			this.notifyObservers(this.controller);
+			this.count.set(this.numWorkers);
+			this.sense = localSense;
+			this.unparkAll();
+			
+		} else {
+			
+			/* Wait for the last worker to arrive. */
+			Thread current = null;
+			int spins = 0;
+			while (this.sense != localSense) {
+				
+				/* Stop waiting if simulation was interrupted. */
+				if (this.interrupted)
+					throw new InterruptedWorkException("Interrupted by another thread.");
+				
+				if (spins < this.spinBudget) {
+					
+					/* Spin while within budget. */
+					spins++;
+					Thread.onSpinWait();
+					
+				} else {
+					
+					/* Spin budget exhausted, park. The barrier sense is 
+					 * checked again after the worker is registered as 
+					 * parked, so a release in between is never missed. */
+					if (current == null) {
+						current = Thread.currentThread();
+						this.parked.add(current);
+					}
+					if (this.sense != localSense && !this.interrupted)
+						LockSupport.park(this);
+				}
+			}
+			
+			/* Remove this worker from parked workers if it was not removed
+			 * when released. */
+			if (current != null)
+				this.parked.remove(current);
+		}
+	}
+	
+	/**
+	 * Unpark all parked workers.
+	 */
+	private void unparkAll() {
+		Thread t;
+		while ((t = this.parked.poll()) != null)
+			LockSupport.unpark(t);
+	}
+
+}
@@ -155,6 +155,8 @@ public class TestRNGs {
 				return new ModMidSquareRNG(seedGen);
 			case XORSHIFT: 
 				return new XORShiftRNG(seedGen);
+			case PHILOX:
+				return new PhiloxRNG(seedGen);
 			default:
 				throw new RuntimeException("Don't know this random number generator.");
 		}
@@ -93,10 +93,10 @@ public class ThreadSafeGlobalStats implements IGlobalStats {
 	}
 
 	/**
-	 * @see IGlobalStats#updateStats(int, IterationStats)
+	 * @see IGlobalStats#updateStats(int, int, IterationStats)
 	 */
 	@Override
-	public void updateStats(int iter, IterationStats stats) {
+	public void updateStats(int wId, int iter, IterationStats stats) {
 		this.sheepCount.addAndGet(iter, stats.getSheepCount());
 		this.wolvesCount.addAndGet(iter, stats.getWolvesCount());
 		this.grassAlive.addAndGet(iter, stats.getGrassAlive());
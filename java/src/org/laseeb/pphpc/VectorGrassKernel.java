@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.laseeb.pphpc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Grass kernel which processes several cells at a time in SIMD lanes, using
+ * the (incubating) Java Vector API. Requires the JVM to be started with the
+ * <code>--add-modules jdk.incubator.vector</code> option.
+ * 
+ * @author Nuno Fachada
+ */
+public class VectorGrassKernel implements IGrassKernel {
+	
+	/* Vector species, the preferred one for the current platform. */
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	/* Number of vectors which can be summed lane-wise before a lane may 
+	 * overflow, at which point the partial sums are reduced into a long. */
+	private int vectorsPerReduction;
+	
+	/**
+	 * Create a new vector grass kernel.
+	 * 
+	 * @param grassRestart Grass restart simulation parameter, i.e. the maximum
+	 * value of a grass counter.
+	 */
+	public VectorGrassKernel(int grassRestart) {
+		this.vectorsPerReduction = Integer.MAX_VALUE / Math.max(grassRestart, 1);
+	}
+	
+	/**
+	 * @see IGrassKernel#regenerate(int[], int, int)
+	 */
+	@Override
+	public void regenerate(int[] grass, int from, int to) {
+		
+		int i = from;
+		
+		/* Decrement counters and clamp at zero, which is the same as only 
+		 * decrementing positive counters, since counters are never 
+		 * negative. */
+		for (int upper = from + SPECIES.loopBound(to - from); i < upper; i += SPECIES.length()) {
+			IntVector.fromArray(SPECIES, grass, i)
+				.sub(1)
+				.max(0)
+				.intoArray(grass, i);
+		}
+		
+		/* Process remaining cells one at a time. */
+		for (; i < to; i++) {
+			if (grass[i] > 0) {
+				grass[i]--;
+			}
+		}
+	}
+
+	/**
+	 * @see IGrassKernel#getStats(int[], int, int, IterationStats)
+	 */
+	@Override
+	public void getStats(int[] grass, int from, int to, IterationStats stats) {
+		
+		int alive = 0;
+		long countdown = 0;
+		int i = from;
+		
+		/* Lane-wise partial sums of grass counters. */
+		IntVector sums = IntVector.zero(SPECIES);
+		int numSummed = 0;
+		
+		for (int upper = from + SPECIES.loopBound(to - from); i < upper; i += SPECIES.length()) {
+			
+			IntVector v = IntVector.fromArray(SPECIES, grass, i);
+			
+			/* Grass is alive in lanes where counter is zero... */
+			alive += v.eq(0).trueCount();
+			
+			/* ...and the countdown is the sum of all counters, since alive
+			 * grass counts as zero. */
+			sums = sums.add(v);
+			
+			/* Reduce partial sums before they can overflow. */
+			if (++numSummed == this.vectorsPerReduction) {
+				countdown += sums.reduceLanesToLong(VectorOperators.ADD);
+				sums = IntVector.zero(SPECIES);
+				numSummed = 0;
+			}
+		}
+		countdown += sums.reduceLanesToLong(VectorOperators.ADD);
+		
+		/* Process remaining cells one at a time. */
+		for (; i < to; i++) {
+			if (grass[i] == 0)
+				alive++;
+			else
+				countdown += grass[i];
+		}
+		
+		stats.updateGrassAlive(alive);
+		stats.updateGrassCountdown(countdown);
+	}
+
+	/**
+	 * @see IGrassKernel#regenerate(ByteBuffer, int, int)
+	 */
+	@Override
+	public void regenerate(ByteBuffer grass, int from, int to) {
+		
+		int i = from;
+		
+		/* Same as for arrays, but loading and storing lanes from the 
+		 * buffer. */
+		for (int upper = from + SPECIES.loopBound(to - from); i < upper; i += SPECIES.length()) {
+			IntVector.fromByteBuffer(SPECIES, grass, i << 2, ByteOrder.nativeOrder())
+				.sub(1)
+				.max(0)
+				.intoByteBuffer(grass, i << 2, ByteOrder.nativeOrder());
+		}
+		
+		/* Process remaining cells one at a time. */
+		for (; i < to; i++) {
+			int counter = grass.getInt(i << 2);
+			if (counter > 0) {
+				grass.putInt(i << 2, counter - 1);
+			}
+		}
+	}
+
+	/**
+	 * @see IGrassKernel#getStats(ByteBuffer, int, int, IterationStats)
+	 */
+	@Override
+	public void getStats(ByteBuffer grass, int from, int to, IterationStats stats) {
+		
+		int alive = 0;
+		long countdown = 0;
+		int i = from;
+		
+		/* Same as for arrays, but loading lanes from the buffer. */
+		IntVector sums = IntVector.zero(SPECIES);
+		int numSummed = 0;
+		
+		for (int upper = from + SPECIES.loopBound(to - from); i < upper; i += SPECIES.length()) {
+			
+			IntVector v = IntVector.fromByteBuffer(
+					SPECIES, grass, i << 2, ByteOrder.nativeOrder());
+			alive += v.eq(0).trueCount();
+			sums = sums.add(v);
+			
+			if (++numSummed == this.vectorsPerReduction) {
+				countdown += sums.reduceLanesToLong(VectorOperators.ADD);
+				sums = IntVector.zero(SPECIES);
+				numSummed = 0;
+			}
+		}
+		countdown += sums.reduceLanesToLong(VectorOperators.ADD);
+		
+		/* Process remaining cells one at a time. */
+		for (; i < to; i++) {
+			int counter = grass.getInt(i << 2);
+			if (counter == 0)
+				alive++;
+			else
+				countdown += counter;
+		}
+		
+		stats.updateGrassAlive(alive);
+		stats.updateGrassCountdown(countdown);
+	}
+
+}
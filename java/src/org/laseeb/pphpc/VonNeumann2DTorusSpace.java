@@ -26,10 +26,6 @@
 
 package org.laseeb.pphpc;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-
 /**
  * A two-dimensional toroidal space with Von Neumann neighborhood.
  * 
@@ -62,22 +58,40 @@ public class VonNeumann2DTorusSpace implements ISpace {
 	}
 	
 	/**
-	 * @see ISpace#setNeighbors(ICell[], int)
+	 * The Von Neumann neighborhood has five cells: the cell itself, and the
+	 * cells up, right, down and left of it.
+	 * 
+	 * @see ISpace#getNeighborhoodSize()
 	 */
 	@Override
-	public void setNeighbors(ICell[] cells, int idx) {
-		
-		/* Determine Von Neumann neighbors. */
-		int up = idx - this.x >= 0 ? idx - this.x : this.size - x + idx;
-		int down = idx + this.x < this.size  ? idx + this.x : idx + this.x - this.size;
-		int right = idx + 1 < this.size ? idx + 1 : 0;
-		int left = idx - 1 >= 0 ? idx - 1 : this.size - 1;
+	public int getNeighborhoodSize() {
+		return 5;
+	}
+
+	/**
+	 * Directions 0 to 4 correspond to the cell itself, and to the cells up, 
+	 * right, down and left of it, respectively.
+	 * 
+	 * @see ISpace#getNeighbor(int, int)
+	 */
+	@Override
+	public int getNeighbor(int idx, int direction) {
 		
-		/* Set Von Neumann neighborhood. */
-		List<ICell> neighborhood = Arrays.asList(
-				cells[idx], cells[up], cells[right], cells[down], cells[left]); 
-	
-		cells[idx].setNeighborhood(Collections.unmodifiableList(neighborhood));
+		/* Determine Von Neumann neighbor. */
+		switch (direction) {
+			case 0:
+				return idx;
+			case 1:
+				return idx - this.x >= 0 ? idx - this.x : this.size - x + idx;
+			case 2:
+				return idx + 1 < this.size ? idx + 1 : 0;
+			case 3:
+				return idx + this.x < this.size  ? idx + this.x : idx + this.x - this.size;
+			case 4:
+				return idx - 1 >= 0 ? idx - 1 : this.size - 1;
+			default:
+				throw new IllegalArgumentException("Invalid direction: " + direction);
+		}
 	}
 
 	/**
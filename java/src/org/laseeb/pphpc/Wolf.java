@@ -48,7 +48,7 @@ public class Wolf extends AbstractAgent {
 	 */
 	@Override
 	public int getReproduceProbability() {
-		return params.getWolvesReproduceProb();
+		return AgentRules.reproduceProbability(PackedAgents.WOLF, params);
 	}
 
 	/**
@@ -56,14 +56,22 @@ public class Wolf extends AbstractAgent {
 	 */
 	@Override
 	public int getReproduceThreshold() {
-		return params.getWolvesReproduceThreshold();
+		return AgentRules.reproduceThreshold(PackedAgents.WOLF, params);
 	}
 
 	/**
-	 * @see AbstractAgent#tryEat(ICell)
+	 * @see AbstractAgent#newOffspring(int, AgentPool)
 	 */
 	@Override
-	protected void tryEat(ICell cell) {
+	protected IAgent newOffspring(int energy, AgentPool pool) {
+		return pool.newWolf(energy);
+	}
+
+	/**
+	 * @see AbstractAgent#tryEat(Cell)
+	 */
+	@Override
+	protected void tryEat(Cell cell) {
 
 		/* Iterate over agents in this cell. */
 		for (IAgent agent : cell.getAgents()) {
@@ -78,7 +86,8 @@ public class Wolf extends AbstractAgent {
 					agent.setEnergy(0);
 
 					/* ...and gain energy from it. */
-					this.setEnergy(this.getEnergy() + params.getWolvesGainFromFood());
+					this.setEnergy(this.getEnergy() 
+							+ AgentRules.gainFromFood(PackedAgents.WOLF, params));
 
 					/* I can only eat one sheep, so get out of here. */
 					break;
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+/**
+ * Performs the work of each simulation pass for a single work token (a cell,
+ * or an initial agent), with the random number generator, agent pool and 
+ * partial statistics of the thread which processes the token. Used by all 
+ * simulation workers, which only differ in how work tokens are obtained. 
+ * Grass is regenerated, and grass statistics are gathered, in bulk for 
+ * ranges of contiguous cells, so {@link #finishPass()} must be invoked after
+ * the last token of each pass over cells.
+ * 
+ * @author Nuno Fachada
+ */
+public class WorkerPasses {
+	
+	/* MVC model. */
+	private IModel model;
+	
+	/* Model parameters. */
+	private ModelParams params;
+	
+	/* Shuffle agents before they act? */
+	private boolean shuffle;
+	
+	/* Random number generator. */
+	private IRng rng;
+	
+	/* The same random number generator, if it is counter-based, null 
+	 * otherwise. If so, its stream is selected for each token, so that 
+	 * results do not depend on which thread processes the token. */
+	private ICounterBasedRNG cbRng;
+	
+	/* Pool of agent objects. */
+	private AgentPool pool;
+	
+	/* Partial statistics. */
+	private IterationStats stats;
+	
+	/* Ranges of contiguous cells in which grass is regenerated, and in 
+	 * which grass statistics are gathered. */
+	private CellRangeAccumulator grassRegen;
+	private CellRangeAccumulator grassStats;
+	
+	/**
+	 * Create the pass state of a thread.
+	 * 
+	 * @param model The MVC model.
+	 * @param rng Random number generator of the thread.
+	 */
+	public WorkerPasses(final IModel model, IRng rng) {
+		
+		this.model = model;
+		this.params = model.getParams();
+		this.shuffle = model.isShuffle();
+		this.rng = rng;
+		this.cbRng = rng instanceof ICounterBasedRNG ? (ICounterBasedRNG) rng : null;
+		this.pool = new AgentPool(this.params);
+		this.stats = new IterationStats();
+		
+		final IterationStats stats = this.stats;
+		this.grassRegen = new CellRangeAccumulator() {
+			@Override
+			protected void process(int from, int to) {
+				model.regenerateGrass(from, to);
+			}
+		};
+		this.grassStats = new CellRangeAccumulator() {
+			@Override
+			protected void process(int from, int to) {
+				model.getGrassStats(from, to, stats);
+			}
+		};
+	}
+	
+	/**
+	 * Get the partial statistics gathered by this thread.
+	 * 
+	 * @return Partial statistics.
+	 */
+	public IterationStats getStats() {
+		return this.stats;
+	}
+	
+	/**
+	 * Get the total number of agent objects allocated by this thread.
+	 * 
+	 * @return Total number of agent objects allocated.
+	 * @see AgentPool#getAllocations()
+	 */
+	public long getAllocations() {
+		return this.pool.getAllocations();
+	}
+	
+	/**
+	 * Initialize the given cell.
+	 * 
+	 * @param token Cell index.
+	 */
+	public void initCell(int token) {
+		if (this.cbRng != null) this.cbRng.setStream(ICounterBasedRNG.INIT_CELLS, 0, token);
+		this.model.initCellAt(token, this.rng);
+	}
+	
+	/**
+	 * Create the given initial sheep and put it in a random cell.
+	 * 
+	 * @param token Initial sheep index.
+	 */
+	public void initSheep(int token) {
+		if (this.cbRng != null) this.cbRng.setStream(ICounterBasedRNG.INIT_SHEEP, 0, token);
+		int idx = this.rng.nextInt(this.model.getSize());
+		IAgent sheep = this.pool.newSheep(
+				1 + this.rng.nextInt(2 * this.params.getSheepGainFromFood()));
+		this.model.getCell(idx).putInitAgent(sheep);
+	}
+	
+	/**
+	 * Create the given initial wolf and put it in a random cell.
+	 * 
+	 * @param token Initial wolf index.
+	 */
+	public void initWolf(int token) {
+		if (this.cbRng != null) this.cbRng.setStream(ICounterBasedRNG.INIT_WOLVES, 0, token);
+		int idx = this.rng.nextInt(this.model.getSize());
+		IAgent wolf = this.pool.newWolf(
+				1 + this.rng.nextInt(2 * this.params.getWolvesGainFromFood()));
+		this.model.getCell(idx).putInitAgent(wolf);
+	}
+	
+	/**
+	 * Gather the initial statistics of the given cell.
+	 * 
+	 * @param token Cell index.
+	 */
+	public void firstStats(int token) {
+		this.model.getCell(token).getStats(this.stats, this.pool);
+		this.grassStats.add(token);
+	}
+	
+	/**
+	 * Perform steps 1 and 2 of the simulation in the given cell, i.e. agent 
+	 * movement and grass growth.
+	 * 
+	 * @param iter Current iteration.
+	 * @param token Cell index.
+	 * @param outbox Outbox through which agents are moved into cells 
+	 * processed by other workers, or null if agents are put directly in 
+	 * those cells.
+	 */
+	public void move(int iter, int token, AgentOutbox outbox) {
+		
+		/* ************************* */
+		/* ** 1 - Agent movement. ** */
+		/* ************************* */
+
+		if (this.cbRng != null) this.cbRng.setStream(ICounterBasedRNG.MOVE, iter, token);
+		this.model.getCell(token).agentsMove(this.rng, this.pool, outbox);
+			
+		/* ************************* */
+		/* *** 2 - Grass growth. *** */
+		/* ************************* */
+		
+		this.grassRegen.add(token);
+	}
+	
+	/**
+	 * Perform steps 3 and 4 of the simulation in the given cell, i.e. agent 
+	 * actions and statistics gathering.
+	 * 
+	 * @param iter Current iteration.
+	 * @param token Cell index.
+	 */
+	public void act(int iter, int token) {
+		
+		/* Current cell being processed. */
+		ICell cell = this.model.getCell(token);
+
+		/* ************************** */
+		/* *** 3 - Agent actions. *** */
+		/* ************************** */
+
+		if (this.cbRng != null) this.cbRng.setStream(ICounterBasedRNG.ACT, iter, token);
+		cell.agentActions(this.rng, this.shuffle, this.pool);
+		
+		/* ****************************** */
+		/* *** 4 - Gather statistics. *** */
+		/* ****************************** */
+
+		cell.getStats(this.stats, this.pool);
+		this.grassStats.add(token);
+	}
+	
+	/**
+	 * Finish a pass over cells, regenerating grass or gathering grass 
+	 * statistics in the last range of cells processed.
+	 */
+	public void finishPass() {
+		this.grassRegen.flush();
+		this.grassStats.flush();
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2014, 2015, Nuno Fachada
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.laseeb.pphpc;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * An exclusive command-line view which performs the same simulation twice, 
+ * without leaving the JVM, and exports the statistics of the second 
+ * simulation. Used to check that restarted simulations produce the same 
+ * results as the first one.
+ * 
+ * @author Nuno Fachada
+ */
+public class RestartCLIView extends AbstractModelEventObserver implements IView {
+	
+	/* Number of times the simulation is performed. */
+	private static final int RUNS = 2;
+	
+	/* The model object. */
+	private IModelQuerier model;
+	
+	/* The main object, which contains all the specified command-line
+	 * options. */
+	private PredPrey pp;
+	
+	/* Released each time a simulation stops. */
+	private Semaphore stopped;
+	
+	/**
+	 * Create a new view which performs the same simulation twice.
+	 */
+	public RestartCLIView() {}
+	
+	/**
+	 * @see IView#init(IModelQuerier, IController, PredPrey)
+	 */
+	@Override
+	public void init(IModelQuerier model, final IController controller, final PredPrey pp) {
+
+		this.model = model;
+		this.pp = pp;
+		this.stopped = new Semaphore(0);
+		
+		/* Register this view as observer of stop and exception events. */
+		model.registerObserver(ModelEvent.STOP, this);
+		model.registerObserver(ModelEvent.EXCEPTION, this);
+		
+		/* Create a thread for this view, and start it. */
+		new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				
+				try {
+					
+					/* Start the simulation and wait for it to stop, as many
+					 * times as required. The controller only starts a new 
+					 * simulation once the previous one is fully stopped. */
+					for (int i = 0; i < RUNS; i++) {
+						controller.start();
+						stopped.acquire();
+					}
+					
+				} catch (IllegalSimStateException e) {
+					throw new RuntimeException("Impossible situation. It's a bug then.");
+				} catch (InterruptedException e) {
+					System.exit(PredPrey.Errors.SIM.getValue());
+				}
+				
+				/* Export statistics of the last simulation, and quit. */
+				controller.export(pp.getStatsFile());
+				controller.dispose();
+				System.exit(PredPrey.Errors.NONE.getValue());
+			}
+
+		}).start();
+	}
+
+	/**
+	 * @see IView#getType()
+	 */
+	@Override
+	public ViewType getType() {
+		return ViewType.ACTIVE_EXCLUSIVE;
+	}
+
+	/**
+	 * @see AbstractModelEventObserver#updateOnStop()
+	 */
+	@Override
+	protected void updateOnStop() {
+		this.stopped.release();
+	}
+
+	/**
+	 * @see AbstractModelEventObserver#updateOnException()
+	 */
+	@Override
+	protected void updateOnException() {
+		String msg = this.pp.errMessage(this.model.getLastThrowable());
+		System.err.println(msg);
+		System.exit(PredPrey.Errors.SIM.getValue());
+	}
+
+}